@@ -3,9 +3,11 @@ package com.fanhub;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching  // Enabling cache for intentional cache bug
+@EnableScheduling
 public class FanHubApplication {
 
     public static void main(String[] args) {
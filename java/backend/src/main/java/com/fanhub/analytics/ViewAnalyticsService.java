@@ -0,0 +1,229 @@
+package com.fanhub.analytics;
+
+import com.fanhub.warmup.WarmupRequests;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Episode and character view counts without a database write per page view.
+ *
+ * GET handlers call {@link #record}, which only CASes an encoded id into a bounded
+ * {@link ViewBuffer}; a full buffer drops the view and counts it, so analytics can never
+ * slow down or fail a request. A single aggregator thread drains the buffer into
+ * per-minute counters and periodically rolls them up into the hourly and daily tables
+ * with one batched upsert transaction, so the SQLite writer lock is taken once per
+ * flush rather than once per view. Counts are therefore up to one flush interval behind.
+ */
+@Service
+public class ViewAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ViewAnalyticsService.class);
+
+    private static final ViewKind[] KINDS = ViewKind.values();
+    private static final int MAX_DAYS = 366;
+    private static final int MAX_TOP = 100;
+
+    private final ViewRollups rollups;
+    private final TransactionTemplate transactions;
+    private final boolean enabled;
+    private final ViewBuffer buffer;
+    private final long drainIntervalMs;
+    private final long flushIntervalMs;
+    private final int maxPendingBuckets;
+
+    // Only touched on the aggregator thread
+    private final Map<ViewRollups.Bucket, Long> minutes = new HashMap<>();
+    private final ScheduledExecutorService aggregator = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "view-analytics");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private volatile int pendingBuckets;
+    private volatile long lastFlushAt;
+    private volatile int lastFlushRows;
+    private volatile long lastFlushMillis;
+    private long droppedAtLastFlush;
+
+    public ViewAnalyticsService(ViewRollups rollups, TransactionTemplate transactions,
+                                @Value("${fanhub.analytics.enabled:true}") boolean enabled,
+                                @Value("${fanhub.analytics.buffer-size:65536}") int bufferSize,
+                                @Value("${fanhub.analytics.drain-interval-ms:250}") long drainIntervalMs,
+                                @Value("${fanhub.analytics.flush-interval-ms:10000}") long flushIntervalMs,
+                                @Value("${fanhub.analytics.max-pending-buckets:100000}") int maxPendingBuckets) {
+        this.rollups = rollups;
+        this.transactions = transactions;
+        this.enabled = enabled;
+        this.buffer = new ViewBuffer(bufferSize);
+        this.drainIntervalMs = drainIntervalMs;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxPendingBuckets = maxPendingBuckets;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        aggregator.scheduleWithFixedDelay(this::drain, drainIntervalMs, drainIntervalMs, TimeUnit.MILLISECONDS);
+        aggregator.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Counts one view. Never blocks; drops the view if the buffer is full. Warm-up traffic is not counted. */
+    public void record(ViewKind kind, Long id) {
+        if (!enabled || id == null || id <= 0 || WarmupRequests.isCurrent()) {
+            return;
+        }
+        if (buffer.offer(id * KINDS.length + kind.ordinal())) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /** Most viewed items over the last {@code days} UTC days, including today. */
+    public List<Map<String, Object>> topViewed(ViewKind kind, int days, int limit) {
+        checkDays(days);
+        if (limit < 1 || limit > MAX_TOP) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_TOP);
+        }
+        return rollups.top(kind, windowStart(ViewRollups.Granularity.DAY, days), limit);
+    }
+
+    public List<Map<String, Object>> history(ViewKind kind, long id, ViewRollups.Granularity granularity, int days) {
+        checkDays(days);
+        return rollups.series(granularity, kind, id, windowStart(granularity, days));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("recorded", recorded.sum());
+        stats.put("droppedBufferFull", dropped.sum());
+        stats.put("discardedUnflushed", discarded.get());
+        stats.put("bufferSize", buffer.size());
+        stats.put("bufferCapacity", buffer.capacity());
+        stats.put("pendingBuckets", pendingBuckets);
+        stats.put("flushes", flushes.get());
+        stats.put("flushFailures", flushFailures.get());
+        stats.put("lastFlushAt", lastFlushAt == 0 ? null : Instant.ofEpochMilli(lastFlushAt).toString());
+        stats.put("lastFlushRows", lastFlushRows);
+        stats.put("lastFlushMillis", lastFlushMillis);
+        return stats;
+    }
+
+    private void drain() {
+        try {
+            long minute = System.currentTimeMillis() / 60_000 * 60;
+            buffer.drain(value -> {
+                ViewKind kind = KINDS[(int) (value % KINDS.length)];
+                minutes.merge(new ViewRollups.Bucket(kind, value / KINDS.length, minute), 1L, Long::sum);
+            });
+            if (minutes.size() > maxPendingBuckets) {
+                // The database has not accepted a flush for a while; shed memory rather than grow.
+                long views = minutes.values().stream().mapToLong(Long::longValue).sum();
+                discarded.addAndGet(views);
+                minutes.clear();
+                log.warn("Discarded {} unflushed views: more than {} pending buckets", views, maxPendingBuckets);
+            }
+            pendingBuckets = minutes.size();
+        } catch (RuntimeException e) {
+            log.warn("View analytics drain failed", e);
+        }
+    }
+
+    private void flush() {
+        drain();
+        long droppedNow = dropped.sum();
+        if (droppedNow > droppedAtLastFlush) {
+            log.warn("Dropped {} views since the last flush: buffer of {} was full",
+                    droppedNow - droppedAtLastFlush, buffer.capacity());
+            droppedAtLastFlush = droppedNow;
+        }
+        if (minutes.isEmpty()) {
+            return;
+        }
+        Map<ViewRollups.Bucket, Long> hourly = rollUp(ViewRollups.Granularity.HOUR);
+        Map<ViewRollups.Bucket, Long> daily = rollUp(ViewRollups.Granularity.DAY);
+        long start = System.nanoTime();
+        try {
+            transactions.executeWithoutResult(status -> {
+                rollups.add(ViewRollups.Granularity.HOUR, hourly);
+                rollups.add(ViewRollups.Granularity.DAY, daily);
+            });
+            minutes.clear();
+            pendingBuckets = 0;
+            flushes.incrementAndGet();
+            lastFlushAt = System.currentTimeMillis();
+            lastFlushRows = hourly.size() + daily.size();
+            lastFlushMillis = (System.nanoTime() - start) / 1_000_000;
+        } catch (RuntimeException e) {
+            // Keep the minute buckets and retry on the next flush
+            flushFailures.incrementAndGet();
+            log.warn("View analytics flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private Map<ViewRollups.Bucket, Long> rollUp(ViewRollups.Granularity granularity) {
+        Map<ViewRollups.Bucket, Long> rolled = new HashMap<>();
+        minutes.forEach((bucket, views) -> rolled.merge(
+                new ViewRollups.Bucket(bucket.kind(), bucket.itemId(), granularity.bucketStart(bucket.start())),
+                views, Long::sum));
+        return rolled;
+    }
+
+    private static long windowStart(ViewRollups.Granularity granularity, int days) {
+        long now = System.currentTimeMillis() / 1000;
+        if (granularity == ViewRollups.Granularity.DAY) {
+            return granularity.bucketStart(now) - (days - 1) * granularity.seconds();
+        }
+        return granularity.bucketStart(now - days * 86400L);
+    }
+
+    private static void checkDays(int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "days must be between 1 and " + MAX_DAYS);
+        }
+    }
+
+    /** Drains and writes out every view recorded so far, on the aggregator thread, and waits for it. */
+    void flushNow() throws Exception {
+        aggregator.submit(this::flush).get(10, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            try {
+                // Write out whatever is still in memory before the DataSource goes away
+                flushNow();
+            } catch (Exception e) {
+                log.warn("Final view analytics flush did not complete: {}", e.getMessage());
+            }
+        }
+        aggregator.shutdownNow();
+    }
+}
@@ -0,0 +1,69 @@
+package com.fanhub.analytics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+/**
+ * Bounded multi-producer, single-consumer ring of encoded views.
+ *
+ * Request threads claim a slot with a CAS on {@code tail} and then publish the value
+ * into it; they never block and never take a lock. When the ring is full the view is
+ * rejected and the caller counts the drop. Only the aggregator thread calls
+ * {@link #drain}. A slot value of 0 means "claimed but not yet published".
+ */
+final class ViewBuffer {
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    ViewBuffer(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+        this.slots = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /** Adds a non-zero value, or returns false if the ring is full. */
+    boolean offer(long value) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head.get() >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.set((int) (t & mask), value);
+        return true;
+    }
+
+    /** Hands every published value to the consumer and returns how many there were. */
+    int drain(LongConsumer consumer) {
+        long h = head.get();
+        long t = tail.get();
+        int drained = 0;
+        while (h < t) {
+            int index = (int) (h & mask);
+            long value = slots.get(index);
+            if (value == 0) {
+                // A producer has claimed this slot but not written it yet; pick it up next time.
+                break;
+            }
+            slots.set(index, 0);
+            consumer.accept(value);
+            h++;
+            drained++;
+        }
+        head.set(h);
+        return drained;
+    }
+
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,29 @@
+package com.fanhub.analytics;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/** What a counted page view was for. Stored by {@link #key()} in the rollup tables. */
+public enum ViewKind {
+    EPISODE("episode"),
+    CHARACTER("character");
+
+    private final String key;
+
+    ViewKind(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public static ViewKind fromKey(String key) {
+        for (ViewKind kind : values()) {
+            if (kind.key.equals(key)) {
+                return kind;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown view kind: " + key);
+    }
+}
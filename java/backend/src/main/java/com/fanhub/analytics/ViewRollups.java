@@ -0,0 +1,88 @@
+package com.fanhub.analytics;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The hourly and daily view count tables. Writes are additive upserts, so a bucket
+ * flushed twice (say, once before and once after a restart) simply adds up.
+ */
+@Repository
+public class ViewRollups {
+
+    public enum Granularity {
+        HOUR("view_counts_hourly", 3600),
+        DAY("view_counts_daily", 86400);
+
+        private final String table;
+        private final long seconds;
+
+        Granularity(String table, long seconds) {
+            this.table = table;
+            this.seconds = seconds;
+        }
+
+        public long seconds() {
+            return seconds;
+        }
+
+        /** Start of the bucket containing the given epoch second. */
+        public long bucketStart(long epochSecond) {
+            return epochSecond - Math.floorMod(epochSecond, seconds);
+        }
+    }
+
+    /** One counter cell: views of one item in the bucket starting at {@code start} (epoch seconds). */
+    public record Bucket(ViewKind kind, long itemId, long start) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ViewRollups(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void add(Granularity granularity, Map<Bucket, Long> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(counts.size());
+        counts.forEach((bucket, views) ->
+                rows.add(new Object[]{bucket.kind().key(), bucket.itemId(), bucket.start(), views}));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO " + granularity.table + " (kind, item_id, bucket_start, views) VALUES (?, ?, ?, ?)"
+                        + " ON CONFLICT (kind, item_id, bucket_start) DO UPDATE SET views = views + excluded.views",
+                rows);
+    }
+
+    /** Per-bucket counts for one item, oldest first. */
+    public List<Map<String, Object>> series(Granularity granularity, ViewKind kind, long itemId, long from) {
+        return jdbcTemplate.query(
+                "SELECT bucket_start, views FROM " + granularity.table
+                        + " WHERE kind = ? AND item_id = ? AND bucket_start >= ? ORDER BY bucket_start",
+                (rs, i) -> row("bucketStart", Instant.ofEpochSecond(rs.getLong(1)).toString(), "views", rs.getLong(2)),
+                kind.key(), itemId, from);
+    }
+
+    /** Items with the most views since {@code from}, most viewed first. */
+    public List<Map<String, Object>> top(ViewKind kind, long from, int limit) {
+        return jdbcTemplate.query(
+                "SELECT item_id, SUM(views) AS total FROM " + Granularity.DAY.table
+                        + " WHERE kind = ? AND bucket_start >= ?"
+                        + " GROUP BY item_id ORDER BY total DESC, item_id LIMIT ?",
+                (rs, i) -> row("id", rs.getLong(1), "views", rs.getLong(2)),
+                kind.key(), from, limit);
+    }
+
+    private static Map<String, Object> row(String k1, Object v1, String k2, Object v2) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put(k1, v1);
+        row.put(k2, v2);
+        return row;
+    }
+}
@@ -0,0 +1,153 @@
+package com.fanhub.backup;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Progress of one backup, updated by the backup thread and read by the admin endpoint.
+ */
+public class BackupJob {
+
+    public enum State { RUNNING, SUCCEEDED, FAILED }
+
+    private final String name;
+    private final String trigger;
+    private final int pagesPerStep;
+    private final long stepDelayMs;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final List<FileProgress> files = new CopyOnWriteArrayList<>();
+
+    private volatile State state = State.RUNNING;
+    private volatile String error;
+    private volatile Path location;
+    private volatile long finishedNanos;
+
+    /** One database file within the backup; pages as reported by sqlite3_backup_step. */
+    static class FileProgress {
+        private final String file;
+        private volatile int pageCount;
+        private volatile int remaining = -1;
+        private volatile int restarts;
+        private volatile int steps;
+        private volatile boolean snapshot;
+        private volatile boolean done;
+
+        FileProgress(String file) {
+            this.file = file;
+        }
+
+        void start(boolean snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /** Records one step and returns the number of restarts so far. */
+        int update(int remaining, int pageCount) {
+            // The remaining count only goes up when SQLite started over
+            if (this.remaining >= 0 && remaining > this.remaining) {
+                restarts++;
+            }
+            this.remaining = remaining;
+            this.pageCount = pageCount;
+            steps++;
+            return restarts;
+        }
+
+        void finish() {
+            done = true;
+        }
+
+        int restarts() {
+            return restarts;
+        }
+
+        long copied() {
+            return remaining < 0 ? 0 : pageCount - remaining;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("file", file);
+            map.put("pageCount", pageCount);
+            map.put("copiedPages", copied());
+            map.put("steps", steps);
+            map.put("restarts", restarts);
+            map.put("snapshot", snapshot);
+            map.put("done", done);
+            return map;
+        }
+    }
+
+    BackupJob(String name, String trigger, int pagesPerStep, long stepDelayMs) {
+        this.name = name;
+        this.trigger = trigger;
+        this.pagesPerStep = pagesPerStep;
+        this.stepDelayMs = stepDelayMs;
+    }
+
+    public String getName() { return name; }
+    public State getState() { return state; }
+    int getPagesPerStep() { return pagesPerStep; }
+    long getStepDelayMs() { return stepDelayMs; }
+
+    void addFile(String file) {
+        files.add(new FileProgress(file));
+    }
+
+    FileProgress file(String file) {
+        return files.stream().filter(f -> f.file.equals(file)).findFirst().orElseThrow();
+    }
+
+    void succeed(Path location) {
+        this.location = location;
+        this.finishedNanos = System.nanoTime();
+        this.state = State.SUCCEEDED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.finishedNanos = System.nanoTime();
+        this.state = State.FAILED;
+    }
+
+    long copiedPages() {
+        return files.stream().mapToLong(FileProgress::copied).sum();
+    }
+
+    int restarts() {
+        return files.stream().mapToInt(FileProgress::restarts).sum();
+    }
+
+    long elapsedMs() {
+        return ((finishedNanos != 0 ? finishedNanos : System.nanoTime()) - startNanos) / 1_000_000;
+    }
+
+    public Map<String, Object> toMap() {
+        long total = files.stream().mapToLong(f -> f.pageCount).sum();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", name);
+        map.put("state", state);
+        map.put("trigger", trigger);
+        map.put("startedAt", startedAt.toString());
+        map.put("elapsedMs", elapsedMs());
+        // Files not started yet have no page count, so this covers the files reached so far
+        map.put("percent", state == State.SUCCEEDED ? 100.0
+                : total == 0 ? 0.0 : Math.floor(1000.0 * copiedPages() / total) / 10);
+        map.put("filesDone", files.stream().filter(f -> f.done).count());
+        map.put("fileCount", files.size());
+        map.put("pagesPerStep", pagesPerStep);
+        map.put("stepDelayMs", stepDelayMs);
+        map.put("files", files.stream().map(FileProgress::toMap).toList());
+        if (location != null) {
+            map.put("location", location.toString());
+        }
+        if (error != null) {
+            map.put("error", error);
+        }
+        return map;
+    }
+}
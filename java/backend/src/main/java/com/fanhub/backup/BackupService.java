@@ -0,0 +1,350 @@
+package com.fanhub.backup;
+
+import com.fanhub.sharding.ShardCatalog;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.sqlite.SQLiteConnection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Consistent copies of the live SQLite database(s) while the application keeps writing.
+ *
+ * Uses SQLite's online backup API on a dedicated connection and thread, copying
+ * {@code pages-per-step} pages at a time and sleeping {@code step-delay-ms} between
+ * steps, so each step holds the source's shared lock only briefly and the copy's I/O
+ * is spread out instead of competing with requests.
+ *
+ * The application opens the home database and the shard files in WAL mode
+ * ({@code spring.datasource.hikari.connection-init-sql}), so the backup connection
+ * keeps one read transaction open for the whole copy: the result is the database as
+ * of the start, and writers carry on in the WAL (checkpoints cannot pass the backup's
+ * snapshot until it finishes). Should a file still be in rollback-journal mode, every
+ * commit from the application makes SQLite restart the copy; after {@code max-restarts}
+ * the pauses are dropped so it can finish, and the log warns.
+ *
+ * Each backup is a directory under {@code fanhub.backup.dir} holding the home database
+ * and, in sharded mode, every shard file. It is built as {@code <name>.partial}, each
+ * file is checked with {@code PRAGMA quick_check}, and only then renamed into place.
+ */
+@Service
+public class BackupService {
+
+    private static final Logger log = LoggerFactory.getLogger(BackupService.class);
+
+    private static final String PARTIAL = ".partial";
+    private static final Pattern NAME = Pattern.compile("fanhub-\\d{8}-\\d{6}");
+    private static final Pattern RESTORE_NAME = Pattern.compile("[A-Za-z0-9._-]+\\.db");
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+    private static final int BUSY_RETRIES = 100;
+    private static final int BUSY_SLEEP_MS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<ShardCatalog> shardCatalog;
+    private final Path directory;
+    private final int pagesPerStep;
+    private final long stepDelayMs;
+    private final int maxRestarts;
+    private final int keep;
+
+    private final AtomicReference<BackupJob> current = new AtomicReference<>();
+    private volatile BackupJob last;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sqlite-backup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public BackupService(JdbcTemplate jdbcTemplate,
+                         ObjectProvider<ShardCatalog> shardCatalog,
+                         @Value("${fanhub.backup.dir:./backups}") String directory,
+                         @Value("${fanhub.backup.pages-per-step:128}") int pagesPerStep,
+                         @Value("${fanhub.backup.step-delay-ms:10}") long stepDelayMs,
+                         @Value("${fanhub.backup.max-restarts:5}") int maxRestarts,
+                         @Value("${fanhub.backup.keep:7}") int keep) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardCatalog = shardCatalog;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.pagesPerStep = Math.max(1, pagesPerStep);
+        this.stepDelayMs = Math.max(0, stepDelayMs);
+        this.maxRestarts = Math.max(0, maxRestarts);
+        this.keep = keep;
+    }
+
+    /**
+     * Starts a backup in the background and returns its job. Only one runs at a time;
+     * a second request gets 409. {@code stepDelayMs} overrides the configured throttle.
+     */
+    public BackupJob start(String trigger, Long stepDelayMs) {
+        long delay = stepDelayMs != null ? Math.max(0, stepDelayMs) : this.stepDelayMs;
+        BackupJob job = new BackupJob("fanhub-" + STAMP.format(Instant.now()), trigger, pagesPerStep, delay);
+        if (!current.compareAndSet(null, job)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Backup " + current.get().getName() + " is still running");
+        }
+        worker.execute(() -> {
+            try {
+                run(job);
+            } finally {
+                last = job;
+                current.set(null);
+            }
+        });
+        return job;
+    }
+
+    // Off unless fanhub.backup.cron is set
+    @Scheduled(cron = "${fanhub.backup.cron:-}", zone = "UTC")
+    public void scheduled() {
+        try {
+            start("schedule", null);
+        } catch (ResponseStatusException e) {
+            log.warn("Skipping scheduled backup: {}", e.getReason());
+        }
+    }
+
+    /** The running job, or else the last finished one since startup; null if there was none. */
+    public BackupJob status() {
+        BackupJob running = current.get();
+        return running != null ? running : last;
+    }
+
+    /** Finished backups, newest first. */
+    public List<Map<String, Object>> list() {
+        List<Map<String, Object>> backups = new ArrayList<>();
+        for (Path backup : finishedBackups()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", backup.getFileName().toString());
+            List<String> files = new ArrayList<>();
+            long bytes = 0;
+            try (Stream<Path> listing = Files.list(backup)) {
+                for (Path file : listing.sorted().toList()) {
+                    files.add(file.getFileName().toString());
+                    bytes += Files.size(file);
+                }
+                entry.put("createdAt", Files.getLastModifiedTime(backup).toInstant().toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entry.put("files", files);
+            entry.put("bytes", bytes);
+            backups.add(entry);
+        }
+        return backups;
+    }
+
+    /**
+     * Copies one database file out of a backup into a new file under
+     * {@code <backup dir>/restored}, verified and ready to be pointed at with
+     * {@code DATABASE_URL}. Never touches the live database.
+     */
+    public Map<String, Object> restore(String name, String file, String target) {
+        Path backup = backupDirectory(name);
+        Path source = backup.resolve(file == null ? "fanhub.db" : file).normalize();
+        if (!source.getParent().equals(backup) || !Files.isRegularFile(source)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No " + file + " in backup " + name);
+        }
+        String targetName = target == null ? name + "-" + source.getFileName() : target;
+        if (!RESTORE_NAME.matcher(targetName).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "target must be a plain file name ending in .db");
+        }
+        Path restored = directory.resolve("restored").resolve(targetName);
+        if (Files.exists(restored)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Restore target already exists: " + restored);
+        }
+        long start = System.nanoTime();
+        try {
+            Files.createDirectories(restored.getParent());
+            Path partial = restored.resolveSibling(targetName + PARTIAL);
+            Files.deleteIfExists(partial);
+            // Nothing writes to a finished backup, so copy it in one go
+            copy(source, partial, new BackupJob.FileProgress(source.getFileName().toString()), -1, 0, false, Long.MAX_VALUE);
+            verify(partial);
+            Files.move(partial, restored, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | SQLException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Restore failed: " + e.getMessage(), e);
+        }
+        log.info("Restored {}/{} to {} in {} ms", name, source.getFileName(), restored, (System.nanoTime() - start) / 1_000_000);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("backup", name);
+        result.put("file", source.getFileName().toString());
+        result.put("restoredTo", restored.toString());
+        result.put("databaseUrl", "jdbc:sqlite:" + restored);
+        return result;
+    }
+
+    private void run(BackupJob job) {
+        Path target = directory.resolve(job.getName() + PARTIAL);
+        try {
+            Files.createDirectories(target);
+            Map<String, Path> sources = sources();
+            for (String file : sources.keySet()) {
+                job.addFile(file);
+            }
+            for (Map.Entry<String, Path> source : sources.entrySet()) {
+                BackupJob.FileProgress progress = job.file(source.getKey());
+                Path out = target.resolve(source.getKey());
+                copy(source.getValue(), out, progress, job.getPagesPerStep(), job.getStepDelayMs(), true, maxRestarts);
+                verify(out);
+                progress.finish();
+            }
+            Path finished = directory.resolve(job.getName());
+            Files.move(target, finished, StandardCopyOption.ATOMIC_MOVE);
+            job.succeed(finished);
+            log.info("Backup {} done: {} files, {} pages, {} restarts, {} ms", job.getName(), sources.size(),
+                    job.copiedPages(), job.restarts(), job.elapsedMs());
+            prune();
+        } catch (IOException | SQLException | RuntimeException e) {
+            job.fail(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+            log.error("Backup {} failed", job.getName(), e);
+            deleteRecursively(target);
+        }
+    }
+
+    // Home database first, then shard files (named after the shard)
+    private Map<String, Path> sources() {
+        Map<String, Path> sources = new LinkedHashMap<>();
+        String home = jdbcTemplate.queryForObject("SELECT file FROM pragma_database_list WHERE name = 'main'", String.class);
+        if (home == null || home.isEmpty()) {
+            throw new IllegalStateException("The database is not file-backed; nothing to back up");
+        }
+        sources.put("fanhub.db", Path.of(home));
+        ShardCatalog shards = shardCatalog.getIfAvailable();
+        if (shards != null) {
+            for (String shard : shards.shards()) {
+                sources.put("shard-" + shard + ".db", shards.fileFor(shard));
+            }
+        }
+        return sources;
+    }
+
+    private void copy(Path source, Path destination, BackupJob.FileProgress progress, int pagesPerStep,
+                      long stepDelayMs, boolean live, long maxRestarts) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + source)) {
+            boolean wal;
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA busy_timeout = " + BUSY_RETRIES * BUSY_SLEEP_MS);
+                try (ResultSet rs = statement.executeQuery("PRAGMA journal_mode")) {
+                    wal = rs.next() && "wal".equalsIgnoreCase(rs.getString(1));
+                }
+                if (wal && live) {
+                    // Pin one snapshot for the whole copy; writers keep appending to the WAL
+                    connection.setAutoCommit(false);
+                    statement.executeQuery("SELECT COUNT(*) FROM sqlite_master").close();
+                }
+            }
+            progress.start(wal);
+            int rc = connection.unwrap(SQLiteConnection.class).getDatabase().backup("main", destination.toString(),
+                    (remaining, pageCount) -> {
+                        boolean throttled = progress.update(remaining, pageCount) <= maxRestarts;
+                        if (throttled && stepDelayMs > 0 && remaining > 0) {
+                            try {
+                                Thread.sleep(stepDelayMs);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    }, BUSY_SLEEP_MS, BUSY_RETRIES, pagesPerStep);
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            if (rc != 0) {
+                throw new SQLException("SQLite backup of " + source + " failed with code " + rc);
+            }
+            if (progress.restarts() > maxRestarts && maxRestarts != Long.MAX_VALUE) {
+                log.warn("Backup of {} restarted {} times because of concurrent commits; "
+                        + "it is not in WAL mode, check spring.datasource.hikari.connection-init-sql", source, progress.restarts());
+            }
+        }
+    }
+
+    private static void verify(Path file) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA quick_check")) {
+            String result = rs.next() ? rs.getString(1) : null;
+            if (!"ok".equalsIgnoreCase(result)) {
+                throw new SQLException("quick_check of " + file.getFileName() + " failed: " + result);
+            }
+        }
+    }
+
+    private List<Path> finishedBackups() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing.filter(Files::isDirectory)
+                    .filter(p -> NAME.matcher(p.getFileName().toString()).matches())
+                    .sorted(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path backupDirectory(String name) {
+        if (name == null || !NAME.matcher(name).matches() || !Files.isDirectory(directory.resolve(name))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No backup named " + name);
+        }
+        return directory.resolve(name);
+    }
+
+    private void prune() {
+        if (keep <= 0) {
+            return;
+        }
+        List<Path> backups = finishedBackups();
+        for (Path old : backups.subList(Math.min(keep, backups.size()), backups.size())) {
+            log.info("Removing old backup {}", old.getFileName());
+            deleteRecursively(old);
+        }
+    }
+
+    private static void deleteRecursively(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+}
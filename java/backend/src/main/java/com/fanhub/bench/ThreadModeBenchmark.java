@@ -0,0 +1,388 @@
+package com.fanhub.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares request handling on platform and virtual threads under a mixed load.
+ *
+ * <pre>
+ * java -cp fanhub-backend.jar -Dloader.main=com.fanhub.bench.ThreadModeBenchmark \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher fanhub-backend.jar --db=catalog.db \
+ *      [--java=/opt/jdk-21/bin/java] [--modes=platform,virtual,virtual-unbounded] [--seconds=30]
+ * </pre>
+ * or {@code mvn verify -Pbench -Dbench.options="--java=..."}.
+ *
+ * Each mode starts the jar on a copy of the database and runs closed-loop clients with
+ * no think time: readers GET shows, episodes and characters, writers insert quotes and
+ * logins run BCrypt. Writers and logins are there to saturate the SQLite writer and the
+ * CPU, so the number to watch is reader throughput and p99 next to them. A mode ending
+ * in {@code -unbounded} turns the bulkheads off. Virtual threads need a Java 21+
+ * runtime for the server; on an older one the mode is reported as running on platform
+ * threads.
+ */
+public class ThreadModeBenchmark {
+
+    private static final String[] CLASSES = {"read", "write", "login"};
+    private static final String PASSWORD = "benchmark-password";
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    record Options(Path jar, Path db, String java, List<String> modes, int seconds, int warmupSeconds,
+                   int readers, int writers, int logins, List<String> jvmOptions) {}
+
+    record Targets(long[] shows, long[][] characters, long[] episodes) {}
+
+    /** Latencies of one request class on one client thread; merged after the run. */
+    static final class Recorder {
+        long[] micros = new long[1024];
+        int count;
+        long rejected;
+        long errors;
+
+        void add(long value) {
+            if (count == micros.length) {
+                micros = Arrays.copyOf(micros, count * 2);
+            }
+            micros[count++] = value;
+        }
+    }
+
+    record ClassResult(long ok, long rejected, long errors, double perSecond, double p50, double p99, double max) {}
+
+    record ModeResult(String mode, String threads, Map<String, ClassResult> classes) {}
+
+    private final Options options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    ThreadModeBenchmark(Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args[0].startsWith("--")) {
+            System.err.println("Usage: ThreadModeBenchmark <fanhub-backend.jar> --db=<file.db> [--java=<java>]"
+                    + " [--modes=platform,virtual] [--seconds=30] [--warmup-seconds=10] [--readers=64]"
+                    + " [--writers=32] [--logins=16] [--jvm=-Xmx1g]");
+            System.exit(2);
+        }
+        new ThreadModeBenchmark(parse(args)).run();
+    }
+
+    static Options parse(String[] args) {
+        Map<String, String> flags = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            // Maven passes the optional extra flags as one argument
+            for (String flag : args[i].trim().split("\\s+")) {
+                if (flag.isEmpty()) {
+                    continue;
+                }
+                if (!flag.startsWith("--")) {
+                    throw new IllegalArgumentException("Unexpected argument: " + flag);
+                }
+                int eq = flag.indexOf('=');
+                flags.put(eq < 0 ? flag.substring(2) : flag.substring(2, eq), eq < 0 ? "true" : flag.substring(eq + 1));
+            }
+        }
+        Path jar = Path.of(args[0]);
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalArgumentException(jar + " does not exist; run mvn package first");
+        }
+        Path db = Path.of(flags.getOrDefault("db", "fanhub.db"));
+        if (!Files.isRegularFile(db)) {
+            throw new IllegalArgumentException(db + " does not exist");
+        }
+        List<String> modes = List.of(flags.getOrDefault("modes", "platform,virtual").split(","));
+        for (String mode : modes) {
+            if (!mode.matches("(platform|virtual)(-unbounded)?")) {
+                throw new IllegalArgumentException("Unknown mode " + mode
+                        + "; use platform, virtual, platform-unbounded or virtual-unbounded");
+            }
+        }
+        return new Options(jar, db,
+                flags.getOrDefault("java", Path.of(System.getProperty("java.home"), "bin", "java").toString()),
+                modes,
+                Integer.parseInt(flags.getOrDefault("seconds", "30")),
+                Integer.parseInt(flags.getOrDefault("warmup-seconds", "10")),
+                Integer.parseInt(flags.getOrDefault("readers", "64")),
+                Integer.parseInt(flags.getOrDefault("writers", "32")),
+                Integer.parseInt(flags.getOrDefault("logins", "16")),
+                List.of(flags.getOrDefault("jvm", "-Xmx1g").split(",")));
+    }
+
+    void run() throws Exception {
+        Targets targets = targets(options.db());
+        System.out.printf("Load: %d readers, %d writers, %d logins for %d s after %d s warm-up%n",
+                options.readers(), options.writers(), options.logins(), options.seconds(), options.warmupSeconds());
+        List<ModeResult> results = new ArrayList<>();
+        for (String mode : options.modes()) {
+            results.add(runMode(mode, targets));
+        }
+
+        System.out.println();
+        System.out.printf("%-20s %-8s %-6s %9s %9s %9s %9s %8s %7s%n",
+                "Mode", "Threads", "Class", "req/s", "p50 ms", "p99 ms", "max ms", "503s", "errors");
+        for (ModeResult result : results) {
+            for (String name : CLASSES) {
+                ClassResult c = result.classes().get(name);
+                System.out.printf("%-20s %-8s %-6s %9.1f %9.1f %9.1f %9.1f %8d %7d%n", result.mode(), result.threads(),
+                        name, c.perSecond(), c.p50(), c.p99(), c.max(), c.rejected(), c.errors());
+            }
+        }
+        for (ModeResult result : results) {
+            if (result.mode().startsWith("virtual") && !result.threads().equals("virtual")) {
+                System.out.printf("%n%s ran on platform threads: pass --java=<JDK 21+>/bin/java to compare%n",
+                        result.mode());
+            }
+        }
+    }
+
+    private ModeResult runMode(String mode, Targets targets) throws Exception {
+        Path workDirectory = Files.createTempDirectory("fanhub-bench-");
+        Path db = workDirectory.resolve("fanhub.db");
+        Files.copy(options.db(), db);
+        int port = freePort();
+        String base = "http://localhost:" + port;
+
+        List<String> command = new ArrayList<>();
+        command.add(options.java());
+        command.addAll(options.jvmOptions());
+        command.addAll(List.of("-jar", options.jar().toAbsolutePath().toString(),
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:sqlite:" + db,
+                "--spring.threads.virtual.enabled=" + mode.startsWith("virtual"),
+                "--fanhub.bulkheads.enabled=" + !mode.endsWith("-unbounded"),
+                "--fanhub.images.cache-dir=" + workDirectory.resolve("image-cache"),
+                "--fanhub.warmup.enabled=false",
+                "--fanhub.admin.username=admin",
+                "--fanhub.admin.password=" + PASSWORD,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.fanhub=INFO",
+                "--logging.level.org.hibernate.SQL=WARN"));
+        Path log = workDirectory.resolve("server.log");
+        Process server = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            awaitReady(server, base, log);
+            String threads = String.valueOf(getJson(base + "/api/admin/bulkheads").get("threads"));
+            send(post(base + "/auth/register", "{\"email\":\"bench@example.com\",\"username\":\"bench\","
+                    + "\"password\":\"" + PASSWORD + "\"}"));
+            System.out.printf("%n%s: server on port %d (%s threads), log in %s%n", mode, port, threads, log);
+
+            Map<String, ClassResult> classes = load(base, targets);
+            for (String name : CLASSES) {
+                ClassResult c = classes.get(name);
+                System.out.printf("  %-6s %9.1f req/s  p50 %7.1f ms  p99 %7.1f ms  max %7.1f ms  503s %d  errors %d%n",
+                        name, c.perSecond(), c.p50(), c.p99(), c.max(), c.rejected(), c.errors());
+            }
+            return new ModeResult(mode, threads, classes);
+        } finally {
+            server.destroy();
+            if (!server.waitFor(30, TimeUnit.SECONDS)) {
+                server.destroyForcibly();
+            }
+        }
+    }
+
+    private Map<String, ClassResult> load(String base, Targets targets) throws InterruptedException {
+        int clients = options.readers() + options.writers() + options.logins();
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.warmupSeconds());
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(options.seconds());
+        AtomicLong quoteNumber = new AtomicLong();
+        Map<String, List<Recorder>> recorders = new LinkedHashMap<>();
+        for (String name : CLASSES) {
+            recorders.put(name, new ArrayList<>());
+        }
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            String kind = i < options.readers() ? "read" : i < options.readers() + options.writers() ? "write" : "login";
+            Recorder recorder = new Recorder();
+            recorders.get(kind).add(recorder);
+            Thread thread = new Thread(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = switch (kind) {
+                            case "read" -> readRequest(base, targets, random);
+                            case "write" -> writeRequest(base, targets, random, quoteNumber.incrementAndGet());
+                            default -> post(base + "/auth/login",
+                                    "{\"email\":\"bench@example.com\",\"password\":\"" + PASSWORD + "\"}");
+                        };
+                        long start = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (IOException e) {
+                            status = -1;
+                        }
+                        long end = System.nanoTime();
+                        if (start < measureFrom || end > deadline) {
+                            continue;
+                        }
+                        if (status >= 200 && status < 300) {
+                            recorder.add((end - start) / 1000);
+                        } else if (status == 503) {
+                            recorder.rejected++;
+                        } else {
+                            recorder.errors++;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "bench-" + kind + "-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+
+        Map<String, ClassResult> results = new LinkedHashMap<>();
+        recorders.forEach((name, list) -> results.put(name, summarize(list)));
+        return results;
+    }
+
+    private ClassResult summarize(List<Recorder> recorders) {
+        long[] all = new long[recorders.stream().mapToInt(r -> r.count).sum()];
+        int offset = 0;
+        long rejected = 0;
+        long errors = 0;
+        for (Recorder recorder : recorders) {
+            System.arraycopy(recorder.micros, 0, all, offset, recorder.count);
+            offset += recorder.count;
+            rejected += recorder.rejected;
+            errors += recorder.errors;
+        }
+        Arrays.sort(all);
+        return new ClassResult(all.length, rejected, errors, (double) all.length / options.seconds(),
+                percentile(all, 0.50), percentile(all, 0.99), all.length == 0 ? 0 : all[all.length - 1] / 1000.0);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1000.0;
+    }
+
+    private static HttpRequest readRequest(String base, Targets targets, ThreadLocalRandom random) {
+        long show = targets.shows()[random.nextInt(targets.shows().length)];
+        String path = switch (random.nextInt(4)) {
+            case 0 -> "/api/shows/" + show;
+            case 1 -> "/api/characters?showId=" + show;
+            case 2 -> "/api/characters/" + targets.characters()[random.nextInt(targets.characters().length)][0];
+            default -> "/api/episodes/" + targets.episodes()[random.nextInt(targets.episodes().length)];
+        };
+        return HttpRequest.newBuilder(URI.create(base + path)).timeout(Duration.ofSeconds(60)).GET().build();
+    }
+
+    private static HttpRequest writeRequest(String base, Targets targets, ThreadLocalRandom random, long number) {
+        long[] character = targets.characters()[random.nextInt(targets.characters().length)];
+        return post(base + "/api/quotes", "{\"showId\":" + character[1] + ",\"characterId\":" + character[0]
+                + ",\"quoteText\":\"Benchmark quote " + number + "\",\"isFamous\":false,\"likesCount\":0}");
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    /** A sample of ids to spread reads and writes over; characters carry their show id. */
+    private static Targets targets(Path db) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + db);
+             Statement statement = connection.createStatement()) {
+            long[] shows = ids(statement, "SELECT id FROM shows ORDER BY RANDOM() LIMIT 100");
+            List<long[]> characters = new ArrayList<>();
+            try (ResultSet rows = statement.executeQuery(
+                    "SELECT id, show_id FROM characters WHERE show_id IS NOT NULL ORDER BY RANDOM() LIMIT 1000")) {
+                while (rows.next()) {
+                    characters.add(new long[]{rows.getLong(1), rows.getLong(2)});
+                }
+            }
+            long[] episodes = ids(statement, "SELECT id FROM episodes ORDER BY RANDOM() LIMIT 1000");
+            if (shows.length == 0 || characters.isEmpty() || episodes.length == 0) {
+                throw new IllegalArgumentException(db + " needs at least one show, character and episode");
+            }
+            return new Targets(shows, characters.toArray(long[][]::new), episodes);
+        }
+    }
+
+    private static long[] ids(Statement statement, String sql) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet rows = statement.executeQuery(sql)) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private void awaitReady(Process server, String base, Path log) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("Server exited with " + server.exitValue() + "; see " + log);
+            }
+            try {
+                if (send(HttpRequest.newBuilder(URI.create(base + "/api/health/ready")).build()) == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException("Server not ready after 2 minutes; see " + log);
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private Map<String, Object> getJson(String url) throws IOException, InterruptedException {
+        // Only used for /api/admin/bulkheads, as the admin the server was started with
+        String basic = Base64.getEncoder().encodeToString(("admin:" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+        String body = client.send(HttpRequest.newBuilder(URI.create(url)).header("Authorization", "Basic " + basic).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        return JSON.readValue(body, new TypeReference<>() {});
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.fanhub.bulkhead;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A fixed number of permits in front of one downstream resource. Callers queue in
+ * arrival order for up to {@code maxWaitMs} and get a 503 after that, so a slow
+ * resource ties up its own permits rather than every request thread.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final int limit;
+    private final long maxWaitMs;
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    Bulkhead(String name, int limit, long maxWaitMs) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Bulkhead " + name + " needs at least one permit");
+        }
+        this.name = name;
+        this.limit = limit;
+        this.maxWaitMs = maxWaitMs;
+        this.permits = new Semaphore(limit, true);
+    }
+
+    public String getName() { return name; }
+
+    /** Takes a permit, waiting up to the configured time; every successful call needs a {@link #release()}. */
+    public void acquire() {
+        long start = System.nanoTime();
+        waiting.incrementAndGet();
+        boolean granted;
+        try {
+            granted = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            granted = false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+        if (!granted) {
+            rejected.increment();
+            throw new BulkheadFullException(name, maxWaitMs);
+        }
+        acquired.increment();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public <T> T call(Supplier<T> work) {
+        acquire();
+        try {
+            return work.get();
+        } finally {
+            release();
+        }
+    }
+
+    public Map<String, Object> toMap() {
+        long calls = acquired.sum() + rejected.sum();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("limit", limit);
+        map.put("inUse", limit - permits.availablePermits());
+        map.put("waiting", waiting.get());
+        map.put("acquired", acquired.sum());
+        map.put("rejected", rejected.sum());
+        map.put("avgWaitMs", calls == 0 ? 0.0 : Math.round(waitNanos.sum() / 1e4 / calls) / 100.0);
+        map.put("maxWaitMs", Math.round(maxWaitNanos.get() / 1e4) / 100.0);
+        map.put("maxWaitLimitMs", maxWaitMs);
+        return map;
+    }
+}
@@ -0,0 +1,34 @@
+package com.fanhub.bulkhead;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Database bulkheads ({@code fanhub.bulkheads.enabled}, on by default): wraps the
+ * {@code dataSource} bean so request threads borrow connections through
+ * {@link BulkheadDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "fanhub.bulkheads.enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadConfig {
+
+    // Only the primary bean: in sharded mode it is the router, and the shard is picked before a connection is borrowed
+    @Bean
+    public static BeanPostProcessor bulkheadDataSource(ObjectProvider<Bulkheads> bulkheads) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (beanName.equals("dataSource") && bean instanceof DataSource dataSource
+                        && !(bean instanceof BulkheadDataSource)) {
+                    return new BulkheadDataSource(dataSource, bulkheads.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package com.fanhub.bulkhead;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Takes the current request's database permit before a connection is borrowed and gives
+ * it back when the connection is closed, so requests wait in the bulkhead (in order,
+ * with a bounded wait) instead of in the pool. A thread that already holds a connection
+ * does not take a second permit, which would deadlock once the permits run out. Each
+ * connection remembers the count of the thread that borrowed it, so closing it on
+ * another thread still settles the borrower's count.
+ */
+class BulkheadDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    // Connections open per borrowing thread
+    private static final ThreadLocal<AtomicInteger> HELD = ThreadLocal.withInitial(AtomicInteger::new);
+
+    private final Bulkheads bulkheads;
+
+    BulkheadDataSource(DataSource target, Bulkheads bulkheads) {
+        super(target);
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        AtomicInteger held = HELD.get();
+        Bulkhead bulkhead = permitFor(held);
+        try {
+            return wrap(super.getConnection(), held, bulkhead);
+        } catch (SQLException | RuntimeException e) {
+            release(held, bulkhead);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        AtomicInteger held = HELD.get();
+        Bulkhead bulkhead = permitFor(held);
+        try {
+            return wrap(super.getConnection(username, password), held, bulkhead);
+        } catch (SQLException | RuntimeException e) {
+            release(held, bulkhead);
+            throw e;
+        }
+    }
+
+    // Lets the container still shut the pool down through the wrapper
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /** Acquires a permit unless the thread already holds a connection; null when none was taken. */
+    private Bulkhead permitFor(AtomicInteger held) {
+        Bulkhead bulkhead = held.get() == 0 ? bulkheads.forCurrentRequest() : null;
+        if (bulkhead != null) {
+            bulkhead.acquire();
+        }
+        held.incrementAndGet();
+        return bulkhead;
+    }
+
+    private static void release(AtomicInteger held, Bulkhead bulkhead) {
+        held.decrementAndGet();
+        if (bulkhead != null) {
+            bulkhead.release();
+        }
+    }
+
+    private static Connection wrap(Connection connection, AtomicInteger held, Bulkhead bulkhead) {
+        return (Connection) Proxy.newProxyInstance(BulkheadDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection, held, bulkhead));
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final AtomicInteger held;
+        private final Bulkhead bulkhead;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        ConnectionHandler(Connection target, AtomicInteger held, Bulkhead bulkhead) {
+            this.target = target;
+            this.held = held;
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    if (!closed.compareAndSet(false, true)) {
+                        return null;
+                    }
+                    try {
+                        target.close();
+                    } finally {
+                        release(held, bulkhead);
+                    }
+                    return null;
+                default:
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
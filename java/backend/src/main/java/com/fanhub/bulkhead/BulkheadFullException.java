@@ -0,0 +1,23 @@
+package com.fanhub.bulkhead;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * No permit became free in time. Answered with 503 and {@code Retry-After}, also when
+ * it reaches the controller wrapped in a JPA or transaction exception.
+ */
+public class BulkheadFullException extends ResponseStatusException {
+
+    BulkheadFullException(String bulkhead, long maxWaitMs) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Too busy: no " + bulkhead + " permit within " + maxWaitMs + " ms");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return headers;
+    }
+}
@@ -0,0 +1,136 @@
+package com.fanhub.bulkhead;
+
+import com.fanhub.sharding.ShardContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limits per downstream resource for request threads.
+ *
+ * SQLite has a single writer, so a burst of slow writes used to hold pooled connections
+ * and request threads while reads queued behind them. Connections borrowed for a
+ * read-only transaction take a {@code sqlite-read} permit; any other connection takes
+ * the write permit of the database file it is for: {@code sqlite-write} for the home
+ * database and, in sharded mode, {@code sqlite-write-<shard>} per shard, since each
+ * shard file has a writer of its own. BCrypt runs under {@code password-hashing}. With
+ * virtual request threads ({@code spring.threads.virtual.enabled=true} on Java 21+)
+ * these limits, rather than Tomcat's thread pool, are what keeps the database from
+ * being flooded. Background work (analytics flushes, backups, warm-up pages) takes no
+ * permits.
+ *
+ * Also a {@link TransactionExecutionListener}: the transaction manager borrows the
+ * connection while it begins a transaction, before the read-only flag is published
+ * through {@link TransactionSynchronizationManager}, so the flag is noted here first.
+ * The repositories declare their query methods read-only, as Spring Data does for its
+ * own finders, so a login's user lookup is a read even though it is a POST.
+ */
+@Component
+public class Bulkheads implements TransactionExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(Bulkheads.class);
+
+    // Read-only flag of the transaction this thread is beginning, between beforeBegin and afterBegin
+    private static final ThreadLocal<Boolean> BEGINNING_READ_ONLY = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final boolean virtualThreads;
+    private final int writePermits;
+    private final long writeMaxWaitMs;
+    private final Bulkhead sqliteReads;
+    private final Bulkhead sqliteWrites;
+    private final Map<String, Bulkhead> shardWrites = new ConcurrentHashMap<>();
+    private final Bulkhead passwordHashing;
+
+    public Bulkheads(Environment environment,
+                     @Value("${fanhub.bulkheads.enabled:true}") boolean enabled,
+                     @Value("${fanhub.bulkheads.sqlite-read.permits:8}") int readPermits,
+                     @Value("${fanhub.bulkheads.sqlite-read.max-wait-ms:2000}") long readMaxWaitMs,
+                     @Value("${fanhub.bulkheads.sqlite-write.permits:1}") int writePermits,
+                     @Value("${fanhub.bulkheads.sqlite-write.max-wait-ms:5000}") long writeMaxWaitMs,
+                     @Value("${fanhub.bulkheads.password-hashing.permits:0}") int hashPermits,
+                     @Value("${fanhub.bulkheads.password-hashing.max-wait-ms:2000}") long hashMaxWaitMs) {
+        this.enabled = enabled;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        this.sqliteReads = new Bulkhead("sqlite-read", readPermits, readMaxWaitMs);
+        this.writePermits = writePermits;
+        this.writeMaxWaitMs = writeMaxWaitMs;
+        this.sqliteWrites = new Bulkhead("sqlite-write", writePermits, writeMaxWaitMs);
+        // BCrypt is pure CPU; 0 means one permit per core
+        this.passwordHashing = new Bulkhead("password-hashing",
+                hashPermits > 0 ? hashPermits : Runtime.getRuntime().availableProcessors(), hashMaxWaitMs);
+
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false) && !virtualThreads) {
+            log.warn("spring.threads.virtual.enabled is set but Java {} has no virtual threads; requests run on platform threads",
+                    Runtime.version().feature());
+        }
+        log.info("Request threads: {}; bulkheads {}", virtualThreads ? "virtual" : "platform",
+                enabled ? "sqlite-read=" + readPermits + ", sqlite-write=" + writePermits + " per database file"
+                        + ", password-hashing=" + passwordHashing.toMap().get("limit") : "off");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Runs a BCrypt encode or match under the hashing bulkhead. */
+    public <T> T hash(Supplier<T> work) {
+        return enabled ? passwordHashing.call(work) : work.get();
+    }
+
+    /**
+     * The database bulkhead for a connection borrowed now by the request on this thread,
+     * or null outside requests. Connections outside any transaction, such as plain
+     * {@code JdbcTemplate} updates, count as writes.
+     */
+    Bulkhead forCurrentRequest() {
+        if (RequestContextHolder.getRequestAttributes() == null) {
+            return null;
+        }
+        Boolean beginning = BEGINNING_READ_ONLY.get();
+        boolean readOnly = beginning != null ? beginning
+                : TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (readOnly) {
+            return sqliteReads;
+        }
+        String shard = ShardContext.current();
+        return shard == null ? sqliteWrites : shardWrites.computeIfAbsent(shard,
+                name -> new Bulkhead("sqlite-write-" + name, writePermits, writeMaxWaitMs));
+    }
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        BEGINNING_READ_ONLY.set(transaction.isReadOnly());
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        BEGINNING_READ_ONLY.remove();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("threads", virtualThreads ? "virtual" : "platform");
+        stats.put("enabled", enabled);
+        for (Bulkhead bulkhead : new Bulkhead[]{sqliteReads, sqliteWrites}) {
+            stats.put(bulkhead.getName(), bulkhead.toMap());
+        }
+        new TreeMap<>(shardWrites).values().forEach(bulkhead -> stats.put(bulkhead.getName(), bulkhead.toMap()));
+        stats.put(passwordHashing.getName(), passwordHashing.toMap());
+        return stats;
+    }
+}
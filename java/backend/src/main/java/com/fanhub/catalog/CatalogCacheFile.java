@@ -0,0 +1,470 @@
+package com.fanhub.catalog;
+
+import com.fanhub.model.Character;
+import com.fanhub.model.Episode;
+import com.fanhub.model.Quote;
+import com.fanhub.model.Season;
+import com.fanhub.model.Show;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Persisted cache of a {@link CatalogSnapshot}: a compact, column-oriented binary
+ * encoding that lets a restart skip the initial JPA load. It buys a faster cold start
+ * and nothing more: each JVM decodes its own copy, so processes on one host share
+ * no catalog memory through it.
+ *
+ * <pre>
+ * header     magic:int  formatVersion:int  snapshotVersion:long
+ * dictionary count:int  offsets:int[count+1]  utf8 bytes          (every distinct string once)
+ * columns    one fixed-width array per column, rowCount entries     (strings are dictionary indexes)
+ * directory  dictionaryOffset:long  tableCount:int
+ *            per table:  name:utf  rowCount:int  columnCount:int
+ *            per column: name:utf  kind:byte  offset:long
+ * footer     directoryOffset:long  magic:int
+ * </pre>
+ *
+ * The file is written to a temp file and atomically renamed, so a reader never sees a
+ * half-written file. {@link #load} maps it with {@link FileChannel#map} only to decode
+ * it: every row becomes a heap entity at boot, and the snapshot is served from the heap
+ * like one loaded through JPA, never from the mapping. Columns are matched by name on
+ * load; unknown columns are skipped. A file that lacks a column is rejected rather than
+ * loaded with nulls, so the snapshot is rebuilt from the database instead.
+ */
+final class CatalogCacheFile {
+
+    private static final int MAGIC = 0x46484353; // "FHCS"
+    // Bump whenever a table gains, loses or changes a column
+    private static final int FORMAT_VERSION = 3;
+
+    private static final long NULL_LONG = Long.MIN_VALUE;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final byte NULL_BOOL = -1;
+
+    private CatalogCacheFile() {
+    }
+
+    enum Kind {
+        LONG(8), INT(4), DOUBLE(8), BOOL(1), STRING(4), DATE(8), DATETIME(8);
+
+        final int width;
+
+        Kind(int width) {
+            this.width = width;
+        }
+    }
+
+    private record Column<T>(String name, Kind kind, Function<T, Object> getter, BiConsumer<T, Object> setter) {
+    }
+
+    private record Table<T>(String name, Supplier<T> factory, List<Column<T>> columns) {
+    }
+
+    // ---- schema ---------------------------------------------------------------------
+
+    private static final Table<Show> SHOWS = new Table<>("shows", Show::new, List.of(
+            col("id", Kind.LONG, Show::getId, (s, v) -> s.setId((Long) v)),
+            col("title", Kind.STRING, Show::getTitle, (s, v) -> s.setTitle((String) v)),
+            col("description", Kind.STRING, Show::getDescription, (s, v) -> s.setDescription((String) v)),
+            col("genre", Kind.STRING, Show::getGenre, (s, v) -> s.setGenre((String) v)),
+            col("start_year", Kind.INT, Show::getStartYear, (s, v) -> s.setStartYear((Integer) v)),
+            col("end_year", Kind.INT, Show::getEndYear, (s, v) -> s.setEndYear((Integer) v)),
+            col("network", Kind.STRING, Show::getNetwork, (s, v) -> s.setNetwork((String) v)),
+            col("poster_url", Kind.STRING, Show::getPosterUrl, (s, v) -> s.setPosterUrl((String) v)),
+            col("created_at", Kind.DATETIME, Show::getCreatedAt, (s, v) -> s.setCreatedAt((LocalDateTime) v)),
+            col("updated_at", Kind.DATETIME, Show::getUpdatedAt, (s, v) -> s.setUpdatedAt((LocalDateTime) v)),
+            col("version", Kind.LONG, Show::getVersion, (s, v) -> s.setVersion((Long) v))));
+
+    private static final Table<Season> SEASONS = new Table<>("seasons", Season::new, List.of(
+            col("id", Kind.LONG, Season::getId, (s, v) -> s.setId((Long) v)),
+            col("show_id", Kind.LONG, Season::getShowId, (s, v) -> s.setShowId((Long) v)),
+            col("season_number", Kind.INT, Season::getSeasonNumber, (s, v) -> s.setSeasonNumber((Integer) v)),
+            col("title", Kind.STRING, Season::getTitle, (s, v) -> s.setTitle((String) v)),
+            col("episode_count", Kind.INT, Season::getEpisodeCount, (s, v) -> s.setEpisodeCount((Integer) v)),
+            col("air_date", Kind.DATE, Season::getAirDate, (s, v) -> s.setAirDate((LocalDate) v)),
+            col("created_at", Kind.DATETIME, Season::getCreatedAt, (s, v) -> s.setCreatedAt((LocalDateTime) v))));
+
+    private static final Table<Episode> EPISODES = new Table<>("episodes", Episode::new, List.of(
+            col("id", Kind.LONG, Episode::getId, (e, v) -> e.setId((Long) v)),
+            col("show_id", Kind.LONG, Episode::getShowId, (e, v) -> e.setShowId((Long) v)),
+            col("season_id", Kind.LONG, Episode::getSeasonId, (e, v) -> e.setSeasonId((Long) v)),
+            col("episode_number", Kind.INT, Episode::getEpisodeNumber, (e, v) -> e.setEpisodeNumber((Integer) v)),
+            col("title", Kind.STRING, Episode::getTitle, (e, v) -> e.setTitle((String) v)),
+            col("description", Kind.STRING, Episode::getDescription, (e, v) -> e.setDescription((String) v)),
+            col("air_date", Kind.DATE, Episode::getAirDate, (e, v) -> e.setAirDate((LocalDate) v)),
+            col("runtime_minutes", Kind.INT, Episode::getRuntimeMinutes, (e, v) -> e.setRuntimeMinutes((Integer) v)),
+            col("director", Kind.STRING, Episode::getDirector, (e, v) -> e.setDirector((String) v)),
+            col("writer", Kind.STRING, Episode::getWriter, (e, v) -> e.setWriter((String) v)),
+            col("thumbnail_url", Kind.STRING, Episode::getThumbnailUrl, (e, v) -> e.setThumbnailUrl((String) v)),
+            col("rating", Kind.DOUBLE, Episode::getRating, (e, v) -> e.setRating((Double) v)),
+            col("created_at", Kind.DATETIME, Episode::getCreatedAt, (e, v) -> e.setCreatedAt((LocalDateTime) v)),
+            col("updated_at", Kind.DATETIME, Episode::getUpdatedAt, (e, v) -> e.setUpdatedAt((LocalDateTime) v)),
+            col("version", Kind.LONG, Episode::getVersion, (e, v) -> e.setVersion((Long) v)),
+            col("episode_ordinal", Kind.LONG, Episode::getEpisodeOrdinal, (e, v) -> e.setEpisodeOrdinal((Long) v))));
+
+    private static final Table<Character> CHARACTERS = new Table<>("characters", Character::new, List.of(
+            col("id", Kind.LONG, Character::getId, (c, v) -> c.setId((Long) v)),
+            col("show_id", Kind.LONG, Character::getShowId, (c, v) -> c.setShowId((Long) v)),
+            col("name", Kind.STRING, Character::getName, (c, v) -> c.setName((String) v)),
+            col("actor_name", Kind.STRING, Character::getActorName, (c, v) -> c.setActorName((String) v)),
+            col("bio", Kind.STRING, Character::getBio, (c, v) -> c.setBio((String) v)),
+            col("image_url", Kind.STRING, Character::getImageUrl, (c, v) -> c.setImageUrl((String) v)),
+            col("is_main_character", Kind.BOOL, Character::getIsMainCharacter, (c, v) -> c.setIsMainCharacter((Boolean) v)),
+            col("first_appearance", Kind.LONG, Character::getFirstAppearance, (c, v) -> c.setFirstAppearance((Long) v)),
+            col("status", Kind.STRING, Character::getStatus, (c, v) -> c.setStatus((String) v)),
+            col("created_at", Kind.DATETIME, Character::getCreatedAt, (c, v) -> c.setCreatedAt((LocalDateTime) v)),
+            col("updated_at", Kind.DATETIME, Character::getUpdatedAt, (c, v) -> c.setUpdatedAt((LocalDateTime) v)),
+            col("version", Kind.LONG, Character::getVersion, (c, v) -> c.setVersion((Long) v)),
+            col("first_appearance_ordinal", Kind.LONG, Character::getFirstAppearanceOrdinal,
+                    (c, v) -> c.setFirstAppearanceOrdinal((Long) v))));
+
+    private static final Table<Quote> QUOTES = new Table<>("quotes", Quote::new, List.of(
+            col("id", Kind.LONG, Quote::getId, (q, v) -> q.setId((Long) v)),
+            col("show_id", Kind.LONG, Quote::getShowId, (q, v) -> q.setShowId((Long) v)),
+            col("character_id", Kind.LONG, Quote::getCharacterId, (q, v) -> q.setCharacterId((Long) v)),
+            col("episode_id", Kind.LONG, Quote::getEpisodeId, (q, v) -> q.setEpisodeId((Long) v)),
+            col("quote_text", Kind.STRING, Quote::getQuoteText, (q, v) -> q.setQuoteText((String) v)),
+            col("context", Kind.STRING, Quote::getContext, (q, v) -> q.setContext((String) v)),
+            col("is_famous", Kind.BOOL, Quote::getIsFamous, (q, v) -> q.setIsFamous((Boolean) v)),
+            col("likes_count", Kind.INT, Quote::getLikesCount, (q, v) -> q.setLikesCount((Integer) v)),
+            col("created_at", Kind.DATETIME, Quote::getCreatedAt, (q, v) -> q.setCreatedAt((LocalDateTime) v)),
+            col("episode_ordinal", Kind.LONG, Quote::getEpisodeOrdinal, (q, v) -> q.setEpisodeOrdinal((Long) v))));
+
+    @SuppressWarnings("unchecked")
+    private static <T> Column<T> col(String name, Kind kind, Function<T, ?> getter, BiConsumer<T, Object> setter) {
+        return new Column<>(name, kind, (Function<T, Object>) getter, setter);
+    }
+
+    // ---- write ----------------------------------------------------------------------
+
+    static void write(CatalogSnapshot snapshot, Path target) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        collectStrings(SHOWS, snapshot.showTable().rows(), dictionary);
+        collectStrings(SEASONS, snapshot.seasonTable().rows(), dictionary);
+        collectStrings(EPISODES, snapshot.episodeTable().rows(), dictionary);
+        collectStrings(CHARACTERS, snapshot.characterTable().rows(), dictionary);
+        collectStrings(QUOTES, snapshot.quoteTable().rows(), dictionary);
+
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            try (CountingOutput out = new CountingOutput(Files.newOutputStream(tmp))) {
+                out.data.writeInt(MAGIC);
+                out.data.writeInt(FORMAT_VERSION);
+                out.data.writeLong(snapshot.getVersion());
+
+                long dictionaryOffset = out.position();
+                writeDictionary(out.data, dictionary);
+
+                List<TableLayout> layouts = new ArrayList<>();
+                layouts.add(writeTable(out, SHOWS, snapshot.showTable().rows(), dictionary));
+                layouts.add(writeTable(out, SEASONS, snapshot.seasonTable().rows(), dictionary));
+                layouts.add(writeTable(out, EPISODES, snapshot.episodeTable().rows(), dictionary));
+                layouts.add(writeTable(out, CHARACTERS, snapshot.characterTable().rows(), dictionary));
+                layouts.add(writeTable(out, QUOTES, snapshot.quoteTable().rows(), dictionary));
+
+                long directoryOffset = out.position();
+                out.data.writeLong(dictionaryOffset);
+                out.data.writeInt(layouts.size());
+                for (TableLayout layout : layouts) {
+                    out.data.writeUTF(layout.name());
+                    out.data.writeInt(layout.rowCount());
+                    out.data.writeInt(layout.columns().size());
+                    for (ColumnLayout column : layout.columns()) {
+                        out.data.writeUTF(column.name());
+                        out.data.writeByte(column.kind().ordinal());
+                        out.data.writeLong(column.offset());
+                    }
+                }
+                out.data.writeLong(directoryOffset);
+                out.data.writeInt(MAGIC);
+
+                if (out.position() > Integer.MAX_VALUE) {
+                    throw new IOException("Catalog file exceeds the 2GB single-mapping limit");
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static <T> void collectStrings(Table<T> table, List<T> rows, Map<String, Integer> dictionary) {
+        for (Column<T> column : table.columns()) {
+            if (column.kind() != Kind.STRING) {
+                continue;
+            }
+            for (T row : rows) {
+                Object value = column.getter().apply(row);
+                if (value != null) {
+                    dictionary.putIfAbsent((String) value, dictionary.size());
+                }
+            }
+        }
+    }
+
+    private static void writeDictionary(DataOutputStream out, Map<String, Integer> dictionary) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(dictionary.size());
+        for (String s : dictionary.keySet()) {
+            encoded.add(s.getBytes(StandardCharsets.UTF_8));
+        }
+        out.writeInt(encoded.size());
+        int offset = 0;
+        out.writeInt(offset);
+        for (byte[] bytes : encoded) {
+            offset += bytes.length;
+            out.writeInt(offset);
+        }
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+    }
+
+    private static <T> TableLayout writeTable(CountingOutput out, Table<T> table, List<T> rows,
+                                              Map<String, Integer> dictionary) throws IOException {
+        List<ColumnLayout> columns = new ArrayList<>();
+        for (Column<T> column : table.columns()) {
+            columns.add(new ColumnLayout(column.name(), column.kind(), out.position()));
+            for (T row : rows) {
+                writeValue(out.data, column.kind(), column.getter().apply(row), dictionary);
+            }
+        }
+        return new TableLayout(table.name(), rows.size(), columns);
+    }
+
+    private static void writeValue(DataOutputStream out, Kind kind, Object value,
+                                   Map<String, Integer> dictionary) throws IOException {
+        switch (kind) {
+            case LONG -> out.writeLong(value == null ? NULL_LONG : (Long) value);
+            case INT -> out.writeInt(value == null ? NULL_INT : (Integer) value);
+            case DOUBLE -> out.writeDouble(value == null ? Double.NaN : (Double) value);
+            case BOOL -> out.writeByte(value == null ? NULL_BOOL : ((Boolean) value ? 1 : 0));
+            case STRING -> out.writeInt(value == null ? -1 : dictionary.get((String) value));
+            case DATE -> out.writeLong(value == null ? NULL_LONG : ((LocalDate) value).toEpochDay());
+            case DATETIME -> out.writeLong(value == null ? NULL_LONG
+                    : ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    private record TableLayout(String name, int rowCount, List<ColumnLayout> columns) {
+    }
+
+    private record ColumnLayout(String name, Kind kind, long offset) {
+    }
+
+    private static final class CountingOutput implements AutoCloseable {
+
+        private long count;
+        final DataOutputStream data;
+
+        CountingOutput(OutputStream target) {
+            this.data = new DataOutputStream(new BufferedOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                    count++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    target.write(b, off, len);
+                    count += len;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    target.close();
+                }
+            }, 1 << 16));
+        }
+
+        long position() throws IOException {
+            data.flush();
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            data.close();
+        }
+    }
+
+    // ---- load -----------------------------------------------------------------------
+
+    /** Decodes the whole file into a new snapshot of heap entities. */
+    static CatalogSnapshot load(Path source) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int size = buf.capacity();
+        if (size < 28 || buf.getInt(0) != MAGIC || buf.getInt(size - 4) != MAGIC) {
+            throw new IOException("Not a catalog snapshot file: " + source);
+        }
+        int formatVersion = buf.getInt(4);
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported catalog snapshot format " + formatVersion);
+        }
+        long snapshotVersion = buf.getLong(8);
+
+        buf.position((int) buf.getLong(size - 12));
+        Dictionary dictionary = new Dictionary(buf, (int) buf.getLong());
+        int tableCount = buf.getInt();
+        Map<String, List<?>> tables = new HashMap<>();
+        for (int t = 0; t < tableCount; t++) {
+            String name = readUtf(buf);
+            int rowCount = buf.getInt();
+            int columnCount = buf.getInt();
+            Map<String, ColumnLayout> columns = new HashMap<>();
+            for (int c = 0; c < columnCount; c++) {
+                String columnName = readUtf(buf);
+                Kind kind = Kind.values()[buf.get()];
+                columns.put(columnName, new ColumnLayout(columnName, kind, buf.getLong()));
+            }
+            Table<?> table = switch (name) {
+                case "shows" -> SHOWS;
+                case "seasons" -> SEASONS;
+                case "episodes" -> EPISODES;
+                case "characters" -> CHARACTERS;
+                case "quotes" -> QUOTES;
+                default -> null;
+            };
+            if (table != null) {
+                tables.put(name, readTable(buf, table, rowCount, columns, dictionary));
+            }
+        }
+
+        for (Table<?> table : List.of(SHOWS, SEASONS, EPISODES, CHARACTERS, QUOTES)) {
+            if (!tables.containsKey(table.name())) {
+                throw new IOException("Catalog snapshot file has no table " + table.name());
+            }
+        }
+        return new CatalogSnapshot(snapshotVersion,
+                rows(tables, "shows"), rows(tables, "seasons"), rows(tables, "episodes"),
+                rows(tables, "characters"), rows(tables, "quotes"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> rows(Map<String, List<?>> tables, String name) {
+        return (List<T>) tables.get(name);
+    }
+
+    private static <T> List<T> readTable(MappedByteBuffer buf, Table<T> table, int rowCount,
+                                         Map<String, ColumnLayout> layout, Dictionary dictionary) throws IOException {
+        List<T> rows = new ArrayList<>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+            rows.add(table.factory().get());
+        }
+        for (Column<T> column : table.columns()) {
+            ColumnLayout stored = layout.get(column.name());
+            if (stored == null || stored.kind() != column.kind()) {
+                throw new IOException("Catalog snapshot file has no " + column.kind() + " column "
+                        + table.name() + "." + column.name());
+            }
+            int base = (int) stored.offset();
+            int width = column.kind().width;
+            for (int r = 0; r < rowCount; r++) {
+                Object value = readValue(buf, column.kind(), base + r * width, dictionary);
+                if (value != null) {
+                    column.setter().accept(rows.get(r), value);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static Object readValue(MappedByteBuffer buf, Kind kind, int at, Dictionary dictionary) {
+        return switch (kind) {
+            case LONG -> {
+                long v = buf.getLong(at);
+                yield v == NULL_LONG ? null : v;
+            }
+            case INT -> {
+                int v = buf.getInt(at);
+                yield v == NULL_INT ? null : v;
+            }
+            case DOUBLE -> {
+                double v = buf.getDouble(at);
+                yield Double.isNaN(v) ? null : v;
+            }
+            case BOOL -> {
+                byte v = buf.get(at);
+                yield v == NULL_BOOL ? null : v == 1;
+            }
+            case STRING -> {
+                int index = buf.getInt(at);
+                yield index < 0 ? null : dictionary.get(index);
+            }
+            case DATE -> {
+                long v = buf.getLong(at);
+                yield v == NULL_LONG ? null : LocalDate.ofEpochDay(v);
+            }
+            case DATETIME -> {
+                long v = buf.getLong(at);
+                yield v == NULL_LONG ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(v), ZoneOffset.UTC);
+            }
+        };
+    }
+
+    private static String readUtf(MappedByteBuffer buf) {
+        int length = buf.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        // Column and table names are ASCII, where modified UTF-8 and UTF-8 agree.
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** String dictionary decoded lazily; repeated values (genres, networks, statuses) share one String. */
+    private static final class Dictionary {
+
+        private final MappedByteBuffer buf;
+        private final int offsetsAt;
+        private final int bytesAt;
+        private final String[] decoded;
+
+        Dictionary(MappedByteBuffer buf, int at) {
+            this.buf = buf;
+            int count = buf.getInt(at);
+            this.offsetsAt = at + 4;
+            this.bytesAt = offsetsAt + (count + 1) * 4;
+            this.decoded = new String[count];
+        }
+
+        String get(int index) {
+            String s = decoded[index];
+            if (s == null) {
+                int start = buf.getInt(offsetsAt + index * 4);
+                int end = buf.getInt(offsetsAt + (index + 1) * 4);
+                byte[] bytes = new byte[end - start];
+                buf.get(bytesAt + start, bytes);
+                s = new String(bytes, StandardCharsets.UTF_8);
+                decoded[index] = s;
+            }
+            return s;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.fanhub.catalog;
+
+import com.fanhub.event.ChangeEvent;
+import com.fanhub.model.Character;
+import com.fanhub.model.Episode;
+import com.fanhub.model.Quote;
+import com.fanhub.model.Season;
+import com.fanhub.model.Show;
+import com.fanhub.repository.CharacterRepository;
+import com.fanhub.repository.EpisodeRepository;
+import com.fanhub.repository.QuoteRepository;
+import com.fanhub.repository.SeasonRepository;
+import com.fanhub.repository.ShowRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Optional "snapshot read mode" for shows, seasons, episodes, characters and quotes.
+ *
+ * When enabled, the whole catalog is loaded into an immutable {@link CatalogSnapshot}
+ * held in an {@link AtomicReference}. Reads just dereference it: no locks, no JDBC,
+ * no Hibernate session. A single writer thread applies committed changes to a copy
+ * and swaps it in, so readers always see a complete, consistent snapshot.
+ *
+ * If {@code fanhub.catalog.file} is set, the snapshot is also persisted as a
+ * {@link CatalogCacheFile} and decoded at boot, so reads are served before JPA has
+ * loaded anything.
+ */
+@Service
+public class CatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
+
+    private final ShowRepository showRepository;
+    private final SeasonRepository seasonRepository;
+    private final EpisodeRepository episodeRepository;
+    private final CharacterRepository characterRepository;
+    private final QuoteRepository quoteRepository;
+    private final boolean enabled;
+    private final Path file;
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private final Queue<ChangeEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicBoolean fileDirty = new AtomicBoolean();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "catalog-snapshot-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CatalogService(ShowRepository showRepository,
+                          SeasonRepository seasonRepository,
+                          EpisodeRepository episodeRepository,
+                          CharacterRepository characterRepository,
+                          QuoteRepository quoteRepository,
+                          @Value("${fanhub.catalog.snapshot-reads:false}") boolean enabled,
+                          @Value("${fanhub.catalog.file:}") String file) {
+        this.showRepository = showRepository;
+        this.seasonRepository = seasonRepository;
+        this.episodeRepository = episodeRepository;
+        this.characterRepository = characterRepository;
+        this.quoteRepository = quoteRepository;
+        this.enabled = enabled;
+        this.file = file.isBlank() ? null : Path.of(file);
+    }
+
+    /**
+     * The current snapshot, or null when snapshot reads are disabled or nothing has been
+     * loaded yet. Callers fall back to the repositories on null.
+     */
+    public CatalogSnapshot snapshot() {
+        return current.get();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Runs during context startup, before the web server accepts requests.
+    @PostConstruct
+    public void loadFromFile() {
+        if (!enabled || file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            CatalogSnapshot snapshot = CatalogCacheFile.load(file);
+            current.set(snapshot);
+            log.info("Catalog snapshot v{} loaded from {} in {} ms: {}", snapshot.getVersion(), file,
+                    (System.nanoTime() - start) / 1_000_000, snapshot.counts());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable catalog snapshot file {}: {}", file, e.getMessage());
+        }
+    }
+
+    // Always reconcile with the database once the app is up; the file may be stale.
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        requestRebuild();
+    }
+
+    /** Reloads every table and swaps in a fresh snapshot. */
+    public void requestRebuild() {
+        if (enabled) {
+            writer.execute(this::rebuild);
+        }
+    }
+
+    // Runs after commit when there is a transaction, immediately otherwise (repository
+    // saves outside a service transaction are already committed when the event fires).
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        pending.add(event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            writer.execute(this::drain);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fanhub.catalog.file-write-interval-ms:60000}")
+    public void writeFileIfDirty() {
+        if (file != null && fileDirty.get()) {
+            writer.execute(this::writeFile);
+        }
+    }
+
+    private void rebuild() {
+        try {
+            CatalogSnapshot previous = current.get();
+            long version = previous == null ? 1 : previous.getVersion() + 1;
+            CatalogSnapshot next = new CatalogSnapshot(version,
+                    showRepository.findAll(),
+                    seasonRepository.findAll(),
+                    episodeRepository.findAll(),
+                    characterRepository.findAll(),
+                    quoteRepository.findAll());
+            current.set(next);
+            fileDirty.set(true);
+            log.info("Catalog snapshot v{} loaded: {}", version, next.counts());
+            writeFile();
+        } catch (RuntimeException e) {
+            log.error("Catalog snapshot rebuild failed, keeping previous snapshot", e);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        Map<String, ChangeEvent> latest = new LinkedHashMap<>();
+        ChangeEvent event;
+        while ((event = pending.poll()) != null) {
+            latest.put(event.coalesceKey(), event);
+        }
+        CatalogSnapshot snapshot = current.get();
+        if (latest.isEmpty() || snapshot == null) {
+            // Nothing to do, or the initial load is still pending and will read these rows anyway.
+            return;
+        }
+        try {
+            current.set(snapshot.patch(loadRows(snapshot, latest.values())));
+            fileDirty.set(true);
+        } catch (RuntimeException e) {
+            log.warn("Could not patch catalog snapshot, rebuilding", e);
+            rebuild();
+        }
+    }
+
+    // Re-reads changed rows on this thread, one IN query per table, rather than sharing the
+    // caller's instances, which may still be attached to the request's persistence context.
+    private List<CatalogSnapshot.RowChange> loadRows(CatalogSnapshot snapshot, Iterable<ChangeEvent> events) {
+        Map<String, List<Long>> idsByEntity = new HashMap<>();
+        List<CatalogSnapshot.RowChange> changes = new ArrayList<>();
+        for (ChangeEvent e : events) {
+            if (e.action() == ChangeEvent.Action.DELETED) {
+                changes.add(new CatalogSnapshot.RowChange(e.entity(), e.id(), null));
+            } else {
+                idsByEntity.computeIfAbsent(e.entity(), k -> new ArrayList<>()).add(e.id());
+            }
+        }
+        idsByEntity.forEach((entity, ids) -> {
+            JpaRepository<?, Long> repository = repositoryFor(entity);
+            if (repository == null) {
+                return;
+            }
+            Map<Long, Object> found = new HashMap<>();
+            for (Object row : repository.findAllById(ids)) {
+                found.put(idOf(row), row);
+            }
+            for (Long id : ids) {
+                changes.add(new CatalogSnapshot.RowChange(entity, id, found.get(id)));
+            }
+        });
+        changes.addAll(loadDerivedRows(snapshot, changes));
+        return changes;
+    }
+
+    // Triggers copy an episode's ordinal into its quotes and into the characters who appear
+    // in it, without any event for those rows; re-read them when an episode moved or went away.
+    private List<CatalogSnapshot.RowChange> loadDerivedRows(CatalogSnapshot snapshot,
+                                                            List<CatalogSnapshot.RowChange> changes) {
+        List<Long> moved = new ArrayList<>();
+        for (CatalogSnapshot.RowChange change : changes) {
+            if (!change.entity().equals("episode")) {
+                continue;
+            }
+            Episode before = snapshot.episode(change.id());
+            Episode after = (Episode) change.row();
+            if (before != null && (after == null || !Objects.equals(before.getEpisodeOrdinal(), after.getEpisodeOrdinal()))) {
+                moved.add(change.id());
+            }
+        }
+        if (moved.isEmpty()) {
+            return List.of();
+        }
+        List<CatalogSnapshot.RowChange> derived = new ArrayList<>();
+        for (Quote quote : quoteRepository.findByEpisodeIdIn(moved)) {
+            derived.add(new CatalogSnapshot.RowChange("quote", quote.getId(), quote));
+        }
+        for (Character character : characterRepository.findByAppearanceIn(moved)) {
+            derived.add(new CatalogSnapshot.RowChange("character", character.getId(), character));
+        }
+        return derived;
+    }
+
+    private JpaRepository<?, Long> repositoryFor(String entity) {
+        return switch (entity) {
+            case "show" -> showRepository;
+            case "season" -> seasonRepository;
+            case "episode" -> episodeRepository;
+            case "character" -> characterRepository;
+            case "quote" -> quoteRepository;
+            default -> null;
+        };
+    }
+
+    private static Long idOf(Object row) {
+        if (row instanceof Show s) return s.getId();
+        if (row instanceof Season s) return s.getId();
+        if (row instanceof Episode e) return e.getId();
+        if (row instanceof Character c) return c.getId();
+        if (row instanceof Quote q) return q.getId();
+        throw new IllegalArgumentException("Not a catalog row: " + row);
+    }
+
+    private void writeFile() {
+        CatalogSnapshot snapshot = current.get();
+        if (file == null || snapshot == null || !fileDirty.compareAndSet(true, false)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            CatalogCacheFile.write(snapshot, file);
+            log.info("Catalog snapshot v{} written to {} in {} ms", snapshot.getVersion(), file,
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            fileDirty.set(true);
+            log.warn("Could not write catalog snapshot file {}", file, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+    }
+}
@@ -0,0 +1,134 @@
+package com.fanhub.catalog;
+
+import com.fanhub.model.Character;
+import com.fanhub.model.Episode;
+import com.fanhub.model.Quote;
+import com.fanhub.model.Season;
+import com.fanhub.model.Show;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, fully indexed copy of the read-mostly catalog tables.
+ * Never modified after construction; writers build a new instance and swap it in.
+ * <p>
+ * Lists and lookups by id hand out the rows held here, shared with every other reader,
+ * and the lists are read-only views. Callers must treat the rows as read only too:
+ * writes load their own entity through the repository and the change comes back in
+ * through {@link #patch}.
+ */
+public final class CatalogSnapshot {
+
+    // Positions of the foreign keys each table is grouped by
+    static final int BY_SHOW = 0;
+    static final int BY_SEASON = 1;
+    static final int BY_CHARACTER = 1;
+
+    private final long version;
+    private final Instant builtAt;
+
+    private final CatalogTable<Show> shows;
+    private final CatalogTable<Season> seasons;
+    private final CatalogTable<Episode> episodes;
+    private final CatalogTable<Character> characters;
+    private final CatalogTable<Quote> quotes;
+
+    CatalogSnapshot(long version,
+                    Collection<Show> shows,
+                    Collection<Season> seasons,
+                    Collection<Episode> episodes,
+                    Collection<Character> characters,
+                    Collection<Quote> quotes) {
+        this(version,
+                CatalogTable.of(shows, Show::getId, List.of()),
+                CatalogTable.of(seasons, Season::getId, List.of(Season::getShowId)),
+                CatalogTable.of(episodes, Episode::getId, List.of(Episode::getShowId, Episode::getSeasonId)),
+                CatalogTable.of(characters, Character::getId, List.of(Character::getShowId)),
+                CatalogTable.of(quotes, Quote::getId, List.of(Quote::getShowId, Quote::getCharacterId)));
+    }
+
+    private CatalogSnapshot(long version,
+                            CatalogTable<Show> shows,
+                            CatalogTable<Season> seasons,
+                            CatalogTable<Episode> episodes,
+                            CatalogTable<Character> characters,
+                            CatalogTable<Quote> quotes) {
+        this.version = version;
+        this.builtAt = Instant.now();
+        this.shows = shows;
+        this.seasons = seasons;
+        this.episodes = episodes;
+        this.characters = characters;
+        this.quotes = quotes;
+    }
+
+    public long getVersion() { return version; }
+    public Instant getBuiltAt() { return builtAt; }
+
+    public List<Show> shows() { return shows.rows(); }
+    public List<Season> seasons() { return seasons.rows(); }
+    public List<Episode> episodes() { return episodes.rows(); }
+    public List<Character> characters() { return characters.rows(); }
+    public List<Quote> quotes() { return quotes.rows(); }
+
+    public Show show(Long id) { return shows.get(id); }
+    public Season season(Long id) { return seasons.get(id); }
+    public Episode episode(Long id) { return episodes.get(id); }
+    public Character character(Long id) { return characters.get(id); }
+    public Quote quote(Long id) { return quotes.get(id); }
+
+    public List<Season> seasonsByShow(Long showId) { return seasons.groupRows(BY_SHOW, showId); }
+    public List<Episode> episodesByShow(Long showId) { return episodes.groupRows(BY_SHOW, showId); }
+    public List<Episode> episodesBySeason(Long seasonId) { return episodes.groupRows(BY_SEASON, seasonId); }
+    public List<Character> charactersByShow(Long showId) { return characters.groupRows(BY_SHOW, showId); }
+    public List<Quote> quotesByShow(Long showId) { return quotes.groupRows(BY_SHOW, showId); }
+    public List<Quote> quotesByCharacter(Long characterId) { return quotes.groupRows(BY_CHARACTER, characterId); }
+
+    // The tables themselves, whose shared rows the cache file writes without copying
+    CatalogTable<Show> showTable() { return shows; }
+    CatalogTable<Season> seasonTable() { return seasons; }
+    CatalogTable<Episode> episodeTable() { return episodes; }
+    CatalogTable<Character> characterTable() { return characters; }
+    CatalogTable<Quote> quoteTable() { return quotes; }
+
+    public Map<String, Integer> counts() {
+        return Map.of(
+                "shows", shows.size(),
+                "seasons", seasons.size(),
+                "episodes", episodes.size(),
+                "characters", characters.size(),
+                "quotes", quotes.size());
+    }
+
+    /** One row to replace in a patch; a null {@code row} removes it. */
+    record RowChange(String entity, Long id, Object row) {
+    }
+
+    /**
+     * Returns a new snapshot with the given rows replaced or removed. Only the tables
+     * that have changes are patched; the new snapshot shares all the others, so a burst
+     * of quote likes never touches shows, seasons, episodes or characters.
+     */
+    CatalogSnapshot patch(List<RowChange> changes) {
+        Map<String, Map<Long, Object>> byTable = new HashMap<>();
+        for (RowChange change : changes) {
+            // HashMap, as a null row (a removal) must be kept
+            byTable.computeIfAbsent(change.entity(), k -> new HashMap<>()).put(change.id(), change.row());
+        }
+        return new CatalogSnapshot(version + 1,
+                patch(shows, byTable.get("show")),
+                patch(seasons, byTable.get("season")),
+                patch(episodes, byTable.get("episode")),
+                patch(characters, byTable.get("character")),
+                patch(quotes, byTable.get("quote")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> CatalogTable<T> patch(CatalogTable<T> table, Map<Long, Object> changes) {
+        return changes == null ? table : table.patch((Map<Long, T>) (Map<Long, ?>) changes);
+    }
+}
@@ -0,0 +1,116 @@
+package com.fanhub.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * One table of a {@link CatalogSnapshot}: its rows by id, and grouped by each foreign
+ * key. Immutable like the snapshot; {@link #patch} returns a new table.
+ * <p>
+ * Rows and groups are {@link IdTrie}s, so a patch copies only the trie paths to the
+ * changed rows: a burst of changes costs the same whether the table holds a thousand
+ * rows or millions, and the new table shares everything else with this one.
+ * <p>
+ * Rows are shared by every reader and handed out as they are, in read-only lists:
+ * a read costs no allocation per row. Callers must not modify them.
+ */
+final class CatalogTable<T> {
+
+    private final List<Function<T, Long>> keys;
+
+    private final IdTrie<T> rows;
+    private final List<IdTrie<IdTrie<T>>> groups;
+
+    private CatalogTable(List<Function<T, Long>> keys, IdTrie<T> rows, List<IdTrie<IdTrie<T>>> groups) {
+        this.keys = keys;
+        this.rows = rows;
+        this.groups = groups;
+    }
+
+    /** @param keys foreign keys to group by; {@link #group} takes the position in this list */
+    static <T> CatalogTable<T> of(Collection<T> rows, Function<T, Long> id, List<Function<T, Long>> keys) {
+        IdTrie.Builder<T> byId = new IdTrie.Builder<>();
+        for (T row : rows) {
+            byId.put(id.apply(row), row);
+        }
+        IdTrie<T> built = byId.build();
+        List<IdTrie<IdTrie<T>>> groups = new ArrayList<>(keys.size());
+        for (Function<T, Long> key : keys) {
+            Map<Long, IdTrie.Builder<T>> grouped = new HashMap<>();
+            for (T row : built.values()) {
+                Long k = key.apply(row);
+                if (k != null) {
+                    grouped.computeIfAbsent(k, x -> new IdTrie.Builder<>()).put(id.apply(row), row);
+                }
+            }
+            IdTrie.Builder<IdTrie<T>> byKey = new IdTrie.Builder<>();
+            grouped.forEach((k, group) -> byKey.put(k, group.build()));
+            groups.add(byKey.build());
+        }
+        return new CatalogTable<>(keys, built, List.copyOf(groups));
+    }
+
+    /** The shared row; null if there is none. */
+    T get(Long rowId) {
+        return rowId == null ? null : rows.get(rowId);
+    }
+
+    /** The shared rows in id order. */
+    List<T> rows() {
+        return rows.values();
+    }
+
+    /** The shared rows with the given foreign key, in id order. */
+    List<T> groupRows(int key, Long value) {
+        IdTrie<T> group = value == null ? null : groups.get(key).get(value);
+        return group == null ? List.of() : group.values();
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    /**
+     * Returns a table with the given rows replaced, added or (for a null value) removed.
+     * Each change touches its row's path and, per foreign key, the paths of the groups
+     * it left and joined.
+     */
+    CatalogTable<T> patch(Map<Long, T> changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+        IdTrie<T> nextRows = rows;
+        List<IdTrie<IdTrie<T>>> nextGroups = new ArrayList<>(groups);
+        for (Map.Entry<Long, T> change : changes.entrySet()) {
+            long rowId = change.getKey();
+            T before = nextRows.get(rowId);
+            T after = change.getValue();
+            nextRows = nextRows.with(rowId, after);
+            for (int i = 0; i < keys.size(); i++) {
+                Function<T, Long> key = keys.get(i);
+                Long from = before == null ? null : key.apply(before);
+                Long to = after == null ? null : key.apply(after);
+                IdTrie<IdTrie<T>> grouped = nextGroups.get(i);
+                if (from != null && !from.equals(to)) {
+                    grouped = regroup(grouped, from, rowId, null);
+                }
+                if (to != null) {
+                    grouped = regroup(grouped, to, rowId, after);
+                }
+                nextGroups.set(i, grouped);
+            }
+        }
+        return new CatalogTable<>(keys, nextRows, List.copyOf(nextGroups));
+    }
+
+    // Sets one row within one group, dropping the group once it is empty
+    private static <T> IdTrie<IdTrie<T>> regroup(IdTrie<IdTrie<T>> grouped, long value, long rowId, T row) {
+        IdTrie<T> group = grouped.get(value);
+        IdTrie<T> next = (group == null ? IdTrie.<T>empty() : group).with(rowId, row);
+        return grouped.with(value, next.size() == 0 ? null : next);
+    }
+}
@@ -0,0 +1,269 @@
+package com.fanhub.catalog;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Persistent map from non-negative ids to values, iterated in id order.
+ * <p>
+ * A 32-way trie over the bits of the id. {@link #with} copies only the nodes on the path
+ * to the changed id, so an update costs a handful of 32-slot arrays whatever the size of
+ * the map, and the result shares every other node with the original. Each node counts
+ * the values below it, so {@link #values} also has indexed access.
+ */
+final class IdTrie<V> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final IdTrie<?> EMPTY = new IdTrie<>(new Node(new Object[WIDTH], 0), 0);
+
+    private static final class Node {
+        final Object[] slots;  // child nodes, or the values themselves at the bottom level
+        final int size;        // values below this node
+
+        Node(Object[] slots, int size) {
+            this.slots = slots;
+            this.size = size;
+        }
+    }
+
+    private final Node root;
+    private final int shift;  // bits below the root's slot index; 0 when the root holds values
+    private final List<V> values = new Values();
+
+    private IdTrie(Node root, int shift) {
+        this.root = root;
+        this.shift = shift;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> IdTrie<V> empty() {
+        return (IdTrie<V>) EMPTY;
+    }
+
+    int size() {
+        return root.size;
+    }
+
+    /** The value for {@code id}, or null. */
+    @SuppressWarnings("unchecked")
+    V get(long id) {
+        if (id < 0 || !fits(id, shift)) {
+            return null;
+        }
+        Node node = root;
+        for (int s = shift; s > 0; s -= BITS) {
+            node = (Node) node.slots[index(id, s)];
+            if (node == null) {
+                return null;
+            }
+        }
+        return (V) node.slots[index(id, 0)];
+    }
+
+    /** A map with {@code id} set to {@code value}, or removed if {@code value} is null. */
+    IdTrie<V> with(long id, V value) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Negative id: " + id);
+        }
+        Node top = root;
+        int s = shift;
+        if (!fits(id, s)) {
+            if (value == null) {
+                return this;
+            }
+            while (!fits(id, s)) {
+                Object[] slots = new Object[WIDTH];
+                slots[0] = top.size == 0 ? null : top;
+                top = new Node(slots, top.size);
+                s += BITS;
+            }
+        }
+        Node next = set(top, s, id, value);
+        if (next == root) {
+            return this;
+        }
+        return next == null ? empty() : new IdTrie<>(next, s);
+    }
+
+    /** The values in id order; a read-only view that needs no copying. */
+    List<V> values() {
+        return values;
+    }
+
+    // The node with the value set, the same node if nothing changed, or null once it is empty
+    private static Node set(Node node, int s, long id, Object value) {
+        int i = index(id, s);
+        Object old = node == null ? null : node.slots[i];
+        Object next;
+        int delta;
+        if (s == 0) {
+            if (old == value) {
+                return node;
+            }
+            next = value;
+            delta = (value == null ? 0 : 1) - (old == null ? 0 : 1);
+        } else {
+            Node child = (Node) old;
+            Node updated = set(child, s - BITS, id, value);
+            if (updated == child) {
+                return node;
+            }
+            next = updated;
+            delta = size(updated) - size(child);
+        }
+        int size = (node == null ? 0 : node.size) + delta;
+        if (size == 0) {
+            return null;
+        }
+        Object[] slots = node == null ? new Object[WIDTH] : node.slots.clone();
+        slots[i] = next;
+        return new Node(slots, size);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int index(long id, int s) {
+        return (int) ((id >>> s) & MASK);
+    }
+
+    // Whether a trie whose root sits at shift s can hold the id; ids never use the sign bit
+    private static boolean fits(long id, int s) {
+        return s + BITS >= Long.SIZE - 1 || (id >>> (s + BITS)) == 0;
+    }
+
+    /**
+     * Fills a trie in place, for building a table from scratch without the path copying
+     * of {@link #with}. Not usable after {@link #build}.
+     */
+    static final class Builder<V> {
+
+        private Object[] root = new Object[WIDTH];
+        private int shift;
+
+        void put(long id, V value) {
+            if (id < 0) {
+                throw new IllegalArgumentException("Negative id: " + id);
+            }
+            Objects.requireNonNull(value);
+            while (!fits(id, shift)) {
+                Object[] top = new Object[WIDTH];
+                top[0] = root;
+                root = top;
+                shift += BITS;
+            }
+            Object[] node = root;
+            for (int s = shift; s > 0; s -= BITS) {
+                int i = index(id, s);
+                if (node[i] == null) {
+                    node[i] = new Object[WIDTH];
+                }
+                node = (Object[]) node[i];
+            }
+            node[index(id, 0)] = value;
+        }
+
+        IdTrie<V> build() {
+            Node node = freeze(root, shift);
+            root = null;
+            return node == null ? empty() : new IdTrie<>(node, shift);
+        }
+
+        private static Node freeze(Object[] slots, int s) {
+            int size = 0;
+            for (int i = 0; i < WIDTH; i++) {
+                if (slots[i] == null) {
+                    continue;
+                }
+                if (s == 0) {
+                    size++;
+                } else {
+                    Node child = freeze((Object[]) slots[i], s - BITS);
+                    slots[i] = child;
+                    size += size(child);
+                }
+            }
+            return size == 0 ? null : new Node(slots, size);
+        }
+    }
+
+    private final class Values extends AbstractList<V> {
+
+        @Override
+        public int size() {
+            return root.size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V get(int index) {
+            Objects.checkIndex(index, root.size);
+            Node node = root;
+            for (int s = shift; ; s -= BITS) {
+                for (Object slot : node.slots) {
+                    if (slot == null) {
+                        continue;
+                    }
+                    int count = s == 0 ? 1 : ((Node) slot).size;
+                    if (index < count) {
+                        if (s == 0) {
+                            return (V) slot;
+                        }
+                        node = (Node) slot;
+                        break;
+                    }
+                    index -= count;
+                }
+            }
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            int levels = shift / BITS + 1;
+            Node[] nodes = new Node[levels];
+            int[] positions = new int[levels];
+            nodes[0] = root;
+            return new Iterator<>() {
+                private int depth;
+                private int remaining = root.size;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    while (true) {
+                        if (positions[depth] == WIDTH) {
+                            depth--;
+                            continue;
+                        }
+                        Object slot = nodes[depth].slots[positions[depth]++];
+                        if (slot == null) {
+                            continue;
+                        }
+                        if (depth == levels - 1) {
+                            remaining--;
+                            return (V) slot;
+                        }
+                        depth++;
+                        nodes[depth] = (Node) slot;
+                        positions[depth] = 0;
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.fanhub.config;
+
+import com.fanhub.service.EpisodeOrdinal;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Additive schema changes for databases created by an older schema.sql.
+ *
+ * schema.sql only uses CREATE ... IF NOT EXISTS, so a new column never reaches an
+ * existing fanhub.db, and SQLite has no ADD COLUMN IF NOT EXISTS. Each step here
+ * checks PRAGMA table_info first, and triggers are only recreated when their
+ * definition changed, so it is safe to run on every startup.
+ */
+@Component
+@DependsOnDatabaseInitialization
+public class SchemaMigrations {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    // Tables whose rows carry an optimistic-lock version (see MergePatchService)
+    private static final List<String> VERSIONED_TABLES = List.of("shows", "episodes", "characters");
+
+    // Versioned tables that also carry a trigger-maintained episode ordinal
+    private static final Map<String, String> DERIVED_ORDINALS = Map.of(
+            "episodes", "episode_ordinal",
+            "characters", "first_appearance_ordinal");
+
+    private static final String CHARACTER_ORDINAL = "COALESCE("
+            + "(SELECT e.episode_ordinal FROM episodes e WHERE e.id = characters.first_appearance), "
+            + "(SELECT MIN(e.episode_ordinal) FROM character_episodes ce JOIN episodes e ON e.id = ce.episode_id"
+            + " WHERE ce.character_id = characters.id))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaMigrations(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        migrate(jdbcTemplate);
+    }
+
+    /** Brings any FanHub database up to date; also applied to each shard file. */
+    public static void migrate(JdbcTemplate jdbcTemplate) {
+        DERIVED_ORDINALS.forEach((table, column) -> addColumnIfMissing(jdbcTemplate, table, column, "INTEGER"));
+        addColumnIfMissing(jdbcTemplate, "quotes", "episode_ordinal", "INTEGER");
+        for (String table : VERSIONED_TABLES) {
+            addColumnIfMissing(jdbcTemplate, table, "version", "INTEGER NOT NULL DEFAULT 0");
+            // Full-row updates through JPA never write the version column, so bump it
+            // here; merge patches bump it themselves and the WHEN clause skips them, as
+            // well as the follow-up update that only refreshes a derived ordinal.
+            String ordinal = DERIVED_ORDINALS.get(table);
+            replaceTrigger(jdbcTemplate, "trg_" + table + "_version",
+                    " AFTER UPDATE ON " + table
+                    + " FOR EACH ROW WHEN NEW.version = OLD.version"
+                    + (ordinal == null ? "" : " AND NEW." + ordinal + " IS OLD." + ordinal)
+                    + " BEGIN UPDATE " + table + " SET version = OLD.version + 1 WHERE id = NEW.id; END");
+        }
+        migrateEpisodeOrdinals(jdbcTemplate);
+    }
+
+    // Keeps episodes.episode_ordinal, quotes.episode_ordinal and characters.first_appearance_ordinal
+    // in step with seasons, episodes and appearances (see EpisodeOrdinal). Every UPDATE skips
+    // rows that already hold the right value, so unchanged rows fire nothing further.
+    private static void migrateEpisodeOrdinals(JdbcTemplate jdbcTemplate) {
+        String episodeOrdinal = "(SELECT s.season_number FROM seasons s WHERE s.id = NEW.season_id) * "
+                + EpisodeOrdinal.SEASON_STRIDE + " + NEW.episode_number";
+        replaceTrigger(jdbcTemplate, "trg_episodes_ordinal_insert",
+                " AFTER INSERT ON episodes FOR EACH ROW"
+                + " BEGIN UPDATE episodes SET episode_ordinal = " + episodeOrdinal + " WHERE id = NEW.id; END");
+        replaceTrigger(jdbcTemplate, "trg_episodes_ordinal_update",
+                " AFTER UPDATE OF season_id, episode_number ON episodes FOR EACH ROW"
+                + " BEGIN UPDATE episodes SET episode_ordinal = " + episodeOrdinal
+                + " WHERE id = NEW.id AND episode_ordinal IS NOT " + episodeOrdinal + "; END");
+        String seasonOrdinal = "NEW.season_number * " + EpisodeOrdinal.SEASON_STRIDE + " + episode_number";
+        replaceTrigger(jdbcTemplate, "trg_seasons_ordinal",
+                " AFTER UPDATE OF season_number ON seasons FOR EACH ROW"
+                + " BEGIN UPDATE episodes SET episode_ordinal = " + seasonOrdinal
+                + " WHERE season_id = NEW.id AND episode_ordinal IS NOT " + seasonOrdinal + "; END");
+
+        // Quotes take their episode's ordinal
+        String quoteOrdinal = "(SELECT e.episode_ordinal FROM episodes e WHERE e.id = quotes.episode_id)";
+        String refreshQuote = " BEGIN UPDATE quotes SET episode_ordinal = " + quoteOrdinal
+                + " WHERE id = NEW.id AND episode_ordinal IS NOT " + quoteOrdinal + "; END";
+        replaceTrigger(jdbcTemplate, "trg_quotes_ordinal_insert", " AFTER INSERT ON quotes FOR EACH ROW" + refreshQuote);
+        replaceTrigger(jdbcTemplate, "trg_quotes_ordinal_update",
+                " AFTER UPDATE OF episode_id ON quotes FOR EACH ROW" + refreshQuote);
+
+        // Characters take their first_appearance episode's ordinal, or else their earliest appearance
+        replaceTrigger(jdbcTemplate, "trg_characters_ordinal_insert",
+                " AFTER INSERT ON characters FOR EACH ROW BEGIN " + refreshCharacters("id = NEW.id") + " END");
+        replaceTrigger(jdbcTemplate, "trg_characters_ordinal_update",
+                " AFTER UPDATE OF first_appearance ON characters FOR EACH ROW BEGIN "
+                + refreshCharacters("id = NEW.id") + " END");
+        replaceTrigger(jdbcTemplate, "trg_character_episodes_ordinal_insert",
+                " AFTER INSERT ON character_episodes FOR EACH ROW BEGIN "
+                + refreshCharacters("id = NEW.character_id") + " END");
+        replaceTrigger(jdbcTemplate, "trg_character_episodes_ordinal_update",
+                " AFTER UPDATE OF character_id, episode_id ON character_episodes FOR EACH ROW BEGIN "
+                + refreshCharacters("id IN (OLD.character_id, NEW.character_id)") + " END");
+        replaceTrigger(jdbcTemplate, "trg_character_episodes_ordinal_delete",
+                " AFTER DELETE ON character_episodes FOR EACH ROW BEGIN "
+                + refreshCharacters("id = OLD.character_id") + " END");
+
+        // An episode moving or disappearing moves everything derived from it
+        replaceTrigger(jdbcTemplate, "trg_episodes_ordinal_propagate",
+                " AFTER UPDATE OF episode_ordinal ON episodes FOR EACH ROW"
+                + " WHEN NEW.episode_ordinal IS NOT OLD.episode_ordinal"
+                + " BEGIN UPDATE quotes SET episode_ordinal = NEW.episode_ordinal WHERE episode_id = NEW.id; "
+                + refreshCharacters(charactersOf("NEW.id")) + " END");
+        replaceTrigger(jdbcTemplate, "trg_episodes_ordinal_delete",
+                " AFTER DELETE ON episodes FOR EACH ROW"
+                + " BEGIN UPDATE quotes SET episode_ordinal = NULL"
+                + " WHERE episode_id = OLD.id AND episode_ordinal IS NOT NULL; "
+                + refreshCharacters(charactersOf("OLD.id")) + " END");
+
+        for (String table : List.of("episodes", "quotes")) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_show_ordinal ON " + table
+                    + "(show_id, episode_ordinal)");
+        }
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_characters_show_ordinal"
+                + " ON characters(show_id, first_appearance_ordinal)");
+
+        // Rows written before the triggers existed, including the seed data on a fresh database
+        int episodes = jdbcTemplate.update("UPDATE episodes SET episode_ordinal ="
+                + " (SELECT s.season_number FROM seasons s WHERE s.id = episodes.season_id) * "
+                + EpisodeOrdinal.SEASON_STRIDE + " + episode_number"
+                + " WHERE episode_ordinal IS NULL AND season_id IS NOT NULL");
+        int quotes = jdbcTemplate.update("UPDATE quotes SET episode_ordinal = " + quoteOrdinal
+                + " WHERE episode_ordinal IS NULL AND " + quoteOrdinal + " IS NOT NULL");
+        int characters = jdbcTemplate.update(refreshCharacters(
+                "first_appearance_ordinal IS NULL AND " + CHARACTER_ORDINAL + " IS NOT NULL"));
+        if (episodes + quotes + characters > 0) {
+            log.info("Backfilled episode ordinals: {} episodes, {} quotes, {} characters", episodes, quotes, characters);
+        }
+    }
+
+    private static String refreshCharacters(String where) {
+        return "UPDATE characters SET first_appearance_ordinal = " + CHARACTER_ORDINAL
+                + " WHERE (" + where + ") AND first_appearance_ordinal IS NOT " + CHARACTER_ORDINAL + ";";
+    }
+
+    private static String charactersOf(String episodeId) {
+        return "first_appearance = " + episodeId
+                + " OR id IN (SELECT character_id FROM character_episodes WHERE episode_id = " + episodeId + ")";
+    }
+
+    // SQLite has no CREATE OR REPLACE TRIGGER; recreate it only when its definition changed
+    private static void replaceTrigger(JdbcTemplate jdbcTemplate, String name, String definition) {
+        String sql = "CREATE TRIGGER " + name + definition;
+        List<String> existing = jdbcTemplate.queryForList(
+                "SELECT sql FROM sqlite_master WHERE type = 'trigger' AND name = ?", String.class, name);
+        if (existing.size() == 1 && sql.equals(existing.get(0))) {
+            return;
+        }
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + name);
+        jdbcTemplate.execute(sql);
+        if (!existing.isEmpty()) {
+            log.info("Replaced trigger {}", name);
+        }
+    }
+
+    private static void addColumnIfMissing(JdbcTemplate jdbcTemplate, String table, String column, String definition) {
+        if (hasColumn(jdbcTemplate, table, column)) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        log.info("Added column {}.{}", table, column);
+    }
+
+    static boolean hasColumn(JdbcTemplate jdbcTemplate, String table, String column) {
+        List<String> columns = jdbcTemplate.queryForList(
+                "SELECT name FROM pragma_table_info(?)", String.class, table);
+        return columns.contains(column);
+    }
+}
@@ -1,11 +1,16 @@
 package com.fanhub.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
@@ -17,8 +22,11 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())  // INTENTIONAL BUG: CSRF disabled
             .authorizeHttpRequests(auth -> auth
-                .anyRequest().permitAll()  // INTENTIONAL BUG: All endpoints are public
-            );
+                // Backups, restores and bulkhead stats: HTTP Basic as the configured admin
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                .anyRequest().permitAll()  // INTENTIONAL BUG: All other endpoints are public
+            )
+            .httpBasic(Customizer.withDefaults());
         
         // INTENTIONAL BUG: No JWT filter configured
         // INTENTIONAL BUG: No authentication provider configured
@@ -26,6 +34,20 @@ public class SecurityConfig {
         return http.build();
     }
     
+    // The only account for /api/admin/**; with no password configured nobody can use those endpoints
+    @Bean
+    public UserDetailsService adminUsers(@Value("${fanhub.admin.username:admin}") String username,
+                                         @Value("${fanhub.admin.password:}") String password,
+                                         PasswordEncoder passwordEncoder) {
+        if (password.isBlank()) {
+            return new InMemoryUserDetailsManager();
+        }
+        return new InMemoryUserDetailsManager(User.withUsername(username)
+                .password(passwordEncoder.encode(password))
+                .roles("ADMIN")
+                .build());
+    }
+    
     @Bean
     public PasswordEncoder passwordEncoder() {
         // INTENTIONAL BUG: Default strength (10 rounds) - should be configurable
@@ -0,0 +1,71 @@
+package com.fanhub.controller;
+
+import com.fanhub.analytics.ViewAnalyticsService;
+import com.fanhub.analytics.ViewKind;
+import com.fanhub.analytics.ViewRollups;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    private final ViewAnalyticsService viewAnalytics;
+
+    public AnalyticsController(ViewAnalyticsService viewAnalytics) {
+        this.viewAnalytics = viewAnalytics;
+    }
+
+    // Most viewed this week: /api/analytics/top?kind=episode
+    @GetMapping("/top")
+    public Map<String, Object> top(
+            @RequestParam(defaultValue = "episode") String kind,
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        List<Map<String, Object>> data = viewAnalytics.topViewed(ViewKind.fromKey(kind), days, limit);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("kind", kind);
+        response.put("days", days);
+        response.put("data", data);
+        return response;
+    }
+
+    // Views over time for one item: /api/analytics/character/1?granularity=hour&days=2
+    @GetMapping("/{kind}/{id}")
+    public Map<String, Object> history(
+            @PathVariable String kind,
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(defaultValue = "7") int days) {
+
+        List<Map<String, Object>> data = viewAnalytics.history(ViewKind.fromKey(kind), id, granularity(granularity), days);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("kind", kind);
+        response.put("id", id);
+        response.put("granularity", granularity);
+        response.put("total", data.stream().mapToLong(row -> (Long) row.get("views")).sum());
+        response.put("data", data);
+        return response;
+    }
+
+    // Buffer fill, drops and flush health
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return viewAnalytics.stats();
+    }
+
+    private static ViewRollups.Granularity granularity(String value) {
+        return switch (value) {
+            case "hour" -> ViewRollups.Granularity.HOUR;
+            case "day" -> ViewRollups.Granularity.DAY;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "granularity must be hour or day");
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.fanhub.controller;
 
+import com.fanhub.bulkhead.Bulkheads;
 import com.fanhub.model.User;
 import com.fanhub.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,6 +23,9 @@ public class AuthController {
     // INTENTIONAL BUG: Creating BCryptPasswordEncoder in controller instead of as a bean
     private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     
+    @Autowired
+    private Bulkheads bulkheads;
+    
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody Map<String, String> request) {
         String email = request.get("email");
@@ -41,7 +45,7 @@ public class AuthController {
         User user = new User();
         user.setEmail(email);
         user.setUsername(username);
-        user.setPasswordHash(passwordEncoder.encode(password));
+        user.setPasswordHash(bulkheads.hash(() -> passwordEncoder.encode(password)));
         user.setRole("user");
         user.setIsActive(true);
         
@@ -68,7 +72,7 @@ public class AuthController {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
         
-        if (!passwordEncoder.matches(password, user.getPasswordHash())) {
+        if (!bulkheads.hash(() -> passwordEncoder.matches(password, user.getPasswordHash()))) {
             return ResponseEntity.status(401).body(Map.of("error", "Invalid password"));
         }
         
@@ -0,0 +1,58 @@
+package com.fanhub.controller;
+
+import com.fanhub.backup.BackupJob;
+import com.fanhub.backup.BackupService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/backups")
+public class BackupController {
+
+    private final BackupService backupService;
+
+    public BackupController(BackupService backupService) {
+        this.backupService = backupService;
+    }
+
+    @GetMapping
+    public Map<String, Object> list() {
+        List<Map<String, Object>> backups = backupService.list();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("count", backups.size());
+        response.put("data", backups);
+        return response;
+    }
+
+    // Starts a backup in the background; poll /status for progress. ?stepDelayMs= overrides the throttle
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> start(@RequestParam(required = false) Long stepDelayMs) {
+        BackupJob job = backupService.start("api", stepDelayMs);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", "/api/admin/backups/status")
+                .body(job.toMap());
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> status() {
+        BackupJob job = backupService.status();
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No backup has run since startup");
+        }
+        return job.toMap();
+    }
+
+    // Copies a backed-up file to backups/restored/<target>; the live database is left alone
+    @PostMapping("/{name}/restore")
+    public Map<String, Object> restore(@PathVariable String name,
+                                       @RequestParam(required = false) String file,
+                                       @RequestParam(required = false) String target) {
+        return backupService.restore(name, file, target);
+    }
+}
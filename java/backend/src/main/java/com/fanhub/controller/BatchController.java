@@ -0,0 +1,30 @@
+package com.fanhub.controller;
+
+import com.fanhub.service.BatchService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/batch")
+@CrossOrigin(origins = "*")
+public class BatchController {
+
+    private final BatchService batchService;
+
+    public BatchController(BatchService batchService) {
+        this.batchService = batchService;
+    }
+
+    // Body: {"requests": ["/api/characters?ids=1,2", "/api/episodes/4"]}
+    // Response: {"responses": [{"path": ..., "status": 200, "body": ...}, ...]} in request order
+    @PostMapping
+    public Map<String, Object> batch(
+            @RequestBody Map<String, List<String>> body,
+            HttpServletRequest request) {
+
+        return Map.of("responses", batchService.execute(body.get("requests"), request));
+    }
+}
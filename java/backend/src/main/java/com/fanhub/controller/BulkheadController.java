@@ -0,0 +1,23 @@
+package com.fanhub.controller;
+
+import com.fanhub.bulkhead.Bulkheads;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/bulkheads")
+public class BulkheadController {
+
+    private final Bulkheads bulkheads;
+
+    public BulkheadController(Bulkheads bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    // Thread mode plus permits in use, queue length, rejections and waits per bulkhead
+    @GetMapping
+    public Map<String, Object> stats() {
+        return bulkheads.stats();
+    }
+}
@@ -0,0 +1,43 @@
+package com.fanhub.controller;
+
+import com.fanhub.event.ChangeFeed;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/changes")
+@CrossOrigin(origins = "*")
+public class ChangeFeedController {
+
+    private final ChangeFeed changeFeed;
+
+    public ChangeFeedController(ChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    // Live stream of likes and new/updated content, e.g. /api/changes?entities=quote,episode
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(required = false) String entities) {
+
+        Set<String> filter = entities == null
+                ? Set.of()
+                : Arrays.stream(entities.split(","))
+                        .map(String::trim)
+                        .filter(s -> !s.isEmpty())
+                        .collect(Collectors.toSet());
+        return changeFeed.subscribe(lastEventId, filter);
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return changeFeed.stats();
+    }
+}
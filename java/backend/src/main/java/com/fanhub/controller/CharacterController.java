@@ -1,12 +1,21 @@
 package com.fanhub.controller;
 
+import com.fanhub.analytics.ViewAnalyticsService;
+import com.fanhub.analytics.ViewKind;
 import com.fanhub.model.Character;
 import com.fanhub.service.CharacterService;
+import com.fanhub.service.EpisodeOrdinal;
+import com.fanhub.service.IncludeService;
+import com.fanhub.service.MergePatchService;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/characters")
@@ -16,11 +25,32 @@ public class CharacterController {
     @Autowired
     private CharacterService characterService;
     
+    @Autowired
+    private IncludeService includeService;
+    
+    @Autowired
+    private ViewAnalyticsService viewAnalytics;
+    
     // INTENTIONAL BUG: No try-catch, exceptions will be exposed to client
     @GetMapping
     public List<Character> getAllCharacters(
             @RequestParam(required = false) Long showId,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) String upTo) {
+        
+        // ?upTo=S3E5 hides characters who first appear later in that show
+        Long maxOrdinal = EpisodeOrdinal.parseUpTo(upTo);
+        if (maxOrdinal != null) {
+            if (showId == null || ids != null || search != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "upTo requires showId and cannot be combined with ids or search");
+            }
+            return characterService.getCharactersByShowIdUpTo(showId, maxOrdinal);
+        }
+        
+        if (ids != null) {
+            return characterService.getCharactersByIds(ids);
+        }
         
         if (search != null) {
             return characterService.searchCharacters(search);
@@ -34,27 +64,49 @@ public class CharacterController {
         return characterService.getAllCharacters();
     }
     
+    // ?include=show,quotes,quotes.episode,episodes
     @GetMapping("/{id}")
-    public ResponseEntity<Character> getCharacterById(@PathVariable Long id) {
+    public ResponseEntity<?> getCharacterById(@PathVariable Long id,
+                                              @RequestParam(required = false) String include) {
+        Set<String> includes = includeService.parse(include, IncludeService.CHARACTER_INCLUDES);
         // INTENTIONAL BUG: Will throw exception if character not found
         Character character = characterService.getCharacterById(id);
-        return ResponseEntity.ok(character);
+        viewAnalytics.record(ViewKind.CHARACTER, id);
+        if (!includes.isEmpty()) {
+            return ResponseEntity.ok(includeService.expandCharacter(character, includes));
+        }
+        return ResponseEntity.ok().eTag(String.valueOf(character.getVersion())).body(character);
     }
     
     @PostMapping
-    public Character createCharacter(@RequestBody Character character) {
+    public ResponseEntity<Character> createCharacter(@RequestBody Character character) {
         // INTENTIONAL BUG: Returns 200 instead of 201 (inconsistent with shows)
         // INTENTIONAL BUG: No validation of required fields
-        return characterService.createCharacter(character);
+        Character created = characterService.createCharacter(character);
+        return ResponseEntity.ok().eTag(String.valueOf(created.getVersion())).body(created);
     }
     
+    // Send If-Match with the ETag from GET to make the update conditional.
     @PatchMapping("/{id}")  // INTENTIONAL BUG: Using PATCH while others use PUT
     public ResponseEntity<Character> updateCharacter(
             @PathVariable Long id,
-            @RequestBody Character character) {
+            @RequestBody Character character,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        
+        Character updated = characterService.updateCharacter(id, character, ifMatch);
+        return ResponseEntity.ok().eTag(String.valueOf(updated.getVersion())).body(updated);
+    }
+
+    // Content-Type: application/merge-patch+json; only the fields in the body are written.
+    // Send If-Match with the ETag from GET to make the update conditional.
+    @PatchMapping(value = "/{id}", consumes = MergePatchService.MEDIA_TYPE)
+    public ResponseEntity<Void> patchCharacter(
+            @PathVariable Long id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         
-        Character updated = characterService.updateCharacter(id, character);
-        return ResponseEntity.ok(updated);
+        long version = characterService.patchCharacter(id, patch, ifMatch);
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
     }
     
     @DeleteMapping("/{id}")
@@ -1,9 +1,16 @@
 package com.fanhub.controller;
 
+import com.fanhub.analytics.ViewAnalyticsService;
+import com.fanhub.analytics.ViewKind;
 import com.fanhub.model.Episode;
+import com.fanhub.service.EpisodeOrdinal;
 import com.fanhub.service.EpisodeService;
+import com.fanhub.service.MergePatchService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashMap;
 import java.util.List;
@@ -15,20 +22,38 @@ import java.util.Map;
 public class EpisodeController {
     
     private final EpisodeService episodeService;
+    private final ViewAnalyticsService viewAnalytics;
     
-    public EpisodeController(EpisodeService episodeService) {
+    public EpisodeController(EpisodeService episodeService, ViewAnalyticsService viewAnalytics) {
         this.episodeService = episodeService;
+        this.viewAnalytics = viewAnalytics;
     }
     
     @GetMapping
-    public Map<String, Object> getEpisodes(@RequestParam(required = false) Long seasonId) {
+    public Map<String, Object> getEpisodes(
+            @RequestParam(required = false) Long seasonId,
+            @RequestParam(required = false) Long showId,
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) String upTo) {
         // INTENTIONAL BUG: Different response format than characters endpoint
         Map<String, Object> response = new HashMap<>();
         
+        // ?upTo=S3E5 only makes sense within one show (or one of its seasons)
+        Long maxOrdinal = EpisodeOrdinal.parseUpTo(upTo);
+        if (maxOrdinal != null && (ids != null || (showId == null && seasonId == null))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "upTo requires showId or seasonId");
+        }
+        
         List<Episode> episodes;
-        if (seasonId != null) {
+        if (ids != null) {
+            episodes = episodeService.getEpisodesByIds(ids);
+        } else if (maxOrdinal != null) {
+            episodes = episodeService.getEpisodesUpTo(showId, seasonId, maxOrdinal);
+        } else if (seasonId != null) {
             // The cache bug is in the service layer (cache key doesn't include seasonId)
             episodes = episodeService.getEpisodesBySeasonId(seasonId);
+        } else if (showId != null) {
+            episodes = episodeService.getEpisodesByShowId(showId);
         } else {
             episodes = episodeService.getAllEpisodes();
         }
@@ -44,7 +69,10 @@ public class EpisodeController {
     public ResponseEntity<?> getEpisodeById(@PathVariable Long id) {
         // INTENTIONAL BUG: Using Optional but wrapping in ResponseEntity awkwardly
         return episodeService.getEpisodeById(id)
-                .map(ResponseEntity::ok)
+                .map(e -> {
+                    viewAnalytics.record(ViewKind.EPISODE, id);
+                    return ResponseEntity.ok().eTag(String.valueOf(e.getVersion())).body(e);
+                })
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -52,16 +80,30 @@ public class EpisodeController {
     public ResponseEntity<Episode> createEpisode(@RequestBody Episode episode) {
         // This one correctly returns 201 (inconsistent with CharacterController)
         Episode created = episodeService.createEpisode(episode);
-        return ResponseEntity.status(201).body(created);
+        return ResponseEntity.status(201).eTag(String.valueOf(created.getVersion())).body(created);
     }
     
+    // Send If-Match with the ETag from GET to make the update conditional, as for PATCH.
     @PutMapping("/{id}")  // Using PUT (different from CharacterController's PATCH)
     public ResponseEntity<Episode> updateEpisode(
             @PathVariable Long id,
-            @RequestBody Episode episode) {
+            @RequestBody Episode episode,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        
+        Episode updated = episodeService.updateEpisode(id, episode, ifMatch);
+        return ResponseEntity.ok().eTag(String.valueOf(updated.getVersion())).body(updated);
+    }
+
+    // Content-Type: application/merge-patch+json; only the fields in the body are written.
+    // Send If-Match with the ETag from GET to make the update conditional.
+    @PatchMapping(value = "/{id}", consumes = MergePatchService.MEDIA_TYPE)
+    public ResponseEntity<Void> patchEpisode(
+            @PathVariable Long id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
         
-        Episode updated = episodeService.updateEpisode(id, episode);
-        return ResponseEntity.ok(updated);
+        long version = episodeService.patchEpisode(id, patch, ifMatch);
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
     }
     
     @DeleteMapping("/{id}")
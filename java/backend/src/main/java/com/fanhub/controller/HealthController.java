@@ -0,0 +1,45 @@
+package com.fanhub.controller;
+
+import com.fanhub.warmup.WarmupService;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/health")
+@CrossOrigin(origins = "*")
+public class HealthController {
+
+    private final ApplicationAvailability availability;
+    private final WarmupService warmupService;
+
+    public HealthController(ApplicationAvailability availability, WarmupService warmupService) {
+        this.availability = availability;
+        this.warmupService = warmupService;
+    }
+
+    // For liveness probes: the process is up and not broken
+    @GetMapping("/live")
+    public ResponseEntity<Map<String, Object>> live() {
+        boolean live = availability.getLivenessState() == LivenessState.CORRECT;
+        return ResponseEntity.status(live ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("status", live ? "live" : "broken"));
+    }
+
+    // For readiness probes / load balancers: 503 until startup and warm-up are done
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Object>> ready() {
+        boolean accepting = availability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC;
+        boolean ready = accepting && warmupService.isComplete();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", ready ? "ready" : "warming");
+        response.put("warmup", warmupService.status());
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+}
@@ -0,0 +1,168 @@
+package com.fanhub.controller;
+
+import com.fanhub.images.ImageKind;
+import com.fanhub.images.ImageService;
+import com.fanhub.images.ImageService.ImageFile;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/images")
+@CrossOrigin(origins = "*")
+public class ImageController {
+
+    // Tomcat's sendfile hand-off: the connector streams the file with zero copies after we return
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ImageService imageService;
+    private final long maxAgeSeconds;
+
+    public ImageController(ImageService imageService,
+                           @Value("${fanhub.images.max-age-seconds:31536000}") long maxAgeSeconds) {
+        this.imageService = imageService;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    // Original or resized image: /api/images/character/1?w=320
+    @RequestMapping(value = "/{kind}/{id}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void image(
+            @PathVariable String kind,
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer w,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        ImageKind imageKind = ImageKind.fromKey(kind);
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        ImageFile image = imageService.resolve(imageKind, id, w, accept);
+        try {
+            send(image, request, response);
+        } catch (NoSuchFileException e) {
+            // Evicted between lookup and open; regenerate once
+            imageService.forget(image);
+            send(imageService.resolve(imageKind, id, w, accept), request, response);
+        }
+    }
+
+    // Variant cache size and hit counts
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        return imageService.stats();
+    }
+
+    private void send(ImageFile image, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, image.etag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, image.lastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + maxAgeSeconds);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (image.negotiated()) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+
+        if (notModified(image, request)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long length = image.length();
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && rangeApplies(image, request)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || start > end) {
+                        throw new IllegalArgumentException("Range outside " + length + " bytes");
+                    }
+                }
+                // Multipart byteranges are not worth it for images; send the whole file instead
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (start > 0 || end < length - 1) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        response.setContentType(image.contentType());
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Fail now rather than inside the connector if the file has gone
+            if (!image.path().toFile().isFile()) {
+                throw new NoSuchFileException(image.path().toString());
+            }
+            request.setAttribute(SENDFILE_FILENAME, image.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        // No sendfile on this connector (e.g. TLS or HTTP/2): an ordinary buffered copy
+        // through the servlet stream. The file is opened as a channel, so skipping to the
+        // start of a range is a seek.
+        try (InputStream file = Files.newInputStream(image.path())) {
+            StreamUtils.copyRange(file, response.getOutputStream(), start, end);
+        }
+    }
+
+    private static boolean notModified(ImageFile image, HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim().replaceFirst("^W/", "");
+                if (candidate.equals("*") || candidate.equals(image.etag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = headerDate(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && image.lastModified() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Range: serve the range only if the client's copy is still the current one
+    private static boolean rangeApplies(ImageFile image, HttpServletRequest request) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.trim().startsWith("\"")) {
+            return ifRange.trim().equals(image.etag());
+        }
+        long date = headerDate(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && image.lastModified() / 1000 == date / 1000;
+    }
+
+    private static long headerDate(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.fanhub.controller;
 
 import com.fanhub.model.Quote;
+import com.fanhub.service.EpisodeOrdinal;
 import com.fanhub.service.QuoteService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -16,10 +19,28 @@ public class QuoteController {
     private QuoteService quoteService;
     
     @GetMapping
-    public List<Quote> getAllQuotes(@RequestParam(required = false) Long characterId) {
+    public List<Quote> getAllQuotes(
+            @RequestParam(required = false) Long characterId,
+            @RequestParam(required = false) Long showId,
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) String upTo) {
+        // ?upTo=S3E5 hides quotes from later episodes of the show
+        Long maxOrdinal = EpisodeOrdinal.parseUpTo(upTo);
+        if (maxOrdinal != null) {
+            if (ids != null || (showId == null && characterId == null)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "upTo requires showId or characterId");
+            }
+            return quoteService.getQuotesUpTo(showId, characterId, maxOrdinal);
+        }
+        if (ids != null) {
+            return quoteService.getQuotesByIds(ids);
+        }
         if (characterId != null) {
             return quoteService.getQuotesByCharacterId(characterId);
         }
+        if (showId != null) {
+            return quoteService.getQuotesByShowId(showId);
+        }
         return quoteService.getAllQuotes();
     }
     
@@ -1,15 +1,17 @@
 package com.fanhub.controller;
 
 import com.fanhub.model.Show;
-import com.fanhub.repository.CharacterRepository;
-import com.fanhub.repository.EpisodeRepository;
+import com.fanhub.service.IncludeService;
+import com.fanhub.service.MergePatchService;
 import com.fanhub.service.ShowService;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/shows")
@@ -17,17 +19,18 @@ import java.util.Map;
 public class ShowController {
 
     private final ShowService showService;
-    private final CharacterRepository characterRepository;
-    private final EpisodeRepository episodeRepository;
+    private final IncludeService includeService;
 
-    public ShowController(ShowService showService, CharacterRepository characterRepository, EpisodeRepository episodeRepository) {
+    public ShowController(ShowService showService, IncludeService includeService) {
         this.showService = showService;
-        this.characterRepository = characterRepository;
-        this.episodeRepository = episodeRepository;
+        this.includeService = includeService;
     }
 
     @GetMapping
-    public List<Show> getAllShows() {
+    public List<Show> getAllShows(@RequestParam(required = false) List<Long> ids) {
+        if (ids != null) {
+            return showService.getShowsByIds(ids);
+        }
         // INTENTIONAL BUG: Different return type than episodes endpoint
         return showService.getAllShows();
     }
@@ -40,29 +43,14 @@ public class ShowController {
             error.put("error", "Show not found");
             return ResponseEntity.status(404).body(error);
         }
-        List<?> characters = characterRepository.findByShowId(id);
-        List<?> episodes = episodeRepository.findByShowId(id);
-        long seasonCount = episodes.stream()
-            .map(e -> ((com.fanhub.model.Episode) e).getSeasonId())
-            .distinct().count();
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("id", show.getId());
-        result.put("title", show.getTitle());
-        result.put("description", show.getDescription());
-        result.put("genre", show.getGenre());
-        result.put("startYear", show.getStartYear());
-        result.put("endYear", show.getEndYear());
-        result.put("network", show.getNetwork());
-        result.put("posterUrl", show.getPosterUrl());
-        result.put("seasons", java.util.Collections.nCopies((int) seasonCount, null));
-        result.put("episodes", java.util.Collections.nCopies(episodes.size(), null));
-        result.put("characters", java.util.Collections.nCopies(characters.size(), null));
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(includeService.expandShow(show, Set.of("seasons", "episodes", "characters")));
     }
 
+    // ?include=seasons,seasons.episodes,episodes,characters,characters.quotes,quotes
     @GetMapping("/{id}")
-    public ResponseEntity<?> getShowById(@PathVariable Long id) {
+    public ResponseEntity<?> getShowById(@PathVariable Long id,
+                                         @RequestParam(required = false) String include) {
+        Set<String> includes = includeService.parse(include, IncludeService.SHOW_INCLUDES);
         try {
             Show show = showService.getShowById(id);
 
@@ -73,7 +61,10 @@ public class ShowController {
                 return ResponseEntity.status(404).body(error);
             }
 
-            return ResponseEntity.ok(show);
+            if (!includes.isEmpty()) {
+                return ResponseEntity.ok(includeService.expandShow(show, includes));
+            }
+            return ResponseEntity.ok().eTag(String.valueOf(show.getVersion())).body(show);
         } catch (Exception e) {
             // INTENTIONAL BUG: Exposing exception details in production
             Map<String, String> error = new HashMap<>();
@@ -86,13 +77,28 @@ public class ShowController {
     public ResponseEntity<Show> createShow(@RequestBody Show show) {
         // INTENTIONAL BUG: No validation that title is provided
         Show created = showService.createShow(show);
-        return ResponseEntity.status(201).body(created);
+        return ResponseEntity.status(201).eTag(String.valueOf(created.getVersion())).body(created);
     }
 
+    // Send If-Match with the ETag from GET to make the update conditional, as for PATCH.
     @PutMapping("/{id}")
-    public ResponseEntity<Show> updateShow(@PathVariable Long id, @RequestBody Show show) {
-        Show updated = showService.updateShow(id, show);
-        return ResponseEntity.ok(updated);
+    public ResponseEntity<Show> updateShow(
+            @PathVariable Long id,
+            @RequestBody Show show,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Show updated = showService.updateShow(id, show, ifMatch);
+        return ResponseEntity.ok().eTag(String.valueOf(updated.getVersion())).body(updated);
+    }
+
+    // Content-Type: application/merge-patch+json; only the fields in the body are written.
+    // Send If-Match with the ETag from GET to make the update conditional.
+    @PatchMapping(value = "/{id}", consumes = MergePatchService.MEDIA_TYPE)
+    public ResponseEntity<Void> patchShow(
+            @PathVariable Long id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        long version = showService.patchShow(id, patch, ifMatch);
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
     }
 
     @DeleteMapping("/{id}")
@@ -0,0 +1,42 @@
+package com.fanhub.event;
+
+/**
+ * Domain event published by the service layer after a write.
+ * Listeners (the SSE change feed, caches) react to these instead of polling.
+ */
+public record ChangeEvent(String entity, Action action, Long id, Long showId, Object data) {
+
+    public enum Action {
+        CREATED, UPDATED, DELETED, LIKED;
+
+        public String eventName() {
+            return name().toLowerCase();
+        }
+    }
+
+    public static ChangeEvent created(String entity, Long id, Long showId, Object data) {
+        return new ChangeEvent(entity, Action.CREATED, id, showId, data);
+    }
+
+    public static ChangeEvent updated(String entity, Long id, Long showId, Object data) {
+        return new ChangeEvent(entity, Action.UPDATED, id, showId, data);
+    }
+
+    public static ChangeEvent deleted(String entity, Long id) {
+        return new ChangeEvent(entity, Action.DELETED, id, null, null);
+    }
+
+    public static ChangeEvent liked(String entity, Long id, Long showId, Object data) {
+        return new ChangeEvent(entity, Action.LIKED, id, showId, data);
+    }
+
+    /** SSE event name, e.g. {@code quote.liked}. */
+    public String name() {
+        return entity + "." + action.eventName();
+    }
+
+    /** Two events with the same key describe the same row; the later one supersedes the earlier. */
+    public String coalesceKey() {
+        return entity + ":" + id;
+    }
+}
@@ -0,0 +1,363 @@
+package com.fanhub.event;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fans {@link ChangeEvent}s out to Server-Sent Event subscribers.
+ *
+ * Events are appended to a fixed-size ring buffer by a single producer (publishing is
+ * serialized). Every subscriber keeps its own cursor into the ring and is drained on a
+ * small dispatcher pool. A subscriber that falls far behind gets its backlog coalesced
+ * to the latest event per row, and one that has been lapped by the ring gets a
+ * {@code resync} event telling it to refetch.
+ *
+ * Servlet writes block, so a client that stops reading would hold a dispatcher thread
+ * until the connection times out. A watchdog drops any subscriber whose write has been
+ * blocked longer than {@code fanhub.changes.send-timeout-ms} and adds a dispatcher
+ * thread for as long as the stuck write lasts, so the other subscribers keep their full
+ * pool. The emitter of a dropped subscriber is completed once its write returns.
+ *
+ * A write must never reach a response the container has already finished: a write that
+ * fails on a closed connection would leave its error on the recycled response, and the
+ * next request served by it would fail its first flush. The container's completion,
+ * timeout and error callbacks therefore wait for the write in progress, and no write
+ * starts after them.
+ */
+@Component
+public class ChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+    private final Entry[] ring;
+    private final int mask;
+    private final int coalesceThreshold;
+    private final long emitterTimeoutMs;
+    private final long sendTimeoutNanos;
+
+    // Sequence of the last published event. Seeded from the wall clock so ids keep
+    // increasing across restarts and a stale Last-Event-ID falls outside the ring.
+    private final AtomicLong published = new AtomicLong(System.currentTimeMillis());
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor dispatcher;
+    private final int dispatchThreads;
+    private int extraDispatchThreads;
+
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public ChangeFeed(@Value("${fanhub.changes.buffer-size:4096}") int bufferSize,
+                      @Value("${fanhub.changes.coalesce-threshold:256}") int coalesceThreshold,
+                      @Value("${fanhub.changes.dispatch-threads:4}") int dispatchThreads,
+                      @Value("${fanhub.changes.emitter-timeout-ms:0}") long emitterTimeoutMs,
+                      @Value("${fanhub.changes.send-timeout-ms:5000}") long sendTimeoutMs) {
+        int capacity = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        this.ring = new Entry[capacity];
+        this.mask = capacity - 1;
+        this.coalesceThreshold = coalesceThreshold;
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        this.dispatchThreads = dispatchThreads;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "change-feed-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    // Only committed changes: a rolled-back write must not reach clients
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChange(ChangeEvent event) {
+        publish(event);
+    }
+
+    synchronized void publish(ChangeEvent event) {
+        long seq = published.get() + 1;
+        ring[(int) (seq & mask)] = new Entry(seq, event);
+        published.set(seq);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.signal();
+        }
+    }
+
+    /**
+     * Registers a new subscriber.
+     *
+     * @param lastEventId value of the {@code Last-Event-ID} header, or null for a fresh stream
+     * @param entities    entity names to receive (e.g. {@code quote}); empty means all
+     */
+    public SseEmitter subscribe(Long lastEventId, Set<String> entities) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        long head = published.get();
+        long cursor = (lastEventId == null || lastEventId > head) ? head + 1 : lastEventId + 1;
+        // Id from a previous run (or from the future): nothing to replay, tell the client to refetch.
+        boolean resync = lastEventId != null && lastEventId > head;
+        Subscriber subscriber = new Subscriber(emitter, entities, cursor, resync);
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscribers.add(subscriber);
+        // Writes before MVC takes the emitter are buffered by it and flushed when it does
+        subscriber.signal();
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${fanhub.changes.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            subscriber.signal();
+        }
+    }
+
+    /** Drops subscribers whose write has been blocked for longer than the send timeout. */
+    @Scheduled(fixedDelayString = "${fanhub.changes.watchdog-ms:1000}")
+    public void watchdog() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos && subscribers.remove(subscriber)) {
+                drop(subscriber);
+            }
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscriber.dropped = true;
+        dropped.incrementAndGet();
+        log.info("Dropping change feed subscriber: write blocked for over {} ms",
+                TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+        // The drain may stay blocked until the connection times out; lend the pool a thread meanwhile
+        subscriber.extraThread.set(true);
+        resizeDispatcher(1);
+        // Whichever of us and the drain's finally block sees the flag first gives the thread back
+        if (!subscriber.scheduled.get() && subscriber.extraThread.compareAndSet(true, false)) {
+            resizeDispatcher(-1);
+        }
+        // Completes the emitter, now or as soon as the running drain returns
+        subscriber.signal();
+    }
+
+    private synchronized void resizeDispatcher(int delta) {
+        extraDispatchThreads += delta;
+        int size = dispatchThreads + extraDispatchThreads;
+        // Core may never exceed max: grow max first, shrink core first
+        if (delta > 0) {
+            dispatcher.setMaximumPoolSize(size);
+            dispatcher.setCorePoolSize(size);
+        } else {
+            dispatcher.setCorePoolSize(size);
+            dispatcher.setMaximumPoolSize(size);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscribers", subscribers.size());
+        stats.put("lastEventId", published.get());
+        stats.put("bufferSize", ring.length);
+        stats.put("resyncs", resyncs.get());
+        stats.put("coalescedEvents", coalesced.get());
+        stats.put("droppedSubscribers", dropped.get());
+        stats.put("dispatchThreads", dispatcher.getMaximumPoolSize());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        dispatcher.shutdownNow();
+    }
+
+    private record Entry(long seq, ChangeEvent event) {
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<String> entities;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // Next sequence to deliver; only written by the drain task that holds 'scheduled'.
+        private volatile long cursor;
+        private volatile boolean heartbeatDue;
+        private volatile boolean resyncDue;
+        // Start of the write in progress, 0 when idle; read by the watchdog
+        private volatile long sendingSince;
+        private volatile boolean dropped;
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final AtomicBoolean extraThread = new AtomicBoolean();
+        // Held for each write; closed is set under it once the container is done with the response
+        private final ReentrantLock sending = new ReentrantLock();
+        private volatile boolean closed;
+
+        Subscriber(SseEmitter emitter, Set<String> entities, long cursor, boolean resyncDue) {
+            this.emitter = emitter;
+            this.entities = entities;
+            this.cursor = cursor;
+            this.resyncDue = resyncDue;
+        }
+
+        /**
+         * Called by the container as it finishes the response. Waits for the write in
+         * progress, but no longer than the send timeout: a write blocked that long is
+         * on a connection the container is closing anyway.
+         */
+        void close() {
+            subscribers.remove(this);
+            boolean locked = false;
+            try {
+                locked = sending.tryLock(sendTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            closed = true;
+            if (locked) {
+                sending.unlock();
+            }
+        }
+
+        void signal() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                long head;
+                while (!dropped && ((head = published.get()) >= cursor || resyncDue || heartbeatDue)) {
+                    if (resyncDue || head - cursor + 1 > ring.length) {
+                        resync(head);
+                    } else if (head - cursor + 1 > coalesceThreshold) {
+                        sendCoalesced(head);
+                    } else {
+                        sendRange(head);
+                    }
+                    if (heartbeatDue) {
+                        heartbeatDue = false;
+                        write(SseEmitter.event().comment("keepalive"));
+                    }
+                }
+                if (dropped && completed.compareAndSet(false, true)) {
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                log.debug("Dropping change feed subscriber: {}", e.getMessage());
+                return;
+            } finally {
+                scheduled.set(false);
+                if (extraThread.compareAndSet(true, false)) {
+                    resizeDispatcher(-1);
+                }
+            }
+            // A signal (or a drop) may have arrived after the loop check but before 'scheduled' was cleared.
+            if (dropped ? !completed.get() : published.get() >= cursor || resyncDue || heartbeatDue) {
+                signal();
+            }
+        }
+
+        private void sendRange(long head) throws IOException {
+            while (cursor <= head) {
+                Entry entry = ring[(int) (cursor & mask)];
+                if (entry == null || entry.seq() != cursor) {
+                    // Overwritten while we were sending: we have been lapped.
+                    resync(published.get());
+                    return;
+                }
+                send(entry);
+                cursor++;
+            }
+        }
+
+        private void sendCoalesced(long head) throws IOException {
+            Map<String, Entry> latest = new LinkedHashMap<>();
+            int skipped = 0;
+            for (long seq = cursor; seq <= head; seq++) {
+                Entry entry = ring[(int) (seq & mask)];
+                if (entry == null || entry.seq() != seq) {
+                    resync(published.get());
+                    return;
+                }
+                if (latest.remove(entry.event().coalesceKey()) != null) {
+                    skipped++;
+                }
+                latest.put(entry.event().coalesceKey(), entry);
+            }
+            coalesced.addAndGet(skipped);
+            // Re-inserting on every hit keeps the map in order of each row's last change,
+            // so ids stay increasing and Last-Event-ID resume remains valid.
+            List<Entry> batch = new ArrayList<>(latest.values());
+            for (Entry entry : batch) {
+                send(entry);
+            }
+            cursor = head + 1;
+        }
+
+        private void resync(long head) throws IOException {
+            resyncDue = false;
+            resyncs.incrementAndGet();
+            cursor = head + 1;
+            write(SseEmitter.event()
+                    .id(String.valueOf(head))
+                    .name("resync")
+                    .data(Map.of("reason", "missed events, refetch current state")));
+        }
+
+        private void send(Entry entry) throws IOException {
+            ChangeEvent event = entry.event();
+            if (!entities.isEmpty() && !entities.contains(event.entity())) {
+                return;
+            }
+            write(SseEmitter.event()
+                    .id(String.valueOf(entry.seq()))
+                    .name(event.name())
+                    .data(event));
+        }
+
+        private void write(SseEmitter.SseEventBuilder event) throws IOException {
+            sending.lock();
+            try {
+                if (closed) {
+                    throw new IllegalStateException("response already completed");
+                }
+                sendingSince = System.nanoTime();
+                emitter.send(event);
+            } finally {
+                sendingSince = 0;
+                sending.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package com.fanhub.generator;
+
+import com.fanhub.config.SchemaMigrations;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds a large, referentially consistent FanHub database for benchmarks and query-plan checks.
+ *
+ * <pre>
+ * java -cp fanhub-backend.jar -Dloader.main=com.fanhub.generator.CatalogGenerator \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher big.db --scale=large [--quotes=5000000 ...]
+ * </pre>
+ * or {@code mvn verify -Pcatalog -Dcatalog.scale=large}.
+ *
+ * Show popularity follows a Zipf law: episode and character counts grow with its square
+ * root, quote counts and favorites with it directly, and within a show a few main
+ * characters get most appearances, quotes and favorites. Likes per quote are heavy-tailed.
+ * The Breaking Bad seed data is loaded first (unless {@code --no-seed}), so the usual
+ * {@code showId=1} examples keep working.
+ *
+ * Rows are built on {@code --threads} generator threads, one show at a time with ids
+ * planned up front, so the output is the same for the same {@code --seed}. SQLite takes
+ * one writer at a time, so a single thread writes them in large batched transactions
+ * with journaling off; secondary indexes, ordinal triggers and ANALYZE come after the
+ * load. The file is built as {@code <target>.partial} and renamed when complete.
+ */
+public final class CatalogGenerator {
+
+    static final Map<String, Scale> PRESETS = Map.of(
+            "small", new Scale(50, 5_000, 2_000, 50_000, 1_000),
+            "medium", new Scale(500, 50_000, 20_000, 500_000, 10_000),
+            "large", new Scale(5_000, 2_000_000, 200_000, 20_000_000, 500_000));
+
+    // Insert column lists; created_at/updated_at/version keep their defaults
+    private static final Map<String, List<String>> COLUMNS = Map.of(
+            "shows", List.of("id", "title", "description", "genre", "start_year", "end_year", "network"),
+            "seasons", List.of("id", "show_id", "season_number", "title", "episode_count", "air_date"),
+            "episodes", List.of("id", "show_id", "season_id", "episode_number", "title", "description", "air_date",
+                    "runtime_minutes", "director", "writer", "rating", "episode_ordinal"),
+            "characters", List.of("id", "show_id", "name", "actor_name", "bio", "is_main_character",
+                    "first_appearance", "status", "first_appearance_ordinal"),
+            "character_episodes", List.of("character_id", "episode_id", "is_featured"),
+            "quotes", List.of("id", "show_id", "character_id", "episode_id", "quote_text", "context", "is_famous",
+                    "likes_count", "episode_ordinal"),
+            "users", List.of("id", "email", "password_hash", "username", "display_name", "role"),
+            "user_favorites", List.of("user_id", "character_id"));
+
+    private static final int BATCH_ROWS = 2_000;
+    private static final int USERS_PER_UNIT = 10_000;
+    private static final long COMMIT_ROWS = 250_000;
+    private static final String USER_PASSWORD = "password123";
+
+    record Scale(int shows, long episodes, long characters, long quotes, int users) {}
+
+    record Options(Scale scale, double castPerEpisode, double favoritesPerUser, int threads, long seed, boolean seedData) {}
+
+    private record Rows(String table, List<Object[]> rows) {}
+
+    private static final Rows END = new Rows(null, null);
+
+    private final Options options;
+    private final Path target;
+
+    // The plan: per-show sizes and the first id of each show's rows in every table
+    private double[] showWeights;
+    private Popularity showPopularity;
+    private int[] episodes;
+    private int[] episodesPerSeason;
+    private int[] characters;
+    private int[] quotes;
+    private long showBase;
+    private long userBase;
+    private long[] seasonBase;
+    private long[] episodeBase;
+    private long[] characterBase;
+    private long[] quoteBase;
+    private String passwordHash;
+
+    private final BlockingQueue<Rows> queue = new ArrayBlockingQueue<>(256);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    CatalogGenerator(Path target, Options options) {
+        this.target = target;
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || args[0].startsWith("--")) {
+            System.err.println("Usage: CatalogGenerator <target.db> [--scale=small|medium|large] [--shows=N]"
+                    + " [--episodes=N] [--characters=N] [--quotes=N] [--users=N] [--cast-per-episode=6]"
+                    + " [--favorites-per-user=5] [--threads=N] [--seed=42] [--no-seed]");
+            System.exit(2);
+        }
+        Path target = Path.of(args[0]);
+        if (Files.exists(target)) {
+            throw new IllegalArgumentException(target + " already exists; the generator only writes new files");
+        }
+        new CatalogGenerator(target, parse(args)).generate();
+    }
+
+    static Options parse(String[] args) {
+        Map<String, String> flags = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            // Maven passes the optional extra flags as one argument
+            for (String flag : args[i].trim().split("\\s+")) {
+                if (flag.isEmpty()) {
+                    continue;
+                }
+                if (!flag.startsWith("--")) {
+                    throw new IllegalArgumentException("Unexpected argument: " + flag);
+                }
+                int eq = flag.indexOf('=');
+                flags.put(eq < 0 ? flag.substring(2) : flag.substring(2, eq), eq < 0 ? "true" : flag.substring(eq + 1));
+            }
+        }
+        Scale preset = PRESETS.get(flags.getOrDefault("scale", "medium"));
+        if (preset == null) {
+            throw new IllegalArgumentException("--scale must be one of " + PRESETS.keySet());
+        }
+        Scale scale = new Scale(
+                Integer.parseInt(flags.getOrDefault("shows", String.valueOf(preset.shows()))),
+                Long.parseLong(flags.getOrDefault("episodes", String.valueOf(preset.episodes()))),
+                Long.parseLong(flags.getOrDefault("characters", String.valueOf(preset.characters()))),
+                Long.parseLong(flags.getOrDefault("quotes", String.valueOf(preset.quotes()))),
+                Integer.parseInt(flags.getOrDefault("users", String.valueOf(preset.users()))));
+        if (scale.shows() < 1) {
+            throw new IllegalArgumentException("--shows must be at least 1");
+        }
+        int threads = Integer.parseInt(flags.getOrDefault("threads",
+                String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() - 1))));
+        return new Options(scale,
+                Double.parseDouble(flags.getOrDefault("cast-per-episode", "6")),
+                Double.parseDouble(flags.getOrDefault("favorites-per-user", "5")),
+                Math.max(1, threads),
+                Long.parseLong(flags.getOrDefault("seed", "42")),
+                !flags.containsKey("no-seed"));
+    }
+
+    void generate() throws Exception {
+        long start = System.nanoTime();
+        Path partial = target.resolveSibling(target.getFileName() + ".partial");
+        Files.deleteIfExists(partial);
+        if (target.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+        }
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + partial)) {
+            JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            // Bulk-load settings; a crash only loses the .partial file
+            jdbc.execute("PRAGMA journal_mode = OFF");
+            jdbc.execute("PRAGMA synchronous = OFF");
+            jdbc.execute("PRAGMA cache_size = -262144");
+            jdbc.execute("PRAGMA temp_store = MEMORY");
+            jdbc.execute("PRAGMA locking_mode = EXCLUSIVE");
+
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+            if (options.seedData()) {
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("seed.sql"));
+            }
+            // Secondary indexes are cheaper to build once at the end than to maintain per row
+            List<String> indexes = jdbc.queryForList(
+                    "SELECT sql FROM sqlite_master WHERE type = 'index' AND sql IS NOT NULL", String.class);
+            for (String name : jdbc.queryForList(
+                    "SELECT name FROM sqlite_master WHERE type = 'index' AND sql IS NOT NULL", String.class)) {
+                jdbc.execute("DROP INDEX \"" + name + "\"");
+            }
+            plan(jdbc);
+
+            Map<String, Long> written = load(connection);
+
+            long indexStart = System.nanoTime();
+            indexes.forEach(jdbc::execute);
+            SchemaMigrations.migrate(jdbc);
+            jdbc.execute("ANALYZE");
+            System.out.printf("Indexes, triggers and ANALYZE in %d s%n", seconds(indexStart));
+            jdbc.execute("PRAGMA locking_mode = NORMAL");
+            jdbc.execute("PRAGMA journal_mode = DELETE");
+            System.out.printf("Rows written: %s%n", written);
+        }
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        System.out.printf("Generated %s (%d MB) in %d s%n", target, Files.size(target) >> 20, seconds(start));
+    }
+
+    private void plan(JdbcTemplate jdbc) {
+        Scale scale = options.scale();
+        int n = scale.shows();
+        Random random = new Random(options.seed());
+        showWeights = Popularity.zipfWeights(n, 1.1, random);
+        showPopularity = Popularity.of(showWeights);
+        episodes = Popularity.allocate(scale.episodes(), showWeights, 0.5, 6);
+        characters = Popularity.allocate(scale.characters(), showWeights, 0.5, 3);
+        quotes = Popularity.allocate(scale.quotes(), showWeights, 1.0, 0);
+        episodesPerSeason = new int[n];
+
+        showBase = maxId(jdbc, "shows");
+        userBase = maxId(jdbc, "users");
+        seasonBase = new long[n];
+        episodeBase = new long[n];
+        characterBase = new long[n];
+        quoteBase = new long[n];
+        long season = maxId(jdbc, "seasons");
+        long episode = maxId(jdbc, "episodes");
+        long character = maxId(jdbc, "characters");
+        long quote = maxId(jdbc, "quotes");
+        for (int i = 0; i < n; i++) {
+            episodesPerSeason[i] = 6 + random.nextInt(17);
+            seasonBase[i] = season;
+            episodeBase[i] = episode;
+            characterBase[i] = character;
+            quoteBase[i] = quote;
+            season += seasons(i);
+            episode += episodes[i];
+            character += characters[i];
+            quote += quotes[i];
+        }
+        // One hash for every synthetic user keeps user generation cheap
+        passwordHash = new BCryptPasswordEncoder().encode(USER_PASSWORD);
+        System.out.printf("Planned %d shows, %d seasons, %d episodes, %d characters, %d quotes, %d users;"
+                        + " the most popular show has %d episodes and %d quotes%n",
+                n, season - seasonBase[0], episode - episodeBase[0], character - characterBase[0],
+                quote - quoteBase[0], scale.users(), episodes[argMax(showWeights)], quotes[argMax(showWeights)]);
+    }
+
+    // Generator threads fill the queue; this thread is the only writer
+    private Map<String, Long> load(Connection connection) throws Exception {
+        int showUnits = options.scale().shows();
+        int units = showUnits + (options.scale().users() + USERS_PER_UNIT - 1) / USERS_PER_UNIT;
+        AtomicInteger next = new AtomicInteger();
+        int threads = options.threads();
+        ExecutorService generators = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "catalog-generator");
+            t.setDaemon(true);
+            return t;
+        });
+        for (int t = 0; t < threads; t++) {
+            generators.execute(() -> {
+                try {
+                    for (int unit = next.getAndIncrement(); unit < units && failure.get() == null;
+                         unit = next.getAndIncrement()) {
+                        if (unit < showUnits) {
+                            generateShow(unit);
+                        } else {
+                            generateUsers(unit - showUnits);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    try {
+                        queue.put(END);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        Map<String, Long> written = new LinkedHashMap<>();
+        Map<String, PreparedStatement> inserts = new HashMap<>();
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        long lastReport = start;
+        long uncommitted = 0;
+        int finished = 0;
+        try {
+            while (finished < threads) {
+                Rows rows = queue.take();
+                if (rows == END) {
+                    finished++;
+                    continue;
+                }
+                PreparedStatement insert = inserts.computeIfAbsent(rows.table(), table -> prepare(connection, table));
+                for (Object[] row : rows.rows()) {
+                    for (int i = 0; i < row.length; i++) {
+                        insert.setObject(i + 1, row[i]);
+                    }
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                written.merge(rows.table(), (long) rows.rows().size(), Long::sum);
+                uncommitted += rows.rows().size();
+                if (uncommitted >= COMMIT_ROWS) {
+                    connection.commit();
+                    uncommitted = 0;
+                }
+                if (System.nanoTime() - lastReport > TimeUnit.SECONDS.toNanos(5)) {
+                    lastReport = System.nanoTime();
+                    long total = written.values().stream().mapToLong(Long::longValue).sum();
+                    System.out.printf("%,d rows (%,d rows/s) %s%n", total,
+                            total * 1_000_000_000L / Math.max(1, lastReport - start), written);
+                }
+            }
+            connection.commit();
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+            generators.shutdownNow();
+        } finally {
+            for (PreparedStatement insert : inserts.values()) {
+                insert.close();
+            }
+            connection.setAutoCommit(true);
+            generators.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Generation failed", failure.get());
+        }
+        System.out.printf("Loaded %,d rows in %d s%n",
+                written.values().stream().mapToLong(Long::longValue).sum(), seconds(start));
+        return written;
+    }
+
+    private void generateShow(int show) throws InterruptedException {
+        Random random = new Random(options.seed() * 1_000_003L + show);
+        long showId = showBase + show + 1;
+        int seasons = seasons(show);
+        int perSeason = episodesPerSeason[show];
+        int episodeCount = episodes[show];
+        int startYear = 1990 + random.nextInt(33);
+        boolean ended = random.nextInt(10) < 7;
+        String genre = SyntheticText.genre(random);
+        Batcher out = new Batcher();
+
+        out.add("shows", showId, SyntheticText.showTitle(show, random), SyntheticText.sentence(15, 40, random),
+                genre, startYear, ended ? Math.min(2025, startYear + seasons - 1) : null, SyntheticText.network(random));
+
+        for (int s = 1; s <= seasons; s++) {
+            int inSeason = Math.min(perSeason, episodeCount - (s - 1) * perSeason);
+            out.add("seasons", seasonBase[show] + s, showId, s, "Season " + s, inSeason,
+                    (startYear + s - 1) + "-09-01 00:00:00");
+        }
+
+        long[] ordinals = new long[episodeCount];
+        int runtime = genre.contains("Comedy") || genre.equals("Sitcom") || genre.equals("Animation") ? 22 : 47;
+        for (int e = 0; e < episodeCount; e++) {
+            int season = e / perSeason + 1;
+            int number = e % perSeason + 1;
+            ordinals[e] = (long) season * 1000 + number;
+            out.add("episodes", episodeBase[show] + e + 1, showId, seasonBase[show] + season, number,
+                    SyntheticText.episodeTitle(random), SyntheticText.sentence(20, 45, random),
+                    String.format("%d-%02d-%02d 00:00:00", startYear + season - 1, 9 + (number - 1) / 4 % 4,
+                            1 + (number - 1) % 4 * 7),
+                    runtime + random.nextInt(6), SyntheticText.personName(random), SyntheticText.personName(random),
+                    Math.round(Math.max(1, Math.min(10, 7.2 + random.nextGaussian() * 0.9)) * 10) / 10.0, ordinals[e]);
+        }
+
+        // Cast per episode, drawn by character rank so the leads are in almost everything
+        int characterCount = characters[show];
+        int mainCharacters = Math.max(1, characterCount / 8);
+        List<IntList> appearances = new ArrayList<>(characterCount);
+        for (int c = 0; c < characterCount; c++) {
+            appearances.add(new IntList());
+        }
+        boolean[] inCast = new boolean[characterCount];
+        List<Integer> cast = new ArrayList<>();
+        List<Object[]> links = new ArrayList<>();
+        for (int e = 0; e < episodeCount; e++) {
+            int size = Math.min(characterCount, Math.max(1, (int) Math.round(options.castPerEpisode() * (0.5 + random.nextDouble()))));
+            for (int attempts = 0; cast.size() < size && attempts < size * 4; attempts++) {
+                int c = Popularity.zipfRank(characterCount, 1.0, random);
+                if (!inCast[c]) {
+                    inCast[c] = true;
+                    cast.add(c);
+                }
+            }
+            for (int c : cast) {
+                inCast[c] = false;
+                appearances.get(c).add(e);
+                links.add(new Object[]{characterBase[show] + c + 1, episodeBase[show] + e + 1,
+                        c < mainCharacters && random.nextInt(3) == 0 ? 1 : 0});
+            }
+            cast.clear();
+        }
+        for (int c = 0; c < characterCount; c++) {
+            if (appearances.get(c).size == 0) {
+                int e = random.nextInt(episodeCount);
+                appearances.get(c).add(e);
+                links.add(new Object[]{characterBase[show] + c + 1, episodeBase[show] + e + 1, 0});
+            }
+            int first = appearances.get(c).values[0];
+            out.add("characters", characterBase[show] + c + 1, showId, SyntheticText.personName(random),
+                    SyntheticText.personName(random), SyntheticText.sentence(12, 30, random), c < mainCharacters ? 1 : 0,
+                    episodeBase[show] + first + 1, SyntheticText.status(random), ordinals[first]);
+        }
+        for (Object[] link : links) {
+            out.add("character_episodes", link);
+        }
+
+        for (int q = 0; q < quotes[show]; q++) {
+            int c = Popularity.zipfRank(characterCount, 1.2, random);
+            IntList seen = appearances.get(c);
+            int e = seen.values[random.nextInt(seen.size)];
+            int likes = Popularity.heavyTail(1.3, 100_000, random);
+            out.add("quotes", quoteBase[show] + q + 1, showId, characterBase[show] + c + 1, episodeBase[show] + e + 1,
+                    SyntheticText.sentence(4, 18, random), random.nextInt(4) == 0 ? SyntheticText.sentence(6, 14, random) : null,
+                    likes >= 500 ? 1 : 0, likes, ordinals[e]);
+        }
+        out.flush();
+    }
+
+    private void generateUsers(int chunk) throws InterruptedException {
+        Random random = new Random(~options.seed() * 1_000_003L + chunk);
+        Batcher out = new Batcher();
+        int from = chunk * USERS_PER_UNIT;
+        int to = Math.min(options.scale().users(), from + USERS_PER_UNIT);
+        Set<Long> favorites = new HashSet<>();
+        for (int u = from; u < to; u++) {
+            long userId = userBase + u + 1;
+            out.add("users", userId, "fan" + (u + 1) + "@example.com", passwordHash, "fan" + (u + 1),
+                    SyntheticText.personName(random), "user");
+            // Exponential count around the mean; picks follow show and character popularity
+            int count = (int) Math.round(-Math.log(1 - random.nextDouble()) * options.favoritesPerUser());
+            for (int f = 0; f < count * 2 && favorites.size() < count; f++) {
+                int show = showPopularity.sample(random);
+                long characterId = characterBase[show] + Popularity.zipfRank(characters[show], 1.0, random) + 1;
+                if (favorites.add(characterId)) {
+                    out.add("user_favorites", userId, characterId);
+                }
+            }
+            favorites.clear();
+        }
+        out.flush();
+    }
+
+    /** Collects one generator's rows per table and hands them to the writer in batches. */
+    private final class Batcher {
+        private final Map<String, List<Object[]>> pending = new LinkedHashMap<>();
+
+        void add(String table, Object... row) throws InterruptedException {
+            List<Object[]> rows = pending.computeIfAbsent(table, t -> new ArrayList<>(BATCH_ROWS));
+            rows.add(row);
+            if (rows.size() >= BATCH_ROWS) {
+                flush();
+            }
+        }
+
+        // Everything pending goes out in first-use order, so parent rows never trail their children
+        void flush() throws InterruptedException {
+            for (Map.Entry<String, List<Object[]>> rows : pending.entrySet()) {
+                publish(rows.getKey(), rows.getValue());
+            }
+            pending.clear();
+        }
+
+        private void publish(String table, List<Object[]> rows) throws InterruptedException {
+            while (!queue.offer(new Rows(table, rows), 1, TimeUnit.SECONDS)) {
+                if (failure.get() != null) {
+                    throw new InterruptedException("writer failed");
+                }
+            }
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private int seasons(int show) {
+        return (episodes[show] + episodesPerSeason[show] - 1) / episodesPerSeason[show];
+    }
+
+    private static PreparedStatement prepare(Connection connection, String table) {
+        List<String> columns = COLUMNS.get(table);
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        try {
+            return connection.prepareStatement(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long maxId(JdbcTemplate jdbc, String table) {
+        Long max = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    private static int argMax(double[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static long seconds(long startNanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+    }
+}
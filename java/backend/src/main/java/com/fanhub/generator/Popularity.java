@@ -0,0 +1,103 @@
+package com.fanhub.generator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Skewed distributions for synthetic data: a few shows, characters and quotes get most
+ * of the attention, as on a real fan site.
+ */
+final class Popularity {
+
+    private final double[] cumulative;
+
+    private Popularity(double[] weights) {
+        cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+    }
+
+    /** Samples indexes in proportion to {@code weights}. */
+    static Popularity of(double[] weights) {
+        return new Popularity(weights);
+    }
+
+    int sample(Random random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int i = Arrays.binarySearch(cumulative, target);
+        return Math.min(cumulative.length - 1, i >= 0 ? i + 1 : -i - 1);
+    }
+
+    /** Zipf weights {@code 1 / rank^exponent}, assigned to positions in a random order. */
+    static double[] zipfWeights(int n, double exponent, Random random) {
+        double[] weights = new double[n];
+        for (int rank = 1; rank <= n; rank++) {
+            weights[rank - 1] = 1 / Math.pow(rank, exponent);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            double t = weights[i];
+            weights[i] = weights[j];
+            weights[j] = t;
+        }
+        return weights;
+    }
+
+    /**
+     * Splits {@code total} into {@code weights.length} parts in proportion to
+     * {@code weights^damping}, each at least {@code min}; the parts add up to
+     * {@code max(total, min * n)}.
+     */
+    static int[] allocate(long total, double[] weights, double damping, int min) {
+        int n = weights.length;
+        long spare = Math.max(0, total - (long) min * n);
+        double[] damped = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            damped[i] = Math.pow(weights[i], damping);
+            sum += damped[i];
+        }
+        int[] parts = new int[n];
+        double[] remainders = new double[n];
+        long assigned = 0;
+        for (int i = 0; i < n; i++) {
+            double exact = spare * damped[i] / sum;
+            parts[i] = min + (int) exact;
+            remainders[i] = exact - Math.floor(exact);
+            assigned += (int) exact;
+        }
+        // Largest remainders get the leftover units
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(remainders[b], remainders[a]));
+        for (int k = 0; assigned < spare; k++, assigned++) {
+            parts[order[k % n]]++;
+        }
+        return parts;
+    }
+
+    /** Zipf-distributed rank in {@code [0, n)}; rank 0 is the most popular. */
+    static int zipfRank(int n, double exponent, Random random) {
+        if (n <= 1) {
+            return 0;
+        }
+        // Inverse CDF of the continuous approximation
+        double u = random.nextDouble();
+        double oneMinusS = 1 - exponent;
+        double rank = Math.abs(oneMinusS) < 1e-9
+                ? Math.exp(u * Math.log(n + 1))
+                : Math.pow(u * (Math.pow(n + 1, oneMinusS) - 1) + 1, 1 / oneMinusS);
+        return Math.min(n - 1, Math.max(0, (int) rank - 1));
+    }
+
+    /** Heavy-tailed count (Pareto with shape {@code alpha}), e.g. likes per quote. */
+    static int heavyTail(double alpha, int cap, Random random) {
+        double value = Math.pow(1 - random.nextDouble(), -1 / alpha) - 1;
+        return (int) Math.min(cap, value);
+    }
+}
@@ -0,0 +1,78 @@
+package com.fanhub.generator;
+
+import java.util.Random;
+
+/** Plausible-looking titles, names and sentences; sizes roughly match the seed data. */
+final class SyntheticText {
+
+    private static final String[] ADJECTIVES = {
+            "Broken", "Silent", "Golden", "Hidden", "Last", "Crimson", "Distant", "Lost", "Wild", "Hollow",
+            "Burning", "Frozen", "Quiet", "Endless", "Bitter", "Bright", "Dark", "Fallen", "Secret", "Restless"};
+    private static final String[] NOUNS = {
+            "Kingdom", "Harbor", "Signal", "Empire", "Frontier", "Family", "Station", "Witness", "Garden", "Code",
+            "Valley", "Crown", "River", "Shadow", "Circuit", "Bargain", "Verdict", "Orbit", "Compass", "Ledger"};
+    private static final String[] GENRES = {
+            "Drama", "Crime Drama", "Comedy", "Science Fiction", "Fantasy", "Thriller", "Mystery", "Sitcom",
+            "Documentary", "Animation"};
+    private static final String[] NETWORKS = {"AMC", "HBO", "NBC", "CBS", "FX", "Netflix", "BBC", "Hulu", "ABC", "Showtime"};
+    private static final String[] FIRST_NAMES = {
+            "Alex", "Jordan", "Maria", "Sam", "Lena", "Victor", "Nina", "Omar", "Grace", "Hector", "Iris", "Jonah",
+            "Kara", "Leo", "Mona", "Nate", "Olive", "Pablo", "Quinn", "Rosa", "Saul", "Tess", "Uma", "Walt"};
+    private static final String[] LAST_NAMES = {
+            "Alvarez", "Brooks", "Chen", "Diaz", "Evans", "Fring", "Garcia", "Hughes", "Ibarra", "Jensen",
+            "Khan", "Lopez", "Morgan", "Novak", "Ortiz", "Patel", "Reyes", "Schrader", "Turner", "White"};
+    private static final String[] WORDS = {
+            "I", "you", "we", "never", "always", "know", "what", "this", "is", "the", "only", "way", "out",
+            "trust", "me", "nobody", "gets", "hurt", "if", "they", "just", "listen", "it", "was", "not",
+            "about", "money", "family", "time", "truth", "danger", "deal", "done", "tonight", "tomorrow",
+            "everything", "changes", "now", "remember", "who", "am", "say", "my", "name", "keep", "going"};
+    private static final String[] STATUSES = {"Alive", "Alive", "Alive", "Deceased", "Unknown"};
+
+    private SyntheticText() {
+    }
+
+    static String showTitle(int index, Random random) {
+        return "The " + pick(ADJECTIVES, random) + " " + pick(NOUNS, random) + " " + (index + 1);
+    }
+
+    static String episodeTitle(Random random) {
+        return random.nextBoolean()
+                ? pick(ADJECTIVES, random) + " " + pick(NOUNS, random)
+                : pick(NOUNS, random) + " of the " + pick(NOUNS, random);
+    }
+
+    static String personName(Random random) {
+        return pick(FIRST_NAMES, random) + " " + pick(LAST_NAMES, random);
+    }
+
+    static String genre(Random random) {
+        return pick(GENRES, random);
+    }
+
+    static String network(Random random) {
+        return pick(NETWORKS, random);
+    }
+
+    static String status(Random random) {
+        return pick(STATUSES, random);
+    }
+
+    /** A sentence of {@code min}..{@code max} words. */
+    static String sentence(int min, int max, Random random) {
+        int words = min + random.nextInt(max - min + 1);
+        StringBuilder text = new StringBuilder(words * 6);
+        for (int i = 0; i < words; i++) {
+            String word = pick(WORDS, random);
+            if (i == 0) {
+                text.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                text.append(' ').append(word);
+            }
+        }
+        return text.append(random.nextInt(4) == 0 ? '!' : '.').toString();
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+}
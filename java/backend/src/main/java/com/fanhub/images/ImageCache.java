@@ -0,0 +1,200 @@
+package com.fanhub.images;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded directory of generated image variants, evicted least recently used first.
+ *
+ * Only names and sizes are kept in memory. The access order survives a restart
+ * approximately: entries are reloaded oldest-modified first, and a hit refreshes the
+ * file's modification time at most once per {@link #TOUCH_INTERVAL_MS}.
+ *
+ * An evicted file is dropped from the index at once but only deleted after a grace
+ * period: a request may already hold its path for Tomcat's sendfile, which opens the
+ * file only after the controller has returned.
+ */
+class ImageCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageCache.class);
+
+    static final String TEMP_SUFFIX = ".tmp";
+    private static final long TOUCH_INTERVAL_MS = 3_600_000;
+    static final long DELETE_GRACE_MS = 60_000;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long deleteGraceMs;
+
+    // Access-ordered: the first entry is the least recently used. Guarded by this.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    // Evicted names and when, oldest first, waiting out the grace period. Guarded by this.
+    private final LinkedHashMap<String, Long> evicted = new LinkedHashMap<>();
+
+    private static final class Entry {
+        final long size;
+        long touchedAt;
+
+        Entry(long size, long touchedAt) {
+            this.size = size;
+            this.touchedAt = touchedAt;
+        }
+    }
+
+    ImageCache(Path directory, long maxBytes) {
+        this(directory, maxBytes, DELETE_GRACE_MS);
+    }
+
+    ImageCache(Path directory, long maxBytes, long deleteGraceMs) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.deleteGraceMs = deleteGraceMs;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(Files::isRegularFile).toList();
+            }
+            synchronized (this) {
+                for (Path file : files.stream().sorted(Comparator.comparing(ImageCache::modifiedAt)).toList()) {
+                    if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                        // Left behind by a crash mid-resize
+                        deleteQuietly(file);
+                        continue;
+                    }
+                    long size = Files.size(file);
+                    entries.put(file.getFileName().toString(), new Entry(size, modifiedAt(file).toMillis()));
+                    totalBytes += size;
+                }
+                evict();
+                // Nothing is being sent yet
+                deleteEvicted(Long.MAX_VALUE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot use image cache directory " + directory, e);
+        }
+        log.info("Image cache {}: {} variants, {} KB of {} KB", directory, entries.size(),
+                totalBytes / 1024, maxBytes / 1024);
+    }
+
+    /** The cached file for {@code name}, or null on a miss. */
+    Path get(String name) {
+        Entry entry;
+        boolean touch;
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            entry = entries.get(name);
+            if (entry == null) {
+                return null;
+            }
+            touch = now - entry.touchedAt > TOUCH_INTERVAL_MS;
+            if (touch) {
+                entry.touchedAt = now;
+            }
+        }
+        Path file = directory.resolve(name);
+        if (touch) {
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+            } catch (IOException e) {
+                // Evicted or removed by hand; the caller regenerates it
+                forget(name);
+                return null;
+            }
+        }
+        return file;
+    }
+
+    /** A fresh temp file in the cache directory for a variant being generated. */
+    Path newTempFile() throws IOException {
+        return Files.createTempFile(directory, "variant-", TEMP_SUFFIX);
+    }
+
+    /** Publishes a finished temp file as {@code name} and evicts to stay within the size limit. */
+    Path put(String name, Path temp) throws IOException {
+        Path file = directory.resolve(name);
+        synchronized (this) {
+            // Regenerated within the grace period; the new file must not be deleted
+            evicted.remove(name);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        long size = Files.size(file);
+        synchronized (this) {
+            Entry previous = entries.put(name, new Entry(size, System.currentTimeMillis()));
+            totalBytes += size - (previous == null ? 0 : previous.size);
+            evict();
+            deleteEvicted(System.currentTimeMillis() - deleteGraceMs);
+        }
+        return file;
+    }
+
+    synchronized void forget(String name) {
+        Entry entry = entries.remove(name);
+        if (entry != null) {
+            totalBytes -= entry.size;
+        }
+    }
+
+    synchronized Map<String, Object> stats() {
+        return Map.of("variants", entries.size(), "bytes", totalBytes, "maxBytes", maxBytes,
+                "pendingDeletes", evicted.size());
+    }
+
+    // Keeps at least the newest entry even if it alone exceeds the limit
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        long now = System.currentTimeMillis();
+        while (totalBytes > maxBytes && entries.size() > 1 && eldest.hasNext()) {
+            Map.Entry<String, Entry> victim = eldest.next();
+            eldest.remove();
+            totalBytes -= victim.getValue().size;
+            evicted.remove(victim.getKey());
+            evicted.put(victim.getKey(), now);
+        }
+    }
+
+    // Deletes files evicted at or before the cutoff. Once opened by a sender, a file
+    // keeps streaming after unlink on POSIX systems.
+    private void deleteEvicted(long cutoff) {
+        Iterator<Map.Entry<String, Long>> oldest = evicted.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, Long> victim = oldest.next();
+            if (victim.getValue() > cutoff) {
+                break;
+            }
+            oldest.remove();
+            deleteQuietly(directory.resolve(victim.getKey()));
+        }
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete {}", file, e);
+            return false;
+        }
+    }
+
+    private static FileTime modifiedAt(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.fanhub.images;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/** Whose image is requested; the path segment in {@code /api/images/{kind}/{id}}. */
+public enum ImageKind {
+    CHARACTER("character"),
+    SHOW("show"),
+    EPISODE("episode");
+
+    private final String key;
+
+    ImageKind(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public static ImageKind fromKey(String key) {
+        for (ImageKind kind : values()) {
+            if (kind.key.equals(key)) {
+                return kind;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown image kind: " + key);
+    }
+}
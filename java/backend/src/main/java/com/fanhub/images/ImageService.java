@@ -0,0 +1,340 @@
+package com.fanhub.images;
+
+import com.fanhub.catalog.CatalogService;
+import com.fanhub.catalog.CatalogSnapshot;
+import com.fanhub.model.Character;
+import com.fanhub.model.Episode;
+import com.fanhub.model.Show;
+import com.fanhub.repository.CharacterRepository;
+import com.fanhub.repository.EpisodeRepository;
+import com.fanhub.repository.ShowRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Finds the file behind a character, show or episode image and its resized variants.
+ *
+ * Image URLs stored on the entities ({@code /images/characters/walter-white.jpg}) are
+ * resolved against {@code fanhub.images.dir}. A {@code ?w=} request is rounded up to
+ * the next configured width bucket and encoded once, on a small dedicated pool, into
+ * the {@link ImageCache}; later requests for the same variant are plain file hits.
+ * Variant names include the source's size and modification time, so replacing an
+ * original produces new variants and the stale ones age out of the cache.
+ *
+ * WebP is produced only when an ImageIO WebP writer is on the classpath and the client
+ * accepts it; otherwise variants keep the source's family (JPEG, or PNG for PNG/GIF
+ * sources so transparency survives).
+ */
+@Service
+public class ImageService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageService.class);
+
+    private static final String WEBP = "image/webp";
+    private static final String JPEG = "image/jpeg";
+    private static final String PNG = "image/png";
+    private static final Map<String, String> EXTENSIONS = Map.of(WEBP, "webp", JPEG, "jpg", PNG, "png");
+
+    /** A file ready to be sent: an original or a cached variant. */
+    public record ImageFile(Path path, String contentType, long length, long lastModified, String etag,
+                            boolean negotiated) {}
+
+    private final CatalogService catalogService;
+    private final CharacterRepository characterRepository;
+    private final ShowRepository showRepository;
+    private final EpisodeRepository episodeRepository;
+    private final Path assetDirectory;
+    private final int[] widths;
+    private final float jpegQuality;
+    private final boolean webpAvailable;
+    private final ImageCache cache;
+
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService resizePool;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+
+    public ImageService(CatalogService catalogService,
+                        CharacterRepository characterRepository,
+                        ShowRepository showRepository,
+                        EpisodeRepository episodeRepository,
+                        @Value("${fanhub.images.dir:../frontend/public}") String assetDirectory,
+                        @Value("${fanhub.images.cache-dir:./image-cache}") String cacheDirectory,
+                        @Value("${fanhub.images.cache-max-mb:256}") long cacheMaxMb,
+                        @Value("${fanhub.images.widths:160,320,640,1280}") int[] widths,
+                        @Value("${fanhub.images.jpeg-quality:0.82}") float jpegQuality,
+                        @Value("${fanhub.images.resize-threads:2}") int resizeThreads) {
+        this.catalogService = catalogService;
+        this.characterRepository = characterRepository;
+        this.showRepository = showRepository;
+        this.episodeRepository = episodeRepository;
+        this.assetDirectory = Path.of(assetDirectory).toAbsolutePath().normalize();
+        this.widths = Arrays.stream(widths).filter(w -> w > 0).sorted().distinct().toArray();
+        if (this.widths.length == 0) {
+            throw new IllegalArgumentException("fanhub.images.widths needs at least one positive width");
+        }
+        this.jpegQuality = jpegQuality;
+        this.webpAvailable = ImageIO.getImageWritersByMIMEType(WEBP).hasNext();
+        this.cache = new ImageCache(Path.of(cacheDirectory).toAbsolutePath().normalize(), cacheMaxMb * 1024 * 1024);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.resizePool = Executors.newFixedThreadPool(resizeThreads, r -> {
+            Thread t = new Thread(r, "image-resize-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * The file to send for {@code kind}/{@code id}: the original when {@code width} is null,
+     * otherwise the variant for its width bucket in the best format {@code accept} allows.
+     */
+    public ImageFile resolve(ImageKind kind, Long id, Integer width, String accept) {
+        Path source = sourceFile(kind, id);
+        BasicFileAttributes attributes = attributes(source);
+        if (width == null) {
+            return describe(source, contentTypeOf(source), attributes, false);
+        }
+        if (width <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "w must be positive");
+        }
+        int bucket = bucketFor(width);
+        boolean webp = webpAvailable && accept != null && accept.contains(WEBP);
+        String format = webp ? WEBP : contentTypeOf(source).equals(JPEG) ? JPEG : PNG;
+        String name = variantName(kind, id, bucket, format, source, attributes);
+
+        Path cached = cache.get(name);
+        if (cached != null) {
+            try {
+                BasicFileAttributes variant = Files.readAttributes(cached, BasicFileAttributes.class);
+                hits.increment();
+                return describe(cached, contentTypeOf(cached), variant, true);
+            } catch (IOException e) {
+                // Removed behind the cache's back; rebuild it below
+                cache.forget(name);
+            }
+        }
+        cached = generate(name, source, bucket, format);
+        return describe(cached, contentTypeOf(cached), attributes(cached), true);
+    }
+
+    /** Drops a variant that vanished between lookup and send, so the next resolve rebuilds it. */
+    public void forget(ImageFile image) {
+        cache.forget(image.path().getFileName().toString());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(cache.stats());
+        stats.put("hits", hits.sum());
+        stats.put("generated", generated.sum());
+        stats.put("inFlight", inFlight.size());
+        stats.put("webp", webpAvailable);
+        return stats;
+    }
+
+    int bucketFor(int width) {
+        for (int bucket : widths) {
+            if (bucket >= width) {
+                return bucket;
+            }
+        }
+        return widths[widths.length - 1];
+    }
+
+    private Path sourceFile(ImageKind kind, Long id) {
+        String url = switch (kind) {
+            case CHARACTER -> lookup(id, CatalogSnapshot::character, characterRepository::findById, Character::getImageUrl);
+            case SHOW -> lookup(id, CatalogSnapshot::show, showRepository::findById, Show::getPosterUrl);
+            case EPISODE -> lookup(id, CatalogSnapshot::episode, episodeRepository::findById, Episode::getThumbnailUrl);
+        };
+        if (url == null || url.isBlank() || url.contains("://")) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No local image for " + kind.key() + " " + id);
+        }
+        Path file = assetDirectory.resolve(url.replaceFirst("^/+", "")).normalize();
+        if (!file.startsWith(assetDirectory) || !Files.isRegularFile(file)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Image file missing for " + kind.key() + " " + id);
+        }
+        return file;
+    }
+
+    private <T> String lookup(Long id, BiFunction<CatalogSnapshot, Long, T> fromSnapshot,
+                              Function<Long, Optional<T>> fromRepository, Function<T, String> url) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        Optional<T> row = snapshot != null
+                ? Optional.ofNullable(fromSnapshot.apply(snapshot, id))
+                : fromRepository.apply(id);
+        return row.map(url).orElseThrow(() ->
+                new ResponseStatusException(HttpStatus.NOT_FOUND, "Not found: " + id));
+    }
+
+    // One encode per variant even when many requests miss at once
+    private Path generate(String name, Path source, int width, String format) {
+        CompletableFuture<Path> future = inFlight.computeIfAbsent(name, key ->
+                CompletableFuture.supplyAsync(() -> encode(key, source, width, format), resizePool)
+                        .whenComplete((path, error) -> inFlight.remove(key)));
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Path encode(String name, Path source, int width, String format) {
+        long start = System.nanoTime();
+        Path temp = null;
+        try {
+            BufferedImage original = ImageIO.read(source.toFile());
+            if (original == null) {
+                throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Not a readable image: " + source.getFileName());
+            }
+            BufferedImage resized = resize(original, Math.min(width, original.getWidth()), format.equals(JPEG));
+            temp = cache.newTempFile();
+            write(resized, format, temp);
+            Path file = cache.put(name, temp);
+            generated.increment();
+            log.debug("Generated {} ({}x{}) in {} ms", name, resized.getWidth(), resized.getHeight(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not resize " + source, e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Cleaned up on the next start
+                }
+            }
+        }
+    }
+
+    // Halves first so large reductions stay sharp with bilinear filtering
+    private static BufferedImage resize(BufferedImage image, int width, boolean opaque) {
+        int targetHeight = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            if (w / 2 >= width) {
+                w /= 2;
+                h = Math.max(1, h / 2);
+            } else {
+                w = width;
+                h = targetHeight;
+            }
+            BufferedImage next = new BufferedImage(w, h, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (opaque) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, w, h);
+                }
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != width || h != targetHeight);
+        return current;
+    }
+
+    private void write(BufferedImage image, String contentType, Path file) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(contentType);
+        if (!writers.hasNext()) {
+            throw new IOException("No ImageIO writer for " + contentType);
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!contentType.equals(PNG) && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionType() == null && param.getCompressionTypes().length > 0) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(jpegQuality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String variantName(ImageKind kind, Long id, int width, String format, Path source,
+                                      BasicFileAttributes attributes) {
+        String fingerprint = source + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis()
+                + "|" + width + "|" + format;
+        String hash = UUID.nameUUIDFromBytes(fingerprint.getBytes(StandardCharsets.UTF_8)).toString()
+                .replace("-", "").substring(0, 16);
+        return kind.key() + "-" + id + "-w" + width + "-" + hash + "." + EXTENSIONS.get(format);
+    }
+
+    private static ImageFile describe(Path file, String contentType, BasicFileAttributes attributes, boolean negotiated) {
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified)
+                + "-" + Integer.toHexString(file.getFileName().toString().hashCode()) + "\"";
+        return new ImageFile(file, contentType, attributes.size(), lastModified, etag, negotiated);
+    }
+
+    private static BasicFileAttributes attributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String contentTypeOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".webp")) return WEBP;
+        if (name.endsWith(".png")) return PNG;
+        if (name.endsWith(".gif")) return "image/gif";
+        if (name.endsWith(".svg")) return "image/svg+xml";
+        return JPEG;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        resizePool.shutdownNow();
+    }
+}
@@ -2,6 +2,8 @@ package com.fanhub.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 import java.time.LocalDateTime;
 
@@ -43,4 +45,14 @@ public class Character {
     
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+    
+    // Written only by the database: merge patches bump it, a trigger bumps it on full updates.
+    // @Generated re-reads it after every insert and update, so responses carry the new value
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
+    @Column(insertable = false, updatable = false)
+    private Long version;
+    
+    // Watch-order position of the first appearance, derived by database triggers
+    @Column(name = "first_appearance_ordinal", insertable = false, updatable = false)
+    private Long firstAppearanceOrdinal;
 }
@@ -3,6 +3,8 @@ package com.fanhub.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -54,4 +56,14 @@ public class Episode {
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Written only by the database: merge patches bump it, a trigger bumps it on full updates.
+    // @Generated re-reads it after every insert and update, so responses carry the new value
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
+    @Column(insertable = false, updatable = false)
+    private Long version;
+
+    // Watch-order position (see EpisodeOrdinal), derived by database triggers
+    @Column(name = "episode_ordinal", insertable = false, updatable = false)
+    private Long episodeOrdinal;
 }
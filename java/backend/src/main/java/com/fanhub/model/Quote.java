@@ -36,4 +36,8 @@ public class Quote {
     
     @Column(name = "created_at")
     private LocalDateTime createdAt;
+    
+    // Watch-order position of the quote's episode, derived by database triggers
+    @Column(name = "episode_ordinal", insertable = false, updatable = false)
+    private Long episodeOrdinal;
 }
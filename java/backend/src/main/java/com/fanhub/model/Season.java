@@ -0,0 +1,34 @@
+package com.fanhub.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "seasons")
+public class Season {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "show_id")
+    private Long showId;
+    
+    @Column(name = "season_number", nullable = false)
+    private Integer seasonNumber;
+    
+    private String title;
+    
+    @Column(name = "episode_count")
+    private Integer episodeCount;
+    
+    @Column(name = "air_date")
+    private LocalDate airDate;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
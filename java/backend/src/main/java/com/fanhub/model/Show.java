@@ -1,6 +1,9 @@
 package com.fanhub.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
+
 import java.time.LocalDateTime;
 
 // INTENTIONAL BUG: Not using Lombok while other entities do (inconsistency)
@@ -37,6 +40,12 @@ public class Show {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Written only by the database: merge patches bump it, a trigger bumps it on full updates.
+    // @Generated re-reads it after every insert and update, so responses carry the new value
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
+    @Column(insertable = false, updatable = false)
+    private Long version;
+    
     // INTENTIONAL BUG: Manual getters/setters instead of Lombok
     public Long getId() {
         return id;
@@ -117,4 +126,12 @@ public class Show {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -2,14 +2,30 @@ package com.fanhub.repository;
 
 import com.fanhub.model.Character;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 // INTENTIONAL BUG: Missing @Repository annotation (inconsistent with ShowRepository)
+@Transactional(readOnly = true)
 public interface CharacterRepository extends JpaRepository<Character, Long> {
     
     List<Character> findByShowId(Long showId);
     
+    List<Character> findByShowIdIn(Collection<Long> showIds);
+    
+    // ?upTo= filter: characters whose first appearance is at or before the given ordinal
+    List<Character> findByShowIdAndFirstAppearanceOrdinalLessThanEqual(Long showId, Long maxOrdinal);
+    
+    // Characters whose first_appearance_ordinal is derived from any of these episodes
+    @Query(value = "SELECT * FROM characters WHERE first_appearance IN (:episodeIds)"
+                 + " OR id IN (SELECT character_id FROM character_episodes WHERE episode_id IN (:episodeIds))",
+           nativeQuery = true)
+    List<Character> findByAppearanceIn(@Param("episodeIds") Collection<Long> episodeIds);
+    
     // INTENTIONAL BUG: Method that could cause issues with duplicate Jesse Pinkman
     // Should use unique constraint or handle duplicates
     Character findByName(String name);
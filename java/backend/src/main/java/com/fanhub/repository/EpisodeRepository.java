@@ -2,15 +2,34 @@ package com.fanhub.repository;
 
 import com.fanhub.model.Episode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
+@Transactional(readOnly = true)
 public interface EpisodeRepository extends JpaRepository<Episode, Long> {
     
     List<Episode> findByShowId(Long showId);
     
     // INTENTIONAL BUG: Missing index on season_id, could cause N+1 query issues
     List<Episode> findBySeasonId(Long seasonId);
+    
+    List<Episode> findByShowIdIn(Collection<Long> showIds);
+    
+    List<Episode> findBySeasonIdIn(Collection<Long> seasonIds);
+    
+    // ?upTo= filters: one range on the trigger-maintained ordinal (see EpisodeOrdinal)
+    List<Episode> findByShowIdAndEpisodeOrdinalLessThanEqual(Long showId, Long maxOrdinal);
+    
+    List<Episode> findBySeasonIdAndEpisodeOrdinalLessThanEqual(Long seasonId, Long maxOrdinal);
+    
+    // Rows of [character_id, episode_id]; character_episodes has no entity of its own
+    @Query(value = "SELECT character_id, episode_id FROM character_episodes WHERE character_id IN (:characterIds)",
+           nativeQuery = true)
+    List<Object[]> findAppearancesByCharacterIds(@Param("characterIds") Collection<Long> characterIds);
 }
@@ -2,14 +2,37 @@ package com.fanhub.repository;
 
 import com.fanhub.model.Quote;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
+@Transactional(readOnly = true)
 public interface QuoteRepository extends JpaRepository<Quote, Long> {
     
     List<Quote> findByCharacterId(Long characterId);
     
     List<Quote> findByShowId(Long showId);
+    
+    List<Quote> findByCharacterIdIn(Collection<Long> characterIds);
+    
+    List<Quote> findByEpisodeIdIn(Collection<Long> episodeIds);
+    
+    // ?upTo= filters: quotes from episodes at or before the given ordinal
+    List<Quote> findByShowIdAndEpisodeOrdinalLessThanEqual(Long showId, Long maxOrdinal);
+    
+    List<Quote> findByCharacterIdAndEpisodeOrdinalLessThanEqual(Long characterId, Long maxOrdinal);
+    
+    // Top quotes per show by likes, for all requested shows in one statement
+    @Query(value = "SELECT id, show_id, character_id, episode_id, quote_text, context, is_famous, likes_count, created_at, "
+                 + "episode_ordinal "
+                 + "FROM (SELECT q.*, ROW_NUMBER() OVER (PARTITION BY q.show_id ORDER BY q.likes_count DESC, q.id) AS rn "
+                 + "      FROM quotes q WHERE q.show_id IN (:showIds)) "
+                 + "WHERE rn <= :perShow",
+           nativeQuery = true)
+    List<Quote> findTopByShowIds(@Param("showIds") Collection<Long> showIds, @Param("perShow") int perShow);
 }
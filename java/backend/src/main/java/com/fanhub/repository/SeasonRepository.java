@@ -0,0 +1,18 @@
+package com.fanhub.repository;
+
+import com.fanhub.model.Season;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@Transactional(readOnly = true)
+public interface SeasonRepository extends JpaRepository<Season, Long> {
+    
+    List<Season> findByShowId(Long showId);
+    
+    List<Season> findByShowIdIn(Collection<Long> showIds);
+}
@@ -3,8 +3,10 @@ package com.fanhub.repository;
 import com.fanhub.model.Show;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface ShowRepository extends JpaRepository<Show, Long> {
     // INTENTIONAL BUG: No additional methods defined
 }
@@ -2,10 +2,12 @@ package com.fanhub.repository;
 
 import com.fanhub.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 // INTENTIONAL BUG: Missing @Repository (inconsistency)
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
     
     Optional<User> findByEmail(String email);
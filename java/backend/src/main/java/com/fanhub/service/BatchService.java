@@ -0,0 +1,229 @@
+package com.fanhub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs several read-only API calls for one client request.
+ *
+ * Each sub-request is dispatched in-process by the {@link InProcessDispatcher}, so it
+ * sees the same interceptors, controllers and error handling as a direct call. No request
+ * thread or socket is taken per sub-request, so a burst of batches cannot starve the
+ * server of threads for its own sub-requests. The sub-requests run in parallel on a small pool; the client
+ * pays for one round trip instead of many.
+ *
+ * The timeout counts from the moment a sub-request starts running, not from when it
+ * was queued behind other batches. A sub-request that runs out of time is answered with
+ * a 504 and its thread is interrupted. The queue is bounded: once it is full, further
+ * sub-requests are answered with a 503 instead of waiting.
+ */
+@Service
+public class BatchService {
+
+    public static final int MAX_REQUESTS = 50;
+
+    private final InProcessDispatcher dispatcher;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor timeouts;
+
+    public BatchService(InProcessDispatcher dispatcher,
+                        ObjectMapper objectMapper,
+                        @Value("${fanhub.batch.parallelism:8}") int parallelism,
+                        @Value("${fanhub.batch.queue-capacity:200}") int queueCapacity,
+                        @Value("${fanhub.batch.timeout-ms:5000}") long timeoutMs) {
+        this.dispatcher = dispatcher;
+        this.objectMapper = objectMapper;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "batch-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.timeouts = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "batch-timeout");
+            t.setDaemon(true);
+            return t;
+        });
+        this.timeouts.setRemoveOnCancelPolicy(true);
+    }
+
+    public List<Map<String, Object>> execute(List<String> paths, HttpServletRequest caller) {
+        if (paths == null || paths.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No requests given");
+        }
+        if (paths.size() > MAX_REQUESTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_REQUESTS + " requests per batch");
+        }
+        for (String path : paths) {
+            validate(path);
+        }
+        // Read on the caller's thread; the sub-requests never touch the container request
+        InProcessDispatcher.Origin origin = InProcessDispatcher.Origin.of(caller);
+        String authorization = caller.getHeader(HttpHeaders.AUTHORIZATION);
+
+        List<FutureTask<Map<String, Object>>> tasks = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            FutureTask<Map<String, Object>> task = new FutureTask<>(() -> dispatch(path, origin, authorization));
+            try {
+                executor.execute(() -> runWithTimeout(task));
+                tasks.add(task);
+            } catch (RejectedExecutionException e) {
+                FutureTask<Map<String, Object>> rejected = new FutureTask<>(
+                        () -> toResult(path, 503, Map.of("error", "Too many batch requests queued")));
+                rejected.run();
+                tasks.add(rejected);
+            }
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            results.add(await(paths.get(i), tasks.get(i)));
+        }
+        return results;
+    }
+
+    // The clock starts here, when a pool thread picks the sub-request up
+    private void runWithTimeout(FutureTask<Map<String, Object>> task) {
+        ScheduledFuture<?> timer = timeouts.schedule(() -> task.cancel(true), timeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            task.run();
+        } finally {
+            timer.cancel(false);
+        }
+    }
+
+    private Map<String, Object> await(String path, FutureTask<Map<String, Object>> task) {
+        try {
+            return task.get();
+        } catch (CancellationException e) {
+            return toResult(path, 504, Map.of("error", "No response within " + timeoutMs + " ms"));
+        } catch (ExecutionException e) {
+            return toResult(path, 500, Map.of("error", rootMessage(e)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.cancel(true);
+            return toResult(path, 503, Map.of("error", "Batch interrupted"));
+        }
+    }
+
+    private static void validate(String path) {
+        if (path == null || !path.startsWith("/") || path.contains("..")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported batch path: " + path);
+        }
+        URI uri;
+        try {
+            uri = new URI(path);
+        } catch (URISyntaxException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed batch path: " + path);
+        }
+        // Only plain API reads; no nesting batches and no long-lived streams. Checked against
+        // the path as handler mapping sees it, so encoded or doubled characters cannot hide a prefix.
+        String normalized = normalize(uri.getRawPath(), path);
+        if (!normalized.startsWith("/api/") || isUnder(normalized, "/api/batch") || isUnder(normalized, "/api/changes")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported batch path: " + path);
+        }
+    }
+
+    // Drops ;parameters and decodes each segment, as path matching does. Doubled slashes are
+    // refused rather than merged: the security firewall would reject them after dispatch anyway.
+    private static String normalize(String rawPath, String path) {
+        String[] segments = rawPath.split("/");
+        StringBuilder normalized = new StringBuilder();
+        for (int i = 1; i < segments.length; i++) {
+            String segment = segments[i];
+            int semicolon = segment.indexOf(';');
+            if (semicolon >= 0) {
+                segment = segment.substring(0, semicolon);
+            }
+            String decoded;
+            try {
+                decoded = UriUtils.decode(segment, StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed batch path: " + path);
+            }
+            if (decoded.isEmpty() || decoded.equals(".") || decoded.equals("..")
+                    || decoded.contains("/") || decoded.contains("\\")) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported batch path: " + path);
+            }
+            normalized.append('/').append(decoded);
+        }
+        return rawPath.endsWith("/") ? normalized.append('/').toString() : normalized.toString();
+    }
+
+    private static boolean isUnder(String path, String prefix) {
+        return path.equals(prefix) || path.startsWith(prefix + "/");
+    }
+
+    private Map<String, Object> dispatch(String path, InProcessDispatcher.Origin origin, String authorization) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(HttpHeaders.ACCEPT, "application/json");
+        if (authorization != null) {
+            headers.put(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        InProcessDispatcher.Response response = dispatcher.get(path, origin, headers);
+        return toResult(path, response.status(), parse(response.body()));
+    }
+
+    private static Map<String, Object> toResult(String path, int status, Object body) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("path", path);
+        result.put("status", status);
+        result.put("body", body);
+        return result;
+    }
+
+    private Object parse(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        timeouts.shutdownNow();
+    }
+}
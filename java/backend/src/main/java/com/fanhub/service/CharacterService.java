@@ -1,11 +1,17 @@
 package com.fanhub.service;
 
+import com.fanhub.catalog.CatalogService;
+import com.fanhub.catalog.CatalogSnapshot;
+import com.fanhub.event.ChangeEvent;
 import com.fanhub.model.Character;
 import com.fanhub.repository.CharacterRepository;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.NoSuchElementException;
 
 @Service
 public class CharacterService {
@@ -14,20 +20,63 @@ public class CharacterService {
     @Autowired
     private CharacterRepository characterRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private CatalogService catalogService;
+    
+    @Autowired
+    private MergePatchService mergePatchService;
+    
     public List<Character> getAllCharacters() {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return snapshot.characters();
+        }
         // INTENTIONAL BUG: No pagination, returns all characters
         return characterRepository.findAll();
     }
     
     public Character getCharacterById(Long id) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            Character character = snapshot.character(id);
+            if (character == null) {
+                throw new NoSuchElementException("No value present");
+            }
+            return character;
+        }
         // INTENTIONAL BUG: Using .get() without checking isPresent()
         return characterRepository.findById(id).get();
     }
     
+    public List<Character> getCharactersByIds(List<Long> ids) {
+        List<Long> unique = MultiGet.distinct(ids);
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return MultiGet.fromIndex(unique, snapshot::character);
+        }
+        return MultiGet.inRequestOrder(unique, characterRepository.findAllById(unique), Character::getId);
+    }
+    
     public List<Character> getCharactersByShowId(Long showId) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return snapshot.charactersByShow(showId);
+        }
         return characterRepository.findByShowId(showId);
     }
     
+    /** Characters of a show who have appeared by {@code maxOrdinal}; unknown first appearances are left out. */
+    public List<Character> getCharactersByShowIdUpTo(Long showId, long maxOrdinal) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return EpisodeOrdinal.upTo(snapshot.charactersByShow(showId), Character::getFirstAppearanceOrdinal, maxOrdinal);
+        }
+        return characterRepository.findByShowIdAndFirstAppearanceOrdinalLessThanEqual(showId, maxOrdinal);
+    }
+    
     public List<Character> searchCharacters(String query) {
         // INTENTIONAL BUG: No null check on query parameter
         return characterRepository.findByNameContainingIgnoreCase(query);
@@ -36,17 +85,36 @@ public class CharacterService {
     public Character createCharacter(Character character) {
         // INTENTIONAL BUG: No validation that character doesn't already exist
         // This allows duplicate Jesse Pinkman!
-        return characterRepository.save(character);
+        Character saved = characterRepository.save(character);
+        eventPublisher.publishEvent(ChangeEvent.created("character", saved.getId(), saved.getShowId(), saved));
+        return saved;
+    }
+    
+    /** Full update; with {@code ifMatch} it is a compare-and-set on the version like a patch. */
+    public Character updateCharacter(Long id, Character character, String ifMatch) {
+        Character saved;
+        if (ifMatch != null) {
+            mergePatchService.replace(Character.class, id, character, ifMatch);
+            saved = characterRepository.findById(id).orElseThrow();
+        } else {
+            // INTENTIONAL BUG: No check if character exists before updating
+            character.setId(id);
+            saved = characterRepository.save(character);
+        }
+        eventPublisher.publishEvent(ChangeEvent.updated("character", saved.getId(), saved.getShowId(), saved));
+        return saved;
     }
     
-    public Character updateCharacter(Long id, Character character) {
-        // INTENTIONAL BUG: No check if character exists before updating
-        character.setId(id);
-        return characterRepository.save(character);
+    /** Applies a JSON merge patch and returns the character's new version. */
+    public long patchCharacter(Long id, JsonNode patch, String ifMatch) {
+        MergePatchService.Result result = mergePatchService.apply(Character.class, id, patch, ifMatch);
+        eventPublisher.publishEvent(ChangeEvent.updated("character", id, result.showId(), result.changes()));
+        return result.version();
     }
     
     public void deleteCharacter(Long id) {
         // INTENTIONAL BUG: No check if character exists before deleting
         characterRepository.deleteById(id);
+        eventPublisher.publishEvent(ChangeEvent.deleted("character", id));
     }
 }
@@ -0,0 +1,54 @@
+package com.fanhub.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Position of an episode in a show's watch order: {@code season_number * 1000 + episode_number}.
+ *
+ * The database keeps it denormalized on episodes, on quotes (their episode) and on
+ * characters (their first appearance), so "only up to S3E5" is a single range predicate
+ * on an indexed column instead of a join through seasons. Triggers maintain the columns;
+ * see {@link com.fanhub.config.SchemaMigrations}.
+ */
+public final class EpisodeOrdinal {
+
+    public static final int SEASON_STRIDE = 1000;
+
+    // S3E5, s03e05, or S3 for the whole season
+    private static final Pattern UP_TO = Pattern.compile("(?i)S(\\d{1,4})(?:E(\\d{1,3}))?");
+
+    private EpisodeOrdinal() {
+    }
+
+    public static long of(int seasonNumber, int episodeNumber) {
+        return (long) seasonNumber * SEASON_STRIDE + episodeNumber;
+    }
+
+    /** Snapshot-mode equivalent of the range query; rows without an ordinal are left out. */
+    public static <T> List<T> upTo(List<T> rows, Function<T, Long> ordinal, long maxOrdinal) {
+        return rows.stream()
+                .filter(row -> ordinal.apply(row) != null && ordinal.apply(row) <= maxOrdinal)
+                .toList();
+    }
+
+    /** Parses an {@code ?upTo=} value into the highest ordinal to include, or null if absent. */
+    public static Long parseUpTo(String upTo) {
+        if (upTo == null || upTo.isBlank()) {
+            return null;
+        }
+        Matcher m = UP_TO.matcher(upTo.trim());
+        if (!m.matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "upTo must look like S3E5 (or S3 for a whole season): " + upTo);
+        }
+        int season = Integer.parseInt(m.group(1));
+        int episode = m.group(2) == null ? SEASON_STRIDE - 1 : Integer.parseInt(m.group(2));
+        return of(season, episode);
+    }
+}
@@ -1,8 +1,13 @@
 package com.fanhub.service;
 
+import com.fanhub.catalog.CatalogService;
+import com.fanhub.catalog.CatalogSnapshot;
+import com.fanhub.event.ChangeEvent;
 import com.fanhub.model.Episode;
 import com.fanhub.repository.EpisodeRepository;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -12,39 +17,108 @@ import java.util.Optional;
 public class EpisodeService {
     
     private final EpisodeRepository episodeRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogService catalogService;
+    private final MergePatchService mergePatchService;
     
     // Using constructor injection here (inconsistent with CharacterService)
-    public EpisodeService(EpisodeRepository episodeRepository) {
+    public EpisodeService(EpisodeRepository episodeRepository, ApplicationEventPublisher eventPublisher,
+                          CatalogService catalogService, MergePatchService mergePatchService) {
         this.episodeRepository = episodeRepository;
+        this.eventPublisher = eventPublisher;
+        this.catalogService = catalogService;
+        this.mergePatchService = mergePatchService;
     }
     
     public List<Episode> getAllEpisodes() {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return snapshot.episodes();
+        }
         return episodeRepository.findAll();
     }
     
+    public List<Episode> getEpisodesByIds(List<Long> ids) {
+        List<Long> unique = MultiGet.distinct(ids);
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return MultiGet.fromIndex(unique, snapshot::episode);
+        }
+        return MultiGet.inRequestOrder(unique, episodeRepository.findAllById(unique), Episode::getId);
+    }
+    
     // INTENTIONAL BUG: Cache key doesn't include seasonId parameter
     // This mirrors the Node.js cache bug
-    @Cacheable(value = "episodes")
+    // Skipped in snapshot read mode: the snapshot is already in memory and kept current,
+    // while this cache is never evicted and would keep serving the first answer
+    @Cacheable(value = "episodes", condition = "!@catalogService.enabled")
     public List<Episode> getEpisodesBySeasonId(Long seasonId) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return snapshot.episodesBySeason(seasonId);
+        }
         return episodeRepository.findBySeasonId(seasonId);
     }
     
+    public List<Episode> getEpisodesByShowId(Long showId) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return snapshot.episodesByShow(showId);
+        }
+        return episodeRepository.findByShowId(showId);
+    }
+    
+    /** Episodes of a show or season up to and including {@code maxOrdinal} in watch order. */
+    public List<Episode> getEpisodesUpTo(Long showId, Long seasonId, long maxOrdinal) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            List<Episode> episodes = seasonId != null ? snapshot.episodesBySeason(seasonId) : snapshot.episodesByShow(showId);
+            return EpisodeOrdinal.upTo(episodes, Episode::getEpisodeOrdinal, maxOrdinal);
+        }
+        return seasonId != null
+                ? episodeRepository.findBySeasonIdAndEpisodeOrdinalLessThanEqual(seasonId, maxOrdinal)
+                : episodeRepository.findByShowIdAndEpisodeOrdinalLessThanEqual(showId, maxOrdinal);
+    }
+    
     public Optional<Episode> getEpisodeById(Long id) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return Optional.ofNullable(snapshot.episode(id));
+        }
         // This one correctly returns Optional (inconsistent approach)
         return episodeRepository.findById(id);
     }
     
     public Episode createEpisode(Episode episode) {
         // INTENTIONAL BUG: No validation
-        return episodeRepository.save(episode);
+        Episode saved = episodeRepository.save(episode);
+        eventPublisher.publishEvent(ChangeEvent.created("episode", saved.getId(), saved.getShowId(), saved));
+        return saved;
+    }
+    
+    /** Full update; with {@code ifMatch} it is a compare-and-set on the version like a patch. */
+    public Episode updateEpisode(Long id, Episode episode, String ifMatch) {
+        Episode saved;
+        if (ifMatch != null) {
+            mergePatchService.replace(Episode.class, id, episode, ifMatch);
+            saved = episodeRepository.findById(id).orElseThrow();
+        } else {
+            episode.setId(id);
+            saved = episodeRepository.save(episode);
+        }
+        eventPublisher.publishEvent(ChangeEvent.updated("episode", saved.getId(), saved.getShowId(), saved));
+        return saved;
     }
     
-    public Episode updateEpisode(Long id, Episode episode) {
-        episode.setId(id);
-        return episodeRepository.save(episode);
+    /** Applies a JSON merge patch and returns the episode's new version. */
+    public long patchEpisode(Long id, JsonNode patch, String ifMatch) {
+        MergePatchService.Result result = mergePatchService.apply(Episode.class, id, patch, ifMatch);
+        eventPublisher.publishEvent(ChangeEvent.updated("episode", id, result.showId(), result.changes()));
+        return result.version();
     }
     
     public void deleteEpisode(Long id) {
         episodeRepository.deleteById(id);
+        eventPublisher.publishEvent(ChangeEvent.deleted("episode", id));
     }
 }
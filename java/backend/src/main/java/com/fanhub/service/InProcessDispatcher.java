@@ -0,0 +1,88 @@
+package com.fanhub.service;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Answers a GET without a connection: a {@link SubRequest} goes through the security
+ * filter chain and the {@link DispatcherServlet}, so it sees the same interceptors,
+ * controllers and error handling as a call over the network. Errors are rendered by
+ * dispatching to {@code /error}, as the container would. No request thread or socket is
+ * taken, and the scheme, port and context path are the server's own, whatever its
+ * connector looks like.
+ *
+ * The servlet is not initialized through here; {@code spring.mvc.servlet.load-on-startup}
+ * makes the container do it at startup rather than on the first request over the network.
+ */
+@Component
+public class InProcessDispatcher {
+
+    /** Where a request came in, captured on its own thread. */
+    public record Origin(String scheme, String serverName, int serverPort, String remoteAddr) {
+
+        public static Origin of(HttpServletRequest request) {
+            return new Origin(request.getScheme(), request.getServerName(), request.getServerPort(),
+                    request.getRemoteAddr());
+        }
+    }
+
+    public record Response(int status, String contentType, byte[] body) {}
+
+    private final ServletContext servletContext;
+    private final Filter securityFilterChain;
+    private final DispatcherServlet dispatcherServlet;
+
+    public InProcessDispatcher(ServletContext servletContext,
+                               @Qualifier("springSecurityFilterChain") Filter securityFilterChain,
+                               DispatcherServlet dispatcherServlet) {
+        this.servletContext = servletContext;
+        this.securityFilterChain = securityFilterChain;
+        this.dispatcherServlet = dispatcherServlet;
+    }
+
+    /** Runs {@code path} (with its query) on the calling thread. */
+    public Response get(String path, Origin origin, Map<String, String> headers) {
+        URI uri = URI.create(path);
+        SubRequest request = new SubRequest(servletContext, origin, uri);
+        headers.forEach(request::addHeader);
+
+        SubResponse response = new SubResponse();
+        SubResponse rendered = response;
+        try {
+            securityFilterChain.doFilter(request, response, dispatcherServlet::service);
+            if (response.isErrorSent()) {
+                // sendError() only sets the status; the body comes from the error page
+                rendered = renderError(request, uri, response.getStatus(), response.getErrorMessage());
+            }
+        } catch (Exception e) {
+            // Not handled by any exception resolver; the container would answer with a 500
+            request.setAttribute(RequestDispatcher.ERROR_EXCEPTION, e);
+            rendered = renderError(request, uri, HttpStatus.INTERNAL_SERVER_ERROR.value(), null);
+        }
+        return new Response(rendered.getStatus(), rendered.getContentType(), rendered.getBody());
+    }
+
+    private SubResponse renderError(SubRequest request, URI uri, int status, String message) {
+        request.toErrorDispatch("/error");
+        request.setAttribute(RequestDispatcher.ERROR_STATUS_CODE, status);
+        request.setAttribute(RequestDispatcher.ERROR_REQUEST_URI, uri.getRawPath());
+        request.setAttribute(RequestDispatcher.ERROR_MESSAGE, message);
+        SubResponse response = new SubResponse();
+        response.setStatus(status);
+        try {
+            dispatcherServlet.service(request, response);
+        } catch (Exception e) {
+            // The error page failed too; the status alone has to do
+        }
+        return response;
+    }
+}
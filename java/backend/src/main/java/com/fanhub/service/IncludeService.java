@@ -0,0 +1,423 @@
+package com.fanhub.service;
+
+import com.fanhub.catalog.CatalogService;
+import com.fanhub.catalog.CatalogSnapshot;
+import com.fanhub.model.Character;
+import com.fanhub.model.Episode;
+import com.fanhub.model.Quote;
+import com.fanhub.model.Season;
+import com.fanhub.model.Show;
+import com.fanhub.repository.CharacterRepository;
+import com.fanhub.repository.EpisodeRepository;
+import com.fanhub.repository.QuoteRepository;
+import com.fanhub.repository.SeasonRepository;
+import com.fanhub.repository.ShowRepository;
+import com.fanhub.sharding.ShardContext;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves {@code ?include=} expansions for show and character detail responses.
+ *
+ * Works level by level, DataLoader-style: every relation on a level is loaded for all
+ * parent rows with one IN query, and independent relations on the same level run
+ * concurrently. A nested include such as {@code seasons.episodes} waits for its parent
+ * level and then issues one more IN query. Nothing is ever looked up per row.
+ *
+ * In snapshot mode every relation but a character's {@code episodes} is served from
+ * the in-memory indexes. The snapshot does not hold {@code character_episodes}, so
+ * appearances always read the join table, and only the episodes themselves come from
+ * the snapshot.
+ *
+ * Loader threads inherit the caller's {@link ShardContext}, nested levels included, so in
+ * sharded mode a request pinned to one show's shard loads from that shard alone.
+ */
+@Service
+public class IncludeService {
+
+    public static final Set<String> SHOW_INCLUDES =
+            Set.of("seasons", "seasons.episodes", "episodes", "characters", "characters.quotes", "quotes");
+    public static final Set<String> CHARACTER_INCLUDES =
+            Set.of("show", "quotes", "quotes.episode", "episodes");
+
+    private static final TypeReference<LinkedHashMap<String, Object>> ROW = new TypeReference<>() {
+    };
+
+    private static final Comparator<Quote> BY_LIKES = Comparator
+            .comparing((Quote q) -> q.getLikesCount() == null ? 0 : q.getLikesCount()).reversed()
+            .thenComparing(Quote::getId);
+
+    private final ShowRepository showRepository;
+    private final SeasonRepository seasonRepository;
+    private final EpisodeRepository episodeRepository;
+    private final CharacterRepository characterRepository;
+    private final QuoteRepository quoteRepository;
+    private final CatalogService catalogService;
+    private final ObjectMapper objectMapper;
+    private final int topQuotes;
+    private final ExecutorService executor;
+    private final Executor loaders;
+
+    public IncludeService(ShowRepository showRepository,
+                          SeasonRepository seasonRepository,
+                          EpisodeRepository episodeRepository,
+                          CharacterRepository characterRepository,
+                          QuoteRepository quoteRepository,
+                          CatalogService catalogService,
+                          ObjectMapper objectMapper,
+                          @Value("${fanhub.include.top-quotes:10}") int topQuotes,
+                          @Value("${fanhub.include.parallelism:4}") int parallelism) {
+        this.showRepository = showRepository;
+        this.seasonRepository = seasonRepository;
+        this.episodeRepository = episodeRepository;
+        this.characterRepository = characterRepository;
+        this.quoteRepository = quoteRepository;
+        this.catalogService = catalogService;
+        this.objectMapper = objectMapper;
+        this.topQuotes = topQuotes;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "include-loader-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        // Captured when a load is handed over; a nested level is handed over from inside its
+        // parent's task, while the parent's context is still in place
+        this.loaders = task -> executor.execute(ShardContext.propagate(task));
+    }
+
+    /** Parses {@code seasons,episodes} into a set; a nested include implies its parent. */
+    public Set<String> parse(String include, Set<String> allowed) {
+        if (include == null || include.isBlank()) {
+            return Set.of();
+        }
+        Set<String> result = new LinkedHashSet<>();
+        for (String name : include.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!allowed.contains(trimmed)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown include '" + trimmed + "', expected one of " + allowed);
+            }
+            int dot = trimmed.indexOf('.');
+            if (dot > 0) {
+                result.add(trimmed.substring(0, dot));
+            }
+            result.add(trimmed);
+        }
+        return result;
+    }
+
+    public Map<String, Object> expandShow(Show show, Set<String> include) {
+        return expandShows(List.of(show), include).get(0);
+    }
+
+    public Map<String, Object> expandCharacter(Character character, Set<String> include) {
+        return expandCharacters(List.of(character), include).get(0);
+    }
+
+    public List<Map<String, Object>> expandShows(List<Show> shows, Set<String> include) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        List<Long> showIds = ids(shows, Show::getId);
+
+        // Level 1: every relation keyed by show_id, fetched concurrently
+        CompletableFuture<Map<Long, List<Season>>> seasons = include.contains("seasons")
+                ? fetch(snapshot, () -> seasonsByShow(snapshot, showIds)) : null;
+        CompletableFuture<Map<Long, List<Episode>>> episodes = include.contains("episodes")
+                ? fetch(snapshot, () -> episodesByShow(snapshot, showIds)) : null;
+        CompletableFuture<Map<Long, List<Character>>> characters = include.contains("characters")
+                ? fetch(snapshot, () -> charactersByShow(snapshot, showIds)) : null;
+        CompletableFuture<Map<Long, List<Quote>>> quotes = include.contains("quotes")
+                ? fetch(snapshot, () -> topQuotesByShow(snapshot, showIds)) : null;
+
+        // Level 2: children of level-1 rows, one IN query per relation
+        CompletableFuture<Map<Long, List<Episode>>> seasonEpisodes = include.contains("seasons.episodes")
+                ? seasons.thenCompose(bySeason -> fetch(snapshot,
+                        () -> episodesBySeason(snapshot, ids(flatten(bySeason), Season::getId))))
+                : null;
+        CompletableFuture<Map<Long, List<Quote>>> characterQuotes = include.contains("characters.quotes")
+                ? characters.thenCompose(byShow -> fetch(snapshot,
+                        () -> quotesByCharacter(snapshot, ids(flatten(byShow), Character::getId))))
+                : null;
+
+        List<Map<String, Object>> result = new ArrayList<>(shows.size());
+        for (Show show : shows) {
+            Map<String, Object> row = toMap(show);
+            if (seasons != null) {
+                List<Season> showSeasons = join(seasons).getOrDefault(show.getId(), List.of());
+                row.put("seasons", seasonEpisodes == null ? showSeasons
+                        : nest(showSeasons, Season::getId, "episodes", join(seasonEpisodes)));
+            }
+            if (episodes != null) {
+                row.put("episodes", join(episodes).getOrDefault(show.getId(), List.of()));
+            }
+            if (characters != null) {
+                List<Character> showCharacters = join(characters).getOrDefault(show.getId(), List.of());
+                row.put("characters", characterQuotes == null ? showCharacters
+                        : nest(showCharacters, Character::getId, "quotes", join(characterQuotes)));
+            }
+            if (quotes != null) {
+                row.put("quotes", join(quotes).getOrDefault(show.getId(), List.of()));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    public List<Map<String, Object>> expandCharacters(List<Character> characters, Set<String> include) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        List<Long> characterIds = ids(characters, Character::getId);
+        List<Long> showIds = ids(characters, Character::getShowId);
+
+        // Level 1
+        CompletableFuture<Map<Long, Show>> shows = include.contains("show")
+                ? fetch(snapshot, () -> showsById(snapshot, showIds)) : null;
+        CompletableFuture<Map<Long, List<Quote>>> quotes = include.contains("quotes")
+                ? fetch(snapshot, () -> quotesByCharacter(snapshot, characterIds)) : null;
+        // Reads the join table even in snapshot mode
+        CompletableFuture<Map<Long, List<Episode>>> appearances = include.contains("episodes")
+                ? load(() -> appearancesByCharacter(snapshot, characterIds)) : null;
+
+        // Level 2
+        CompletableFuture<Map<Long, Episode>> quoteEpisodes = include.contains("quotes.episode")
+                ? quotes.thenCompose(byCharacter -> fetch(snapshot,
+                        () -> episodesById(snapshot, ids(flatten(byCharacter), Quote::getEpisodeId))))
+                : null;
+
+        List<Map<String, Object>> result = new ArrayList<>(characters.size());
+        for (Character character : characters) {
+            Map<String, Object> row = toMap(character);
+            if (shows != null) {
+                row.put("show", join(shows).get(character.getShowId()));
+            }
+            if (quotes != null) {
+                List<Quote> characterQuotes = join(quotes).getOrDefault(character.getId(), List.of());
+                if (quoteEpisodes == null) {
+                    row.put("quotes", characterQuotes);
+                } else {
+                    Map<Long, Episode> episodeById = join(quoteEpisodes);
+                    List<Map<String, Object>> nested = new ArrayList<>(characterQuotes.size());
+                    for (Quote quote : characterQuotes) {
+                        Map<String, Object> q = toMap(quote);
+                        q.put("episode", episodeById.get(quote.getEpisodeId()));
+                        nested.add(q);
+                    }
+                    row.put("quotes", nested);
+                }
+            }
+            if (appearances != null) {
+                row.put("episodes", join(appearances).getOrDefault(character.getId(), List.of()));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    // ---- batched loaders: one IN query (or one snapshot index walk) per call ---------
+
+    private Map<Long, List<Season>> seasonsByShow(CatalogSnapshot snapshot, List<Long> showIds) {
+        if (snapshot != null) {
+            return fromIndex(showIds, snapshot::seasonsByShow);
+        }
+        return group(inChunks(showIds, seasonRepository::findByShowIdIn), Season::getShowId);
+    }
+
+    private Map<Long, List<Episode>> episodesByShow(CatalogSnapshot snapshot, List<Long> showIds) {
+        if (snapshot != null) {
+            return fromIndex(showIds, snapshot::episodesByShow);
+        }
+        return group(inChunks(showIds, episodeRepository::findByShowIdIn), Episode::getShowId);
+    }
+
+    private Map<Long, List<Episode>> episodesBySeason(CatalogSnapshot snapshot, List<Long> seasonIds) {
+        if (seasonIds.isEmpty()) {
+            return Map.of();
+        }
+        if (snapshot != null) {
+            return fromIndex(seasonIds, snapshot::episodesBySeason);
+        }
+        return group(inChunks(seasonIds, episodeRepository::findBySeasonIdIn), Episode::getSeasonId);
+    }
+
+    private Map<Long, List<Character>> charactersByShow(CatalogSnapshot snapshot, List<Long> showIds) {
+        if (snapshot != null) {
+            return fromIndex(showIds, snapshot::charactersByShow);
+        }
+        return group(inChunks(showIds, characterRepository::findByShowIdIn), Character::getShowId);
+    }
+
+    private Map<Long, List<Quote>> quotesByCharacter(CatalogSnapshot snapshot, List<Long> characterIds) {
+        if (characterIds.isEmpty()) {
+            return Map.of();
+        }
+        if (snapshot != null) {
+            return fromIndex(characterIds, snapshot::quotesByCharacter);
+        }
+        return group(inChunks(characterIds, quoteRepository::findByCharacterIdIn), Quote::getCharacterId);
+    }
+
+    private Map<Long, List<Quote>> topQuotesByShow(CatalogSnapshot snapshot, List<Long> showIds) {
+        if (snapshot != null) {
+            return fromIndex(showIds, id -> snapshot.quotesByShow(id).stream()
+                    .sorted(BY_LIKES).limit(topQuotes).toList());
+        }
+        Map<Long, List<Quote>> grouped = group(
+                inChunks(showIds, chunk -> quoteRepository.findTopByShowIds(chunk, topQuotes)), Quote::getShowId);
+        grouped.values().forEach(list -> list.sort(BY_LIKES));
+        return grouped;
+    }
+
+    private Map<Long, Show> showsById(CatalogSnapshot snapshot, List<Long> showIds) {
+        if (snapshot != null) {
+            return byId(MultiGet.fromIndex(showIds, snapshot::show), Show::getId);
+        }
+        return byId(inChunks(showIds, showRepository::findAllById), Show::getId);
+    }
+
+    private Map<Long, Episode> episodesById(CatalogSnapshot snapshot, List<Long> episodeIds) {
+        if (episodeIds.isEmpty()) {
+            return Map.of();
+        }
+        if (snapshot != null) {
+            return byId(MultiGet.fromIndex(episodeIds, snapshot::episode), Episode::getId);
+        }
+        return byId(inChunks(episodeIds, episodeRepository::findAllById), Episode::getId);
+    }
+
+    // Two batched loads: the join table, which the snapshot does not hold, then the
+    // episodes themselves, from the snapshot when there is one
+    private Map<Long, List<Episode>> appearancesByCharacter(CatalogSnapshot snapshot, List<Long> characterIds) {
+        if (characterIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Object[]> links = inChunks(characterIds, episodeRepository::findAppearancesByCharacterIds);
+        if (links.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> episodeIds = new LinkedHashSet<>();
+        for (Object[] link : links) {
+            episodeIds.add(((Number) link[1]).longValue());
+        }
+        Map<Long, Episode> episodes = episodesById(snapshot, new ArrayList<>(episodeIds));
+        Map<Long, List<Episode>> result = new HashMap<>();
+        for (Object[] link : links) {
+            Episode episode = episodes.get(((Number) link[1]).longValue());
+            if (episode != null) {
+                result.computeIfAbsent(((Number) link[0]).longValue(), k -> new ArrayList<>()).add(episode);
+            }
+        }
+        result.values().forEach(list -> list.sort(Comparator.comparing(Episode::getId)));
+        return result;
+    }
+
+    // ---- helpers ----------------------------------------------------------------------
+
+    // In-memory lookups need no thread hop; database loads go to the pool so they overlap.
+    private <T> CompletableFuture<T> fetch(CatalogSnapshot snapshot, Supplier<T> loader) {
+        if (snapshot != null) {
+            return CompletableFuture.completedFuture(loader.get());
+        }
+        return load(loader);
+    }
+
+    private <T> CompletableFuture<T> load(Supplier<T> loader) {
+        return CompletableFuture.supplyAsync(loader, loaders);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private <T> List<Map<String, Object>> nest(List<T> parents, Function<T, Long> idOf,
+                                               String key, Map<Long, ?> children) {
+        List<Map<String, Object>> result = new ArrayList<>(parents.size());
+        for (T parent : parents) {
+            Map<String, Object> row = toMap(parent);
+            Object value = children.get(idOf.apply(parent));
+            row.put(key, value == null ? List.of() : value);
+            result.add(row);
+        }
+        return result;
+    }
+
+    private Map<String, Object> toMap(Object entity) {
+        return objectMapper.convertValue(entity, ROW);
+    }
+
+    private static <T> List<Long> ids(Collection<T> rows, Function<T, Long> idOf) {
+        return rows.stream().map(idOf).filter(Objects::nonNull).distinct().toList();
+    }
+
+    private static <T> List<T> flatten(Map<Long, List<T>> grouped) {
+        return grouped.values().stream().flatMap(List::stream).toList();
+    }
+
+    // One IN query per MultiGet.MAX_IDS ids: a nested include can collect far more ids than one request names
+    private static <T> List<T> inChunks(List<Long> ids, Function<List<Long>, ? extends Iterable<T>> query) {
+        List<T> rows = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MultiGet.MAX_IDS) {
+            query.apply(ids.subList(from, Math.min(from + MultiGet.MAX_IDS, ids.size()))).forEach(rows::add);
+        }
+        return rows;
+    }
+
+    private static <T> Map<Long, List<T>> fromIndex(List<Long> keys, Function<Long, List<T>> index) {
+        Map<Long, List<T>> result = new HashMap<>();
+        for (Long key : keys) {
+            result.put(key, index.apply(key));
+        }
+        return result;
+    }
+
+    private static <T> Map<Long, List<T>> group(Collection<T> rows, Function<T, Long> key) {
+        return rows.stream().filter(r -> key.apply(r) != null)
+                .collect(Collectors.groupingBy(key, HashMap::new, Collectors.toCollection(ArrayList::new)));
+    }
+
+    private static <T> Map<Long, T> byId(Iterable<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> result = new HashMap<>();
+        for (T row : rows) {
+            result.put(idOf.apply(row), row);
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
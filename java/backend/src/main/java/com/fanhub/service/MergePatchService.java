@@ -0,0 +1,261 @@
+package com.fanhub.service;
+
+import com.fanhub.sharding.ShardRouter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.persistence.Column;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * JSON merge patch (RFC 7396) for the flat catalog tables.
+ *
+ * A patch becomes one {@code UPDATE ... RETURNING} that sets only the columns named in
+ * the body, so there is no SELECT before the write and untouched TEXT columns are never
+ * rewritten. Every row has a {@code version} column; an {@code If-Match} header turns
+ * the update into a compare-and-set on it, and a mismatch is reported as 412.
+ * A row keeps its show: {@code showId} cannot be patched, and a reference to a season,
+ * episode or character is only accepted if that row belongs to the same show (422).
+ */
+@Service
+public class MergePatchService {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    // Same text formats as seed.sql, so the JDBC driver parses them back on read
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd 00:00:00.000");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    // Maintained by the database or by this class, never by clients; a row never changes show
+    private static final Set<String> READ_ONLY = Set.of("id", "showId", "createdAt", "updatedAt", "version");
+
+    // References that must stay within the row's show (and so its shard), by the table they point to
+    private static final Map<String, String> SAME_SHOW = Map.of(
+            "seasonId", "seasons",
+            "episodeId", "episodes",
+            "characterId", "characters",
+            "firstAppearance", "episodes");
+
+    /** Outcome of a patch: the row's new version and the fields that were written. */
+    public record Result(long version, Long showId, Map<String, Object> changes) {}
+
+    private record Property(String column, Class<?> type, boolean nullable) {}
+
+    private record Target(String table, String showIdColumn, Map<String, Property> properties) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<ShardRouter> shardRouter;
+    private final Map<Class<?>, Target> targets = new ConcurrentHashMap<>();
+
+    public MergePatchService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                             ObjectProvider<ShardRouter> shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.shardRouter = shardRouter;
+    }
+
+    public Result apply(Class<?> entityType, Long id, JsonNode patch, String ifMatch) {
+        if (patch == null || !patch.isObject()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Merge patch must be a JSON object");
+        }
+        Target target = targets.computeIfAbsent(entityType, MergePatchService::describe);
+        Long expected = parseIfMatch(ifMatch);
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        StringBuilder sql = new StringBuilder("UPDATE ").append(target.table()).append(" SET ");
+        List<Object> args = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            Property property = target.properties().get(field.getKey());
+            if (property == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Field cannot be patched: " + field.getKey());
+            }
+            Object value = convert(field.getKey(), property, field.getValue());
+            changes.put(field.getKey(), value);
+            sql.append(property.column()).append(" = ?, ");
+            args.add(toJdbc(value));
+        }
+        if (changes.isEmpty()) {
+            // An empty patch is a no-op, but it still answers the precondition
+            Result current = current(target, id);
+            checkPrecondition(current, expected);
+            return current;
+        }
+
+        sql.append("updated_at = CURRENT_TIMESTAMP, version = version + 1 WHERE id = ?");
+        args.add(id);
+        if (expected != null) {
+            sql.append(" AND version = ?");
+            args.add(expected);
+        }
+        // Checked in the same statement, so a reference cannot leave the show between check and write
+        List<String> references = new ArrayList<>();
+        changes.forEach((name, value) -> {
+            String referenced = SAME_SHOW.get(name);
+            if (referenced != null && value != null) {
+                references.add(name);
+                sql.append(" AND ").append(target.showIdColumn()).append(" = (SELECT r.show_id FROM ")
+                        .append(referenced).append(" r WHERE r.id = ?)");
+                args.add(value);
+            }
+        });
+        sql.append(" RETURNING version, ").append(target.showIdColumn());
+
+        List<Result> updated = onRowShard(target, id, () -> jdbcTemplate.query(sql.toString(),
+                (rs, i) -> new Result(rs.getLong(1), (Long) rs.getObject(2, Long.class),
+                        Collections.unmodifiableMap(changes)),
+                args.toArray()));
+        if (updated.isEmpty()) {
+            // Only the failure path reads: was the row missing, the version stale or a reference foreign?
+            Result current = current(target, id);
+            checkPrecondition(current, expected);
+            if (!references.isEmpty()) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        String.join(", ", references) + " must refer to a row of show " + current.showId());
+            }
+            throw new IllegalStateException("Patch of " + target.table() + " " + id + " matched no row");
+        }
+        return updated.get(0);
+    }
+
+    /**
+     * A full-row update (PUT) made conditional on {@code If-Match}: every patchable field
+     * is written from {@code entity}, absent ones as null, with the same compare-and-set
+     * and checks as a patch. Read-only fields in the body, such as {@code showId}, are ignored.
+     */
+    public Result replace(Class<?> entityType, Long id, Object entity, String ifMatch) {
+        Target target = targets.computeIfAbsent(entityType, MergePatchService::describe);
+        JsonNode body = objectMapper.valueToTree(entity);
+        ObjectNode patch = objectMapper.createObjectNode();
+        for (String name : target.properties().keySet()) {
+            JsonNode value = body.get(name);
+            patch.set(name, value == null ? NullNode.getInstance() : value);
+        }
+        return apply(entityType, id, patch, ifMatch);
+    }
+
+    /** Version from an If-Match header; null means unconditional ("*" or absent). */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            // Not one of our tags, so it cannot match the current representation
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Unrecognized If-Match: " + ifMatch);
+        }
+    }
+
+    private Result current(Target target, Long id) {
+        List<Result> rows = onRowShard(target, id, () -> jdbcTemplate.query(
+                "SELECT version, " + target.showIdColumn() + " FROM " + target.table() + " WHERE id = ?",
+                (rs, i) -> new Result(rs.getLong(1), (Long) rs.getObject(2, Long.class), Map.of()),
+                id));
+        if (rows.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No " + target.table() + " row with id " + id);
+        }
+        return rows.get(0);
+    }
+
+    // In sharded mode, run on the shard holding the row: known for shows, probed otherwise
+    private List<Result> onRowShard(Target target, Long id, Supplier<List<Result>> statement) {
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (router == null) {
+            return statement.get();
+        }
+        return router.firstNonEmpty(target.table().equals("shows") ? id : null, statement);
+    }
+
+    private static void checkPrecondition(Result current, Long expected) {
+        if (expected != null && current.version() != expected) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "Version is " + current.version() + ", not " + expected);
+        }
+    }
+
+    private Object convert(String name, Property property, JsonNode node) {
+        if (node.isNull()) {
+            if (!property.nullable()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field cannot be null: " + name);
+            }
+            return null;
+        }
+        try {
+            return objectMapper.treeToValue(node, property.type());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid value for " + name + ": " + node);
+        }
+    }
+
+    private static Object toJdbc(Object value) {
+        if (value instanceof Boolean b) {
+            return b ? 1 : 0;
+        }
+        if (value instanceof LocalDate d) {
+            return DATE.format(d);
+        }
+        if (value instanceof LocalDateTime t) {
+            return DATE_TIME.format(t);
+        }
+        return value;
+    }
+
+    // Patchable properties come straight from the entity's JPA mapping
+    private static Target describe(Class<?> entityType) {
+        Table table = entityType.getAnnotation(Table.class);
+        if (table == null) {
+            throw new IllegalArgumentException(entityType + " is not a mapped table");
+        }
+        Map<String, Property> properties = new LinkedHashMap<>();
+        String showIdColumn = "id";
+        for (Field field : entityType.getDeclaredFields()) {
+            Column column = field.getAnnotation(Column.class);
+            String name = column != null && !column.name().isEmpty() ? column.name() : field.getName();
+            if (field.getName().equals("showId")) {
+                showIdColumn = name;
+            }
+            if (READ_ONLY.contains(field.getName()) || field.isAnnotationPresent(Id.class)
+                    || Modifier.isStatic(field.getModifiers())
+                    || (column != null && !column.insertable() && !column.updatable())) {
+                continue;
+            }
+            properties.put(field.getName(), new Property(name, field.getType(), column == null || column.nullable()));
+        }
+        return new Target(table.name(), showIdColumn, Map.copyOf(properties));
+    }
+}
@@ -0,0 +1,54 @@
+package com.fanhub.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Helpers for {@code ?ids=1,2,3} style multi-get: one IN query, results in the order
+ * the client asked for, missing ids silently skipped.
+ */
+public final class MultiGet {
+
+    // Well under SQLite's bound-parameter limit, and keeps a single response reasonably sized.
+    public static final int MAX_IDS = 500;
+
+    private MultiGet() {
+    }
+
+    /** Removes duplicates (keeping first occurrence) and enforces {@link #MAX_IDS}. */
+    public static List<Long> distinct(List<Long> ids) {
+        List<Long> unique = new ArrayList<>(new LinkedHashSet<>(ids));
+        unique.removeIf(id -> id == null);
+        if (unique.size() > MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_IDS + " ids per request");
+        }
+        return unique;
+    }
+
+    public static <T> List<T> inRequestOrder(List<Long> ids, Iterable<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T row : rows) {
+            byId.put(idOf.apply(row), row);
+        }
+        return fromIndex(ids, byId::get);
+    }
+
+    public static <T> List<T> fromIndex(List<Long> ids, Function<Long, T> lookup) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T row = lookup.apply(id);
+            if (row != null) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+}
@@ -1,8 +1,12 @@
 package com.fanhub.service;
 
+import com.fanhub.catalog.CatalogService;
+import com.fanhub.catalog.CatalogSnapshot;
+import com.fanhub.event.ChangeEvent;
 import com.fanhub.model.Quote;
 import com.fanhub.repository.QuoteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -14,6 +18,12 @@ public class QuoteService {
     @Autowired
     private QuoteRepository quoteRepository;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private CatalogService catalogService;
+    
     public List<Quote> getAllQuotes() {
         List<Quote> quotes = quoteRepository.findAll();
         // INTENTIONAL BUG: Truncates quote text to 50 characters
@@ -26,25 +36,67 @@ public class QuoteService {
     }
     
     public Quote getQuoteById(Long id) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return snapshot.quote(id);
+        }
         return quoteRepository.findById(id).orElse(null);
     }
     
+    public List<Quote> getQuotesByIds(List<Long> ids) {
+        List<Long> unique = MultiGet.distinct(ids);
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return MultiGet.fromIndex(unique, snapshot::quote);
+        }
+        return MultiGet.inRequestOrder(unique, quoteRepository.findAllById(unique), Quote::getId);
+    }
+    
     public List<Quote> getQuotesByCharacterId(Long characterId) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return snapshot.quotesByCharacter(characterId);
+        }
         return quoteRepository.findByCharacterId(characterId);
     }
     
+    public List<Quote> getQuotesByShowId(Long showId) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return snapshot.quotesByShow(showId);
+        }
+        return quoteRepository.findByShowId(showId);
+    }
+    
+    /** Quotes of a show or character from episodes up to {@code maxOrdinal}; quotes without an episode are left out. */
+    public List<Quote> getQuotesUpTo(Long showId, Long characterId, long maxOrdinal) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            List<Quote> quotes = characterId != null ? snapshot.quotesByCharacter(characterId) : snapshot.quotesByShow(showId);
+            return EpisodeOrdinal.upTo(quotes, Quote::getEpisodeOrdinal, maxOrdinal);
+        }
+        return characterId != null
+                ? quoteRepository.findByCharacterIdAndEpisodeOrdinalLessThanEqual(characterId, maxOrdinal)
+                : quoteRepository.findByShowIdAndEpisodeOrdinalLessThanEqual(showId, maxOrdinal);
+    }
+    
     public Quote createQuote(Quote quote) {
-        return quoteRepository.save(quote);
+        Quote saved = quoteRepository.save(quote);
+        eventPublisher.publishEvent(ChangeEvent.created("quote", saved.getId(), saved.getShowId(), saved));
+        return saved;
     }
     
     public Quote likeQuote(Long id) {
         Quote quote = quoteRepository.findById(id).get();
         // INTENTIONAL BUG: No null check, will throw exception if quote doesn't exist
         quote.setLikesCount(quote.getLikesCount() + 1);
-        return quoteRepository.save(quote);
+        Quote saved = quoteRepository.save(quote);
+        eventPublisher.publishEvent(ChangeEvent.liked("quote", saved.getId(), saved.getShowId(), saved));
+        return saved;
     }
     
     public void deleteQuote(Long id) {
         quoteRepository.deleteById(id);
+        eventPublisher.publishEvent(ChangeEvent.deleted("quote", id));
     }
 }
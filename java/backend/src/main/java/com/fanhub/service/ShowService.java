@@ -1,7 +1,12 @@
 package com.fanhub.service;
 
+import com.fanhub.catalog.CatalogService;
+import com.fanhub.catalog.CatalogSnapshot;
+import com.fanhub.event.ChangeEvent;
 import com.fanhub.model.Show;
 import com.fanhub.repository.ShowRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -10,31 +15,74 @@ import java.util.List;
 public class ShowService {
     
     private final ShowRepository showRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogService catalogService;
+    private final MergePatchService mergePatchService;
     
-    public ShowService(ShowRepository showRepository) {
+    public ShowService(ShowRepository showRepository, ApplicationEventPublisher eventPublisher,
+                       CatalogService catalogService, MergePatchService mergePatchService) {
         this.showRepository = showRepository;
+        this.eventPublisher = eventPublisher;
+        this.catalogService = catalogService;
+        this.mergePatchService = mergePatchService;
     }
     
     public List<Show> getAllShows() {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return snapshot.shows();
+        }
         return showRepository.findAll();
     }
     
+    public List<Show> getShowsByIds(List<Long> ids) {
+        List<Long> unique = MultiGet.distinct(ids);
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return MultiGet.fromIndex(unique, snapshot::show);
+        }
+        return MultiGet.inRequestOrder(unique, showRepository.findAllById(unique), Show::getId);
+    }
+    
     public Show getShowById(Long id) {
+        CatalogSnapshot snapshot = catalogService.snapshot();
+        if (snapshot != null) {
+            return snapshot.show(id);
+        }
         // INTENTIONAL BUG: Using orElse(null) - inconsistent error handling
         return showRepository.findById(id).orElse(null);
     }
     
     public Show createShow(Show show) {
         // INTENTIONAL BUG: No validation that title is not empty
-        return showRepository.save(show);
+        Show saved = showRepository.save(show);
+        eventPublisher.publishEvent(ChangeEvent.created("show", saved.getId(), saved.getId(), saved));
+        return saved;
+    }
+    
+    /** Full update; with {@code ifMatch} it is a compare-and-set on the version like a patch. */
+    public Show updateShow(Long id, Show show, String ifMatch) {
+        Show saved;
+        if (ifMatch != null) {
+            mergePatchService.replace(Show.class, id, show, ifMatch);
+            saved = showRepository.findById(id).orElseThrow();
+        } else {
+            show.setId(id);
+            saved = showRepository.save(show);
+        }
+        eventPublisher.publishEvent(ChangeEvent.updated("show", saved.getId(), saved.getId(), saved));
+        return saved;
     }
     
-    public Show updateShow(Long id, Show show) {
-        show.setId(id);
-        return showRepository.save(show);
+    /** Applies a JSON merge patch and returns the show's new version. */
+    public long patchShow(Long id, JsonNode patch, String ifMatch) {
+        MergePatchService.Result result = mergePatchService.apply(Show.class, id, patch, ifMatch);
+        eventPublisher.publishEvent(ChangeEvent.updated("show", id, id, result.changes()));
+        return result.version();
     }
     
     public void deleteShow(Long id) {
         showRepository.deleteById(id);
+        eventPublisher.publishEvent(ChangeEvent.deleted("show", id));
     }
 }
@@ -0,0 +1,285 @@
+package com.fanhub.service;
+
+import com.fanhub.service.InProcessDispatcher.Origin;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.MappingMatch;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.web.util.UriUtils;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A GET dispatched in-process, without a connection. Everything the filter chain and
+ * the {@link org.springframework.web.servlet.DispatcherServlet} read is answered here.
+ * The wrapped request is a placeholder that answers any other call with an empty value
+ * (null, false, zero or an empty collection), so a filter or resolver added later cannot
+ * fail every sub-request, and a sub-request never touches the container request of the
+ * thread that started it.
+ */
+final class SubRequest extends HttpServletRequestWrapper {
+
+    private static final HttpServletMapping DEFAULT_SERVLET = new HttpServletMapping() {
+        @Override public String getMatchValue() { return ""; }
+        @Override public String getPattern() { return "/"; }
+        @Override public String getServletName() { return "dispatcherServlet"; }
+        @Override public MappingMatch getMappingMatch() { return MappingMatch.DEFAULT; }
+    };
+
+    private final ServletContext servletContext;
+    private final Origin origin;
+    private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+    private final Map<String, String[]> parameters;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final String queryString;
+    private volatile String path;         // as sent, still percent-encoded, like the request URI
+    private volatile String servletPath;  // decoded, as the container hands it to the servlet
+    private volatile DispatcherType dispatcherType = DispatcherType.REQUEST;
+    private volatile String characterEncoding;
+
+    SubRequest(ServletContext servletContext, Origin origin, URI uri) {
+        super(placeholder(HttpServletRequest.class));
+        this.servletContext = servletContext;
+        this.origin = origin;
+        this.path = uri.getRawPath();
+        this.servletPath = UriUtils.decode(path, StandardCharsets.UTF_8);
+        this.queryString = uri.getRawQuery();
+        this.parameters = parse(uri.getRawQuery());
+    }
+
+    void addHeader(String name, String value) {
+        headers.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+    }
+
+    /** Turns this into the error dispatch the container would make after a failed request. */
+    void toErrorDispatch(String errorPath) {
+        this.path = errorPath;
+        this.servletPath = errorPath;
+        this.dispatcherType = DispatcherType.ERROR;
+    }
+
+    private static Map<String, String[]> parse(String rawQuery) {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                int eq = pair.indexOf('=');
+                String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+                values.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+            }
+        }
+        Map<String, String[]> parameters = new LinkedHashMap<>();
+        values.forEach((name, list) -> parameters.put(name, list.toArray(String[]::new)));
+        return Collections.unmodifiableMap(parameters);
+    }
+
+    // A stand-in for the wrapped object: what a request without that feature would answer
+    static <T> T placeholder(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "toString" -> "in-process " + type.getSimpleName();
+                    default -> empty(method.getReturnType());
+                }));
+    }
+
+    private static Object empty(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type.isPrimitive()) {
+            // void, or a primitive no servlet interface returns
+            return null;
+        } else if (type == Enumeration.class) {
+            return Collections.emptyEnumeration();
+        } else if (type == Map.class) {
+            return Map.of();
+        } else if (type == Set.class) {
+            return Set.of();
+        } else if (type == Collection.class || type == List.class) {
+            return List.of();
+        }
+        return null;
+    }
+
+    // ---- request line -------------------------------------------------------------
+
+    @Override public String getMethod() { return "GET"; }
+    @Override public String getProtocol() { return "HTTP/1.1"; }
+    @Override public String getScheme() { return origin.scheme(); }
+    @Override public boolean isSecure() { return "https".equalsIgnoreCase(origin.scheme()); }
+    @Override public String getServerName() { return origin.serverName(); }
+    @Override public int getServerPort() { return origin.serverPort(); }
+    @Override public String getLocalName() { return origin.serverName(); }
+    @Override public String getLocalAddr() { return "127.0.0.1"; }
+    @Override public int getLocalPort() { return origin.serverPort(); }
+    @Override public String getRemoteAddr() { return origin.remoteAddr(); }
+    @Override public String getRemoteHost() { return origin.remoteAddr(); }
+    @Override public int getRemotePort() { return 0; }
+    @Override public String getContextPath() { return servletContext.getContextPath(); }
+    @Override public String getServletPath() { return servletPath; }
+    @Override public String getPathInfo() { return null; }
+    @Override public String getPathTranslated() { return null; }
+    @Override public String getRequestURI() { return getContextPath() + path; }
+    @Override public String getQueryString() { return queryString; }
+    @Override public HttpServletMapping getHttpServletMapping() { return DEFAULT_SERVLET; }
+    @Override public DispatcherType getDispatcherType() { return dispatcherType; }
+    @Override public ServletContext getServletContext() { return servletContext; }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        boolean defaultPort = origin.serverPort() == (isSecure() ? 443 : 80);
+        return new StringBuffer(origin.scheme()).append("://").append(origin.serverName())
+                .append(defaultPort ? "" : ":" + origin.serverPort()).append(getRequestURI());
+    }
+
+    // ---- headers ------------------------------------------------------------------
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        return Collections.enumeration(headers.getOrDefault(name, List.of()));
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(new ArrayList<>(headers.keySet()));
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1
+                : ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+    }
+
+    @Override public Locale getLocale() { return Locale.getDefault(); }
+    @Override public Enumeration<Locale> getLocales() { return Collections.enumeration(List.of(Locale.getDefault())); }
+
+    // ---- parameters, attributes and body ------------------------------------------
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters.get(name);
+        return values == null ? null : values[0];
+    }
+
+    @Override public Map<String, String[]> getParameterMap() { return parameters; }
+    @Override public Enumeration<String> getParameterNames() { return Collections.enumeration(parameters.keySet()); }
+    @Override public String[] getParameterValues(String name) { return parameters.get(name); }
+
+    @Override public Object getAttribute(String name) { return attributes.get(name); }
+    @Override public Enumeration<String> getAttributeNames() { return Collections.enumeration(new ArrayList<>(attributes.keySet())); }
+    @Override public void removeAttribute(String name) { attributes.remove(name); }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override public String getCharacterEncoding() { return characterEncoding; }
+    @Override public void setCharacterEncoding(String encoding) { this.characterEncoding = encoding; }
+    @Override public String getContentType() { return null; }
+    @Override public int getContentLength() { return -1; }
+    @Override public long getContentLengthLong() { return -1; }
+    @Override public BufferedReader getReader() { return new BufferedReader(new StringReader("")); }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        return new ServletInputStream() {
+            @Override public boolean isFinished() { return true; }
+            @Override public boolean isReady() { return true; }
+            @Override public void setReadListener(ReadListener listener) { throw new UnsupportedOperationException(); }
+            @Override public int read() { return -1; }
+        };
+    }
+
+    // ---- no session, user or async support ----------------------------------------
+
+    @Override public String getAuthType() { return null; }
+    @Override public String getRemoteUser() { return null; }
+    @Override public Principal getUserPrincipal() { return null; }
+    @Override public boolean isUserInRole(String role) { return false; }
+    @Override public Cookie[] getCookies() { return null; }
+    @Override public String getRequestedSessionId() { return null; }
+    @Override public boolean isRequestedSessionIdValid() { return false; }
+    @Override public boolean isRequestedSessionIdFromCookie() { return false; }
+    @Override public boolean isRequestedSessionIdFromURL() { return false; }
+    @Override public HttpSession getSession() { return getSession(true); }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        if (create) {
+            throw new IllegalStateException("In-process requests have no session");
+        }
+        return null;
+    }
+
+    @Override public boolean isAsyncSupported() { return false; }
+    @Override public boolean isAsyncStarted() { return false; }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        throw new IllegalStateException("In-process requests are not asynchronous");
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("In-process requests are not asynchronous");
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+        throw new IllegalStateException("In-process requests are not asynchronous");
+    }
+}
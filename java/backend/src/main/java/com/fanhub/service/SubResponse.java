@@ -0,0 +1,226 @@
+package com.fanhub.service;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the status, headers and body of a {@link SubRequest}. Like the request it
+ * wraps a placeholder that answers every call not handled here with an empty value, so
+ * nothing reaches the response of the calling request.
+ */
+final class SubResponse extends HttpServletResponseWrapper {
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+    private int status = SC_OK;
+    private String contentType;
+    private String characterEncoding;
+    private Locale locale = Locale.getDefault();
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+    private boolean committed;
+    private boolean errorSent;
+    private String errorMessage;
+
+    SubResponse() {
+        super(SubRequest.placeholder(HttpServletResponse.class));
+    }
+
+    /** True after sendError(), which a container answers by rendering the error page. */
+    boolean isErrorSent() {
+        return errorSent;
+    }
+
+    String getErrorMessage() {
+        return errorMessage;
+    }
+
+    byte[] getBody() {
+        if (writer != null) {
+            writer.flush();
+        }
+        return body.toByteArray();
+    }
+
+    // ---- status -------------------------------------------------------------------
+
+    @Override public int getStatus() { return status; }
+
+    @Override
+    public void setStatus(int status) {
+        if (!committed) {
+            this.status = status;
+        }
+    }
+
+    @Override
+    public void sendError(int status, String message) {
+        checkNotCommitted();
+        this.status = status;
+        this.errorMessage = message;
+        this.errorSent = true;
+        this.committed = true;
+    }
+
+    @Override
+    public void sendError(int status) {
+        sendError(status, null);
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        checkNotCommitted();
+        setHeader(HttpHeaders.LOCATION, location);
+        this.status = SC_FOUND;
+        this.committed = true;
+    }
+
+    // ---- headers ------------------------------------------------------------------
+
+    @Override public boolean containsHeader(String name) { return headers.containsKey(name); }
+    @Override public Collection<String> getHeaderNames() { return new ArrayList<>(headers.keySet()); }
+    @Override public Collection<String> getHeaders(String name) { return new ArrayList<>(headers.getOrDefault(name, List.of())); }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+            setContentType(value);
+        } else if (!committed) {
+            headers.put(name, new ArrayList<>(List.of(value)));
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+            setContentType(value);
+        } else if (!committed) {
+            headers.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        }
+    }
+
+    @Override public void setIntHeader(String name, int value) { setHeader(name, String.valueOf(value)); }
+    @Override public void addIntHeader(String name, int value) { addHeader(name, String.valueOf(value)); }
+    @Override public void setDateHeader(String name, long date) { setHeader(name, formatDate(date)); }
+    @Override public void addDateHeader(String name, long date) { addHeader(name, formatDate(date)); }
+    @Override public void addCookie(Cookie cookie) { addHeader(HttpHeaders.SET_COOKIE, cookie.getName() + "=" + cookie.getValue()); }
+    @Override public String encodeURL(String url) { return url; }
+    @Override public String encodeRedirectURL(String url) { return url; }
+
+    private static String formatDate(long date) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC));
+    }
+
+    // ---- content ------------------------------------------------------------------
+
+    @Override public String getContentType() { return contentType; }
+    @Override public String getCharacterEncoding() { return characterEncoding != null ? characterEncoding : "ISO-8859-1"; }
+    @Override public Locale getLocale() { return locale; }
+    @Override public void setLocale(Locale locale) { this.locale = locale; }
+    @Override public void setContentLength(int length) { setContentLengthLong(length); }
+    @Override public void setContentLengthLong(long length) { setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(length)); }
+    @Override public void setBufferSize(int size) { }
+    @Override public int getBufferSize() { return Integer.MAX_VALUE; }
+    @Override public boolean isCommitted() { return committed; }
+    @Override public void flushBuffer() { committed = true; }
+
+    @Override
+    public void setContentType(String type) {
+        if (committed || writer != null) {
+            return;
+        }
+        contentType = type;
+        if (type != null) {
+            int charset = type.toLowerCase(Locale.ROOT).indexOf("charset=");
+            if (charset >= 0) {
+                characterEncoding = type.substring(charset + "charset=".length()).trim();
+            }
+        }
+    }
+
+    @Override
+    public void setCharacterEncoding(String encoding) {
+        if (!committed && writer == null) {
+            characterEncoding = encoding;
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if (outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override public boolean isReady() { return true; }
+                @Override public void setWriteListener(WriteListener listener) { throw new UnsupportedOperationException(); }
+                @Override public void write(int b) { body.write(b); }
+                @Override public void write(byte[] b, int off, int len) { body.write(b, off, len); }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (outputStream != null) {
+            throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        if (writer == null) {
+            Charset charset = characterEncoding != null ? Charset.forName(characterEncoding) : StandardCharsets.ISO_8859_1;
+            writer = new PrintWriter(new OutputStreamWriter(body, charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public void resetBuffer() {
+        checkNotCommitted();
+        if (writer != null) {
+            writer.flush();
+        }
+        body.reset();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        headers.clear();
+        status = SC_OK;
+        contentType = null;
+        characterEncoding = null;
+        outputStream = null;
+        writer = null;
+    }
+
+    private void checkNotCommitted() {
+        if (committed) {
+            throw new IllegalStateException("Response already committed");
+        }
+    }
+}
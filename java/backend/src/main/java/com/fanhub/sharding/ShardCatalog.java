@@ -0,0 +1,144 @@
+package com.fanhub.sharding;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Which shard file holds which show, kept in the home database.
+ *
+ * {@code shards} lists every shard with the base of its id range: new rows in a shard get
+ * ids above its base, so ids stay unique across files and a lookup by id can be fanned
+ * out without ambiguity. {@code shard_shows} maps each show to its shard; shows that
+ * are not listed (those created before the split in a database that was never split)
+ * live in the default shard. New shows are spread over the shards, see {@link #shardForNewShow}.
+ */
+public class ShardCatalog {
+
+    static final long ID_RANGE = 1L << 32;
+
+    private static final Pattern NAME = Pattern.compile("[a-z0-9][a-z0-9-]*");
+
+    static final String[] DDL = {
+            "CREATE TABLE IF NOT EXISTS shards (name TEXT PRIMARY KEY, id_base INTEGER NOT NULL UNIQUE)",
+            "CREATE TABLE IF NOT EXISTS shard_shows (show_id INTEGER PRIMARY KEY, shard TEXT NOT NULL REFERENCES shards(name))"
+    };
+
+    private final JdbcTemplate home;
+    private final Path directory;
+    private final String defaultShard;
+    private final Map<String, Long> idBases = new ConcurrentHashMap<>();
+    private final Map<Long, String> showShards = new ConcurrentHashMap<>();
+
+    public ShardCatalog(JdbcTemplate home, Path directory, String defaultShard) {
+        checkName(defaultShard);
+        this.home = home;
+        this.directory = directory;
+        this.defaultShard = defaultShard;
+    }
+
+    public void load() {
+        for (String ddl : DDL) {
+            home.execute(ddl);
+        }
+        home.query("SELECT name, id_base FROM shards",
+                rs -> { idBases.put(rs.getString(1), rs.getLong(2)); });
+        home.query("SELECT show_id, shard FROM shard_shows",
+                rs -> { showShards.put(rs.getLong(1), rs.getString(2)); });
+        if (!idBases.containsKey(defaultShard)) {
+            register(home, defaultShard, nextIdBase(idBases.values()));
+            idBases.put(defaultShard, home.queryForObject(
+                    "SELECT id_base FROM shards WHERE name = ?", Long.class, defaultShard));
+        }
+    }
+
+    public String shardFor(Long showId) {
+        return showId == null ? defaultShard : showShards.getOrDefault(showId, defaultShard);
+    }
+
+    public Set<String> shards() {
+        return new TreeSet<>(idBases.keySet());
+    }
+
+    public String defaultShard() {
+        return defaultShard;
+    }
+
+    /**
+     * Where to create a new show: the shard holding the fewest assigned shows, the default
+     * shard on a tie. The show's id then comes from that shard's range, and
+     * {@link #assign} records it. Concurrent creates may pick the same shard, which
+     * only makes the spread a little uneven.
+     */
+    public String shardForNewShow() {
+        Map<String, Integer> shows = new HashMap<>();
+        showShards.values().forEach(shard -> shows.merge(shard, 1, Integer::sum));
+        String best = defaultShard;
+        for (String shard : shards()) {
+            if (shows.getOrDefault(shard, 0) < shows.getOrDefault(best, 0)) {
+                best = shard;
+            }
+        }
+        return best;
+    }
+
+    public Path fileFor(String shard) {
+        return directory.resolve(shard + ".db");
+    }
+
+    long idBase(String shard) {
+        return idBases.get(shard);
+    }
+
+    /**
+     * The shard whose id range holds {@code id}, or null for ids below every range: rows
+     * copied over by a split keep the ids they had in the single database.
+     */
+    public String shardForRowId(long id) {
+        for (Map.Entry<String, Long> shard : idBases.entrySet()) {
+            long base = shard.getValue();
+            if (id >= base && id - base < ID_RANGE) {
+                return shard.getKey();
+            }
+        }
+        return null;
+    }
+
+    public Map<Long, String> assignments() {
+        return Map.copyOf(showShards);
+    }
+
+    /** Records where a newly created show lives. */
+    public void assign(Long showId, String shard) {
+        if (!idBases.containsKey(shard)) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        home.update("INSERT OR REPLACE INTO shard_shows (show_id, shard) VALUES (?, ?)", showId, shard);
+        showShards.put(showId, shard);
+    }
+
+    static void register(JdbcTemplate home, String shard, long idBase) {
+        checkName(shard);
+        home.update("INSERT OR IGNORE INTO shards (name, id_base) VALUES (?, ?)", shard, idBase);
+    }
+
+    static long nextIdBase(Iterable<Long> existing) {
+        long max = 0;
+        for (long base : existing) {
+            max = Math.max(max, base);
+        }
+        return max + ID_RANGE;
+    }
+
+    static void checkName(String shard) {
+        if (shard == null || !NAME.matcher(shard).matches()) {
+            throw new IllegalArgumentException("Shard names are lowercase letters, digits and dashes: " + shard);
+        }
+    }
+}
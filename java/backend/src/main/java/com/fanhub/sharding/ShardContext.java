@@ -0,0 +1,82 @@
+package com.fanhub.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread is working against. {@link ShardRoutingDataSource}
+ * reads it whenever a connection is borrowed; null means the home database.
+ *
+ * A request that names its show is pinned to that show's shard, but the pin is only a
+ * hint for {@link ShardedRepositoryInterceptor}: it applies to sharded repository
+ * calls, while everything else in the request (users, favorites, analytics) keeps
+ * going to the home database.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<String> PINNED = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /** Runs {@code work} with connections routed to {@code shard}, then restores the previous shard. */
+    public static <T> T callOn(String shard, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Wraps {@code task} to run with this thread's shard and request pin, for work handed
+     * to another thread. The other thread's own values are restored once it is done.
+     */
+    public static Runnable propagate(Runnable task) {
+        String current = CURRENT.get();
+        String pinned = PINNED.get();
+        return () -> {
+            String previousCurrent = CURRENT.get();
+            String previousPinned = PINNED.get();
+            set(CURRENT, current);
+            set(PINNED, pinned);
+            try {
+                task.run();
+            } finally {
+                set(CURRENT, previousCurrent);
+                set(PINNED, previousPinned);
+            }
+        };
+    }
+
+    private static void set(ThreadLocal<String> local, String value) {
+        if (value == null) {
+            local.remove();
+        } else {
+            local.set(value);
+        }
+    }
+
+    /** The shard of the show the current request names, if any. */
+    static String pinned() {
+        return PINNED.get();
+    }
+
+    static void pin(String shard) {
+        PINNED.set(shard);
+    }
+
+    static void unpin() {
+        PINNED.remove();
+    }
+}
@@ -0,0 +1,39 @@
+package com.fanhub.sharding;
+
+import com.fanhub.config.SchemaMigrations;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.util.List;
+
+/** Creates and upgrades shard files; shared by the running app and {@link ShardSplitter}. */
+final class ShardFiles {
+
+    // Tables whose rows belong to a show and move into its shard
+    static final List<String> SHARDED_TABLES = List.of(
+            "shows", "seasons", "episodes", "characters", "character_episodes", "quotes");
+
+    private ShardFiles() {
+    }
+
+    /** Applies schema.sql and the migrations, and moves every id sequence above {@code idBase}. */
+    static void prepare(JdbcTemplate shard, long idBase) {
+        shard.execute((ConnectionCallback<Void>) connection -> {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("schema.sql"));
+            return null;
+        });
+        SchemaMigrations.migrate(shard);
+        for (String table : SHARDED_TABLES) {
+            // sqlite_sequence has no key on name, so update-or-insert by hand
+            int updated = shard.update("UPDATE sqlite_sequence SET seq = ? WHERE name = ? AND seq < ?",
+                    idBase, table, idBase);
+            Integer rows = shard.queryForObject(
+                    "SELECT COUNT(*) FROM sqlite_sequence WHERE name = ?", Integer.class, table);
+            if (updated == 0 && rows != null && rows == 0) {
+                shard.update("INSERT INTO sqlite_sequence (name, seq) VALUES (?, ?)", table, idBase);
+            }
+        }
+    }
+}
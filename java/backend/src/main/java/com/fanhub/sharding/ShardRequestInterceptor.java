@@ -0,0 +1,59 @@
+package com.fanhub.sharding;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Pins a request to one shard when it names its show: {@code /api/shows/{id}/...}, a
+ * {@code showId} query parameter, or an {@code X-Show-Id} header. The pin only steers
+ * sharded repository calls that carry no show id of their own (see
+ * {@link ShardedRepositoryInterceptor}); home tables stay on the home database. Unpinned
+ * requests are routed call by call.
+ */
+class ShardRequestInterceptor implements HandlerInterceptor {
+
+    static final String HEADER = "X-Show-Id";
+
+    private final ShardRouter router;
+
+    ShardRequestInterceptor(ShardRouter router) {
+        this.router = router;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Long showId = showId(request);
+        if (showId != null) {
+            ShardContext.pin(router.shardOf(showId));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ShardContext.unpin();
+    }
+
+    private static Long showId(HttpServletRequest request) {
+        String value = request.getHeader(HEADER);
+        if (value == null) {
+            value = request.getParameter("showId");
+        }
+        if (value == null && request.getRequestURI().startsWith("/api/shows/")) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> variables = (Map<String, String>)
+                    request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            value = variables == null ? null : variables.get("id");
+        }
+        try {
+            return value == null ? null : Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            // Let the controller reject it
+            return null;
+        }
+    }
+}
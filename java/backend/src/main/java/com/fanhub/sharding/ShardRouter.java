@@ -0,0 +1,90 @@
+package com.fanhub.sharding;
+
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs work against one shard or all of them. Only exists when sharding is enabled.
+ */
+public class ShardRouter {
+
+    private final ShardCatalog catalog;
+    private final ExecutorService fanOutPool;
+
+    public ShardRouter(ShardCatalog catalog, int fanOutThreads) {
+        this.catalog = catalog;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanOutPool = Executors.newFixedThreadPool(fanOutThreads, r -> {
+            Thread t = new Thread(r, "shard-fanout-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public ShardCatalog catalog() {
+        return catalog;
+    }
+
+    public String shardOf(Long showId) {
+        return catalog.shardFor(showId);
+    }
+
+    public <T> T onShardOf(Long showId, Supplier<T> work) {
+        return ShardContext.callOn(shardOf(showId), work);
+    }
+
+    /** Runs {@code work} once per shard, in parallel, and returns the results in shard order. */
+    public <T> List<T> fanOut(Supplier<T> work) {
+        Set<String> shards = catalog.shards();
+        if (shards.size() == 1) {
+            return List.of(ShardContext.callOn(shards.iterator().next(), work));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (String shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> ShardContext.callOn(shard, work), fanOutPool));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * For lookups by a globally unique id: runs {@code work} on the show's shard when it is
+     * known, otherwise shard by shard until one returns rows.
+     */
+    public <R> List<R> firstNonEmpty(Long showId, Supplier<List<R>> work) {
+        if (showId != null) {
+            return onShardOf(showId, work);
+        }
+        for (String shard : catalog.shards()) {
+            List<R> rows = ShardContext.callOn(shard, work);
+            if (!rows.isEmpty()) {
+                return rows;
+            }
+        }
+        return List.of();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOutPool.shutdownNow();
+    }
+}
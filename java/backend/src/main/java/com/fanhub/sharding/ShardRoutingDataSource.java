@@ -0,0 +1,15 @@
+package com.fanhub.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections to the shard named by {@link ShardContext}, or to the home
+ * database (users, favorites, analytics, the shard catalog) when none is set.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,132 @@
+package com.fanhub.sharding;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Splits a single fanhub.db into per-show shard files and records them in its catalog.
+ *
+ * <pre>
+ * java -cp fanhub-backend.jar -Dloader.main=com.fanhub.sharding.ShardSplitter \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher fanhub.db shards [shows-per-shard]
+ * </pre>
+ *
+ * The source database becomes the home database: its show-scoped rows are copied, not
+ * moved, and are ignored once sharding is enabled. Run it with the app stopped.
+ */
+public final class ShardSplitter {
+
+    private ShardSplitter() {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 2) {
+            System.err.println("Usage: ShardSplitter <source.db> <shard-dir> [shows-per-shard]");
+            System.exit(2);
+        }
+        Path source = Path.of(args[0]);
+        Path directory = Path.of(args[1]);
+        int showsPerShard = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        if (!Files.exists(source) || showsPerShard < 1) {
+            throw new IllegalArgumentException("Need an existing source database and shows-per-shard >= 1");
+        }
+        split(source, directory, showsPerShard);
+    }
+
+    static void split(Path source, Path directory, int showsPerShard) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + source)) {
+            JdbcTemplate home = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            for (String ddl : ShardCatalog.DDL) {
+                home.execute(ddl);
+            }
+            Integer assigned = home.queryForObject("SELECT COUNT(*) FROM shard_shows", Integer.class);
+            if (assigned != null && assigned > 0) {
+                throw new IllegalStateException(source + " is already split (" + assigned + " shows assigned)");
+            }
+            for (String table : ShardFiles.SHARDED_TABLES) {
+                Long maxId = home.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+                if (maxId != null && maxId >= ShardCatalog.ID_RANGE) {
+                    throw new IllegalStateException(table + " ids exceed the per-shard id range");
+                }
+            }
+
+            List<Long> showIds = home.queryForList("SELECT id FROM shows ORDER BY id", Long.class);
+            List<List<Long>> groups = new ArrayList<>();
+            for (int i = 0; i < showIds.size(); i += showsPerShard) {
+                groups.add(showIds.subList(i, Math.min(i + showsPerShard, showIds.size())));
+            }
+            Files.createDirectories(directory);
+
+            long idBase = ShardCatalog.nextIdBase(home.queryForList("SELECT id_base FROM shards", Long.class));
+            for (List<Long> group : groups) {
+                String shard = group.size() == 1
+                        ? "show-" + group.get(0)
+                        : "shows-" + group.get(0) + "-" + group.get(group.size() - 1);
+                Path file = directory.resolve(shard + ".db");
+                if (Files.exists(file)) {
+                    throw new IllegalStateException(file + " already exists");
+                }
+                long copied = copyShard(source, file, group, idBase);
+                ShardCatalog.register(home, shard, idBase);
+                for (Long showId : group) {
+                    home.update("INSERT INTO shard_shows (show_id, shard) VALUES (?, ?)", showId, shard);
+                }
+                System.out.printf("%s: shows %s, %d rows%n", file, group, copied);
+                idBase += ShardCatalog.ID_RANGE;
+            }
+            System.out.printf("Split %d shows into %d shards under %s%n", showIds.size(), groups.size(), directory);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long copyShard(Path source, Path file, List<Long> showIds, long idBase) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file)) {
+            JdbcTemplate shard = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            ShardFiles.prepare(shard, idBase);
+            shard.update("ATTACH DATABASE ? AS src", source.toAbsolutePath().toString());
+            String ids = showIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+            long copied = 0;
+            connection.setAutoCommit(false);
+            try {
+                for (String table : ShardFiles.SHARDED_TABLES) {
+                    String where = switch (table) {
+                        case "shows" -> "id IN (" + ids + ")";
+                        case "character_episodes" -> "character_id IN (SELECT id FROM main.characters)";
+                        default -> "show_id IN (" + ids + ")";
+                    };
+                    String columns = String.join(", ", commonColumns(shard, table));
+                    copied += shard.update("INSERT INTO main." + table + " (" + columns + ")"
+                            + " SELECT " + columns + " FROM src." + table + " WHERE " + where);
+                }
+                connection.commit();
+            } catch (RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            shard.execute("DETACH DATABASE src");
+            return copied;
+        }
+    }
+
+    // Copy only columns both sides know, so an older source schema still splits
+    private static List<String> commonColumns(JdbcTemplate shard, String table) {
+        List<String> target = shard.queryForList("SELECT name FROM pragma_table_info(?, 'main')", String.class, table);
+        List<String> source = shard.queryForList(
+                "SELECT name FROM pragma_table_info(?, 'src')", String.class, table);
+        target.retainAll(source);
+        return target;
+    }
+}
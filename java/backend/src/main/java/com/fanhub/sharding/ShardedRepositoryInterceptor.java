@@ -0,0 +1,271 @@
+package com.fanhub.sharding;
+
+import com.fanhub.model.Character;
+import com.fanhub.model.Episode;
+import com.fanhub.model.Quote;
+import com.fanhub.model.Season;
+import com.fanhub.model.Show;
+import com.fanhub.repository.ShowRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decides which shard a show-scoped repository call runs on.
+ *
+ * In order: saves and deletes go to the shard of the entity's show; {@code ...ByShowId}
+ * queries go to the shard(s) of their show id argument, split per shard for IN lists;
+ * lookups by id go to the shard the id belongs to (the show's shard for shows, the id
+ * range for other rows), split per shard for id lists, and are fanned out for ids from
+ * before the split; anything else runs on the shard pinned for the request, if any, or
+ * is fanned out to every shard and the results merged. The pin comes from the client,
+ * so it only steers calls that carry no id of their own. Callers and the repositories
+ * themselves do not know about shards.
+ *
+ * A new show has no id to route by, so it goes to {@link ShardCatalog#shardForNewShow}:
+ * its id then comes from that shard's id range on insert, and the show is assigned
+ * there. Shows are never moved afterwards.
+ *
+ * The repositories' own {@code @Transactional} advice sits inside this proxy, so their
+ * transactions start after the call has been routed and open on the right shard. Only a
+ * transaction the caller already holds is left alone: its connection is bound to the
+ * thread and cannot be re-routed mid-flight.
+ */
+class ShardedRepositoryInterceptor implements MethodInterceptor {
+
+    private static final Comparator<Object> BY_ID = Comparator.comparing(
+            ShardedRepositoryInterceptor::idOf, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Object target;
+    private final ObjectProvider<ShardRouter> routerProvider;
+
+    ShardedRepositoryInterceptor(Object target, ObjectProvider<ShardRouter> routerProvider) {
+        this.target = target;
+        this.routerProvider = routerProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        Object[] args = invocation.getArguments();
+        ShardRouter router = routerProvider.getIfAvailable();
+        if (router == null || method.getDeclaringClass() == Object.class
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            // A caller's transaction already holds a connection; it cannot be re-routed mid-flight.
+            return call(method, args);
+        }
+        String name = method.getName();
+        boolean showRepository = target instanceof ShowRepository;
+
+        if ((name.equals("save") || name.equals("saveAndFlush") || name.equals("delete")) && args.length == 1) {
+            Object entity = args[0];
+            boolean newShow = entity instanceof Show show && show.getId() == null && !name.equals("delete");
+            String shard = shardForEntity(router, entity);
+            Object result = ShardContext.callOn(shard, () -> call(method, args));
+            if (newShow && result instanceof Show saved) {
+                router.catalog().assign(saved.getId(), shard);
+            }
+            return result;
+        }
+        if (name.equals("saveAll") && args.length == 1 && args[0] instanceof Iterable<?> entities) {
+            Map<String, List<Object>> byShard = new LinkedHashMap<>();
+            for (Object entity : entities) {
+                byShard.computeIfAbsent(shardForEntity(router, entity), k -> new ArrayList<>()).add(entity);
+            }
+            List<Object> saved = new ArrayList<>();
+            byShard.forEach((shard, group) -> {
+                List<Show> newShows = group.stream()
+                        .filter(e -> e instanceof Show show && show.getId() == null).map(Show.class::cast).toList();
+                saved.addAll((List<?>) ShardContext.callOn(shard, () -> call(method, new Object[]{group})));
+                // Persisting a new entity fills in the id on the same instance
+                newShows.forEach(show -> router.catalog().assign(show.getId(), shard));
+            });
+            return saved;
+        }
+        if (name.contains("ByShowId") && args.length > 0) {
+            if (args[0] instanceof Long showId) {
+                return router.onShardOf(showId, () -> call(method, args));
+            }
+            if (args[0] instanceof Collection<?> showIds) {
+                return byShowIds(router, method, args, showIds);
+            }
+        }
+        // By id: the id says where the row lives, whatever shard the request is pinned to
+        if (args.length == 1 && args[0] instanceof Long id
+                && (name.equals("findById") || name.equals("existsById") || name.equals("deleteById"))) {
+            String shard = shardForId(router, showRepository, id);
+            return shard != null ? ShardContext.callOn(shard, () -> call(method, args))
+                    : merge(method, router.fanOut(() -> call(method, args)));
+        }
+        if (args.length == 1 && args[0] instanceof Iterable<?> ids
+                && (name.equals("findAllById") || name.equals("deleteAllById"))) {
+            return byIds(router, showRepository, method, ids);
+        }
+        if (ShardContext.current() != null) {
+            return call(method, args);
+        }
+        String pinned = ShardContext.pinned();
+        if (pinned != null) {
+            return ShardContext.callOn(pinned, () -> call(method, args));
+        }
+        return merge(method, router.fanOut(() -> call(method, args)));
+    }
+
+    // Splits an IN list by shard so each shard only sees its own shows
+    private Object byShowIds(ShardRouter router, Method method, Object[] args, Collection<?> showIds) {
+        Map<String, List<Long>> byShard = new LinkedHashMap<>();
+        for (Object id : showIds) {
+            byShard.computeIfAbsent(router.shardOf((Long) id), k -> new ArrayList<>()).add((Long) id);
+        }
+        List<Object> results = new ArrayList<>();
+        byShard.forEach((shard, ids) -> {
+            Object[] shardArgs = args.clone();
+            shardArgs[0] = ids;
+            results.add(ShardContext.callOn(shard, () -> call(method, shardArgs)));
+        });
+        return merge(method, results);
+    }
+
+    // Splits an id list by the shard each id belongs to; ids from before the split are looked up everywhere
+    private Object byIds(ShardRouter router, boolean showRepository, Method method, Iterable<?> ids) {
+        Map<String, List<Object>> byShard = new LinkedHashMap<>();
+        List<Object> unknown = new ArrayList<>();
+        for (Object id : ids) {
+            String shard = id instanceof Long l ? shardForId(router, showRepository, l) : null;
+            (shard != null ? byShard.computeIfAbsent(shard, k -> new ArrayList<>()) : unknown).add(id);
+        }
+        List<Object> results = new ArrayList<>();
+        byShard.forEach((shard, group) -> results.add(ShardContext.callOn(shard, () -> call(method, new Object[]{group}))));
+        if (!unknown.isEmpty()) {
+            results.add(merge(method, router.fanOut(() -> call(method, new Object[]{unknown}))));
+        }
+        return merge(method, results);
+    }
+
+    // Shows are looked up in the catalog; other rows by the id range they were created in
+    private static String shardForId(ShardRouter router, boolean showRepository, Long id) {
+        return showRepository ? router.shardOf(id) : router.catalog().shardForRowId(id);
+    }
+
+    private String shardForEntity(ShardRouter router, Object entity) {
+        Long showId = entity instanceof Show show ? show.getId() : showIdOf(entity);
+        if (showId != null) {
+            return router.shardOf(showId);
+        }
+        if (entity instanceof Show) {
+            return router.catalog().shardForNewShow();
+        }
+        if (ShardContext.current() != null) {
+            return ShardContext.current();
+        }
+        if (ShardContext.pinned() != null) {
+            return ShardContext.pinned();
+        }
+        // No show id on the row: update it wherever it already lives
+        Long id = idOf(entity);
+        if (id != null) {
+            Method existsById = findMethod("existsById");
+            for (String shard : router.catalog().shards()) {
+                if (Boolean.TRUE.equals(ShardContext.callOn(shard, () -> call(existsById, new Object[]{id})))) {
+                    return shard;
+                }
+            }
+        }
+        return router.catalog().defaultShard();
+    }
+
+    private Object merge(Method method, List<?> results) {
+        Class<?> type = method.getReturnType();
+        if (type == void.class) {
+            return null;
+        }
+        if (type == Optional.class) {
+            return results.stream().map(r -> (Optional<?>) r).filter(Optional::isPresent).findFirst()
+                    .orElse(Optional.empty());
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return results.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        if (type.isPrimitive() || Number.class.isAssignableFrom(type)) {
+            return sum(method, type, results);
+        }
+        if (Iterable.class.isAssignableFrom(type)) {
+            List<Object> merged = new ArrayList<>();
+            for (Object result : results) {
+                ((Iterable<?>) result).forEach(merged::add);
+            }
+            if (method.getName().startsWith("findAll")) {
+                // Match the single-database order (rowid) for unsorted finders
+                merged.sort(BY_ID);
+            }
+            return merged;
+        }
+        return results.stream().filter(r -> r != null).findFirst().orElse(null);
+    }
+
+    // Counts and sums add up across shards; the total keeps the method's declared type
+    private static Object sum(Method method, Class<?> type, List<?> results) {
+        if (type == double.class || type == Double.class || type == float.class || type == Float.class) {
+            double total = results.stream().filter(r -> r != null).mapToDouble(r -> ((Number) r).doubleValue()).sum();
+            return type == float.class || type == Float.class ? (Object) (float) total : (Object) total;
+        }
+        long total = results.stream().filter(r -> r != null).mapToLong(r -> ((Number) r).longValue()).sum();
+        if (type == long.class || type == Long.class) {
+            return total;
+        }
+        if (type == int.class || type == Integer.class) {
+            return Math.toIntExact(total);
+        }
+        if (type == short.class || type == Short.class) {
+            return (short) total;
+        }
+        throw new UnsupportedOperationException("Cannot merge " + type + " across shards: " + method);
+    }
+
+    private Object call(Method method, Object[] args) {
+        try {
+            return AopUtils.invokeJoinpointUsingReflection(target, method, args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Method findMethod(String name) {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == 1) {
+                return method;
+            }
+        }
+        throw new IllegalStateException("No " + name + " on " + target);
+    }
+
+    private static Long showIdOf(Object entity) {
+        if (entity instanceof Season s) return s.getShowId();
+        if (entity instanceof Episode e) return e.getShowId();
+        if (entity instanceof Character c) return c.getShowId();
+        if (entity instanceof Quote q) return q.getShowId();
+        return null;
+    }
+
+    private static Long idOf(Object entity) {
+        if (entity instanceof Show s) return s.getId();
+        if (entity instanceof Season s) return s.getId();
+        if (entity instanceof Episode e) return e.getId();
+        if (entity instanceof Character c) return c.getId();
+        if (entity instanceof Quote q) return q.getId();
+        return null;
+    }
+}
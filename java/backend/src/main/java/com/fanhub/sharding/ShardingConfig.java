@@ -0,0 +1,143 @@
+package com.fanhub.sharding;
+
+import com.fanhub.repository.CharacterRepository;
+import com.fanhub.repository.EpisodeRepository;
+import com.fanhub.repository.QuoteRepository;
+import com.fanhub.repository.SeasonRepository;
+import com.fanhub.repository.ShowRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.repository.Repository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sharded storage mode ({@code fanhub.shards.enabled=true}).
+ *
+ * The configured datasource becomes the home database and holds the shard catalog,
+ * users, favorites and analytics. Shows, seasons, episodes, characters, appearances and
+ * quotes live in one SQLite file per shard, so each shard has its own writer lock.
+ * Split an existing database with {@link ShardSplitter} before turning this on.
+ */
+@Configuration
+@ConditionalOnProperty(name = "fanhub.shards.enabled", havingValue = "true")
+public class ShardingConfig implements WebMvcConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardingConfig.class);
+
+    private static final List<Class<?>> SHARDED_REPOSITORIES = List.of(
+            ShowRepository.class, SeasonRepository.class, EpisodeRepository.class,
+            CharacterRepository.class, QuoteRepository.class);
+
+    private final ObjectProvider<ShardRouter> router;
+
+    public ShardingConfig(ObjectProvider<ShardRouter> router) {
+        this.router = router;
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource homeDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ShardCatalog shardCatalog(HikariDataSource homeDataSource,
+                                     @Value("${fanhub.shards.dir:./shards}") String directory,
+                                     @Value("${fanhub.shards.default-shard:shared}") String defaultShard) {
+        ShardCatalog catalog = new ShardCatalog(new JdbcTemplate(homeDataSource), Path.of(directory), defaultShard);
+        catalog.load();
+        return catalog;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource homeDataSource, ShardCatalog shardCatalog,
+                                 @Value("${fanhub.shards.pool-size:4}") int poolSize) {
+        Map<Object, Object> shards = new HashMap<>();
+        for (String shard : shardCatalog.shards()) {
+            Path file = shardCatalog.fileFor(shard);
+            if (!Files.exists(file)) {
+                log.warn("Shard file {} does not exist; starting {} empty", file, shard);
+                createParent(file);
+            }
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("shard-" + shard);
+            dataSource.setJdbcUrl("jdbc:sqlite:" + file);
+            dataSource.setMaximumPoolSize(poolSize);
+            dataSource.setConnectionInitSql(homeDataSource.getConnectionInitSql());
+            ShardFiles.prepare(new JdbcTemplate(dataSource), shardCatalog.idBase(shard));
+            shards.put(shard, dataSource);
+        }
+        log.info("Sharded storage: {} shards, {} shows assigned, default shard {}",
+                shards.size(), shardCatalog.assignments().size(), shardCatalog.defaultShard());
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setDefaultTargetDataSource(homeDataSource);
+        routing.setTargetDataSources(shards);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardCatalog shardCatalog,
+                                   @Value("${fanhub.shards.fan-out-threads:4}") int fanOutThreads) {
+        return new ShardRouter(shardCatalog, fanOutThreads);
+    }
+
+    // Static so it is registered before the repositories are created
+    @Bean
+    public static BeanPostProcessor shardedRepositories(ObjectProvider<ShardRouter> router) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (SHARDED_REPOSITORIES.stream().noneMatch(type -> type.isInstance(bean))) {
+                    return bean;
+                }
+                ProxyFactory factory = new ProxyFactory();
+                factory.setTarget(bean);
+                factory.setInterfaces(Arrays.stream(ClassUtils.getAllInterfaces(bean))
+                        .filter(Repository.class::isAssignableFrom)
+                        .toArray(Class<?>[]::new));
+                factory.addAdvice(new ShardedRepositoryInterceptor(bean, router));
+                return factory.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ShardRequestInterceptor(router.getObject())).addPathPatterns("/api/**");
+    }
+
+    private static void createParent(Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
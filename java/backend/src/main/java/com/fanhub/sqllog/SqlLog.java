@@ -0,0 +1,118 @@
+package com.fanhub.sqllog;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which executed statements are worth a log line.
+ *
+ * Statements at or above the slow threshold always go to the {@code fanhub.sql.slow}
+ * logger at WARN; the rest are sampled into {@code fanhub.sql.sampled} at INFO with
+ * the configured probability. Each line carries the elapsed time, the endpoint that
+ * issued the statement, the SQL and its bound parameters. Statements that mention a
+ * redacted table or column (by default {@code users}, {@code email} and
+ * {@code password_hash}) only show the type of each parameter, never its value.
+ */
+public class SqlLog {
+
+    private static final Logger slowLog = LoggerFactory.getLogger("fanhub.sql.slow");
+    private static final Logger sampledLog = LoggerFactory.getLogger("fanhub.sql.sampled");
+
+    private static final int MAX_PARAMETERS = 32;
+
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final int maxParameterLength;
+    private final Pattern redacted;
+
+    public SqlLog(long slowThresholdMs, double sampleRate, int maxParameterLength, String... redact) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.sampleRate = sampleRate;
+        this.maxParameterLength = maxParameterLength;
+        String names = Arrays.stream(redact).map(String::trim).filter(name -> !name.isEmpty())
+                .map(Pattern::quote).collect(Collectors.joining("|"));
+        this.redacted = names.isEmpty() ? null
+                : Pattern.compile("\\b(?:" + names + ")\\b", Pattern.CASE_INSENSITIVE);
+    }
+
+    void record(String sql, List<Object> parameters, long elapsedNanos, int batchSize) {
+        if (elapsedNanos >= slowThresholdNanos) {
+            if (slowLog.isWarnEnabled()) {
+                slowLog.warn(format(sql, parameters, elapsedNanos, batchSize));
+            }
+        } else if (sampleRate > 0 && sampledLog.isInfoEnabled()
+                && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            sampledLog.info(format(sql, parameters, elapsedNanos, batchSize));
+        }
+    }
+
+    String format(String sql, List<Object> parameters, long elapsedNanos, int batchSize) {
+        StringBuilder line = new StringBuilder(256)
+                .append(String.format(Locale.ROOT, "%.1f ms", elapsedNanos / 1_000_000.0))
+                .append(" [").append(endpoint()).append("] ");
+        if (batchSize > 0) {
+            line.append("batch of ").append(batchSize).append(": ");
+        }
+        line.append(sql == null ? "?" : sql.replaceAll("\\s+", " ").trim());
+        if (!parameters.isEmpty()) {
+            // Which parameter binds which column is not known here, so redact the whole statement
+            boolean redact = redacted != null && (sql == null || redacted.matcher(sql).find());
+            line.append(" | params [");
+            int shown = Math.min(parameters.size(), MAX_PARAMETERS);
+            for (int i = 0; i < shown; i++) {
+                if (i > 0) {
+                    line.append(", ");
+                }
+                line.append(redact ? typeOf(parameters.get(i)) : render(parameters.get(i)));
+            }
+            if (parameters.size() > shown) {
+                line.append(", ... ").append(parameters.size() - shown).append(" more");
+            }
+            line.append(']');
+        }
+        return line.toString();
+    }
+
+    private String render(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        String text = value.toString();
+        if (text.length() > maxParameterLength) {
+            text = text.substring(0, maxParameterLength) + "...";
+        }
+        return "'" + text + "'";
+    }
+
+    private static String typeOf(Object value) {
+        return value == null ? "null" : "<" + value.getClass().getSimpleName() + ">";
+    }
+
+    // Route pattern of the request on this thread, or the thread name for background work
+    private static String endpoint() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        }
+        return Thread.currentThread().getName();
+    }
+}
@@ -0,0 +1,44 @@
+package com.fanhub.sqllog;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Slow-query log ({@code fanhub.sql-log.enabled=true}, on in the {@code prod} profile).
+ *
+ * Replaces Hibernate's show-sql, which formats and prints every statement on the
+ * request thread, with a timing wrapper around the {@code dataSource} bean that only
+ * logs slow statements and a small random sample of the rest.
+ */
+@Configuration
+@ConditionalOnProperty(name = "fanhub.sql-log.enabled", havingValue = "true")
+public class SqlLogConfig {
+
+    @Bean
+    public static SqlLog sqlLog(@Value("${fanhub.sql-log.slow-threshold-ms:100}") long slowThresholdMs,
+                                @Value("${fanhub.sql-log.sample-rate:0.001}") double sampleRate,
+                                @Value("${fanhub.sql-log.max-parameter-length:64}") int maxParameterLength,
+                                @Value("${fanhub.sql-log.redact:users,email,password_hash}") String[] redact) {
+        return new SqlLog(slowThresholdMs, sampleRate, maxParameterLength, redact);
+    }
+
+    // Only the primary bean: in sharded mode it is the router, so the home pool behind it is not wrapped twice
+    @Bean
+    public static BeanPostProcessor loggingDataSource(SqlLog sqlLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (beanName.equals("dataSource") && bean instanceof DataSource dataSource
+                        && !(bean instanceof LoggingDataSource)) {
+                    return new LoggingDataSource(dataSource, sqlLog);
+                }
+                return bean;
+            }
+        };
+    }
+}
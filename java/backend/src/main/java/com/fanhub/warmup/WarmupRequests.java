@@ -0,0 +1,29 @@
+package com.fanhub.warmup;
+
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
+
+/**
+ * Marks the synthetic requests sent by {@link WarmupService}.
+ *
+ * The header value is random per process, so clients cannot pass their own traffic off
+ * as warm-up. Side effects that should only reflect real users (view counts) check
+ * {@link #isCurrent()}.
+ */
+public final class WarmupRequests {
+
+    public static final String HEADER = "X-FanHub-Warmup";
+
+    static final String TOKEN = UUID.randomUUID().toString();
+
+    private WarmupRequests() {
+    }
+
+    /** Whether the request being handled on this thread is a warm-up request. */
+    public static boolean isCurrent() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && TOKEN.equals(attributes.getRequest().getHeader(HEADER));
+    }
+}
@@ -0,0 +1,365 @@
+package com.fanhub.warmup;
+
+import com.fanhub.analytics.ViewAnalyticsService;
+import com.fanhub.analytics.ViewKind;
+import com.fanhub.catalog.CatalogService;
+import com.fanhub.service.InProcessDispatcher;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warms a freshly started instance before it reports ready.
+ *
+ * Right after boot the JIT has compiled nothing, Hibernate's query plan cache is empty,
+ * the SQLite files are not in the OS page cache and the in-memory caches are cold, so
+ * the first real users pay for all of it. Once the application is up this service, on
+ * its own thread:
+ * <ol>
+ *   <li>reads every index (optionally every table) of the database once, so the pages
+ *       behind the indexed lookups are cached by the OS,</li>
+ *   <li>waits for the catalog snapshot when snapshot reads are enabled,</li>
+ *   <li>replays {@code fanhub.warmup.mix} in rounds through the
+ *       {@link InProcessDispatcher}, like the sub-requests of {@code /api/batch}, so
+ *       security, controllers, serialization, query plans, the {@code @Cacheable} caches
+ *       and image variants all get exercised whatever the connector's scheme or context
+ *       path.</li>
+ * </ol>
+ * It stops as soon as a round's p99 is within {@code target-p99-ms} (after
+ * {@code min-rounds}), or at {@code max-rounds} / {@code max-duration-seconds}.
+ * {@code /api/health/ready} answers 503 until then.
+ *
+ * Mix entries are {@code weight path}, separated by {@code ;}. {@code {character}} and
+ * {@code {episode}} in a path cycle through the most viewed ids of the last week (the
+ * lowest ids on a fresh install). Warm-up requests are not counted as views.
+ * In sharded mode the page touch reads the home database only; the replay reaches the
+ * shards.
+ */
+@Service
+public class WarmupService {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+
+    public enum State { DISABLED, PENDING, WARMING, READY }
+
+    record MixEntry(int weight, String path) {}
+
+    private static final Map<String, String> HEADERS = Map.of(
+            "Accept", "application/json, image/*",
+            WarmupRequests.HEADER, WarmupRequests.TOKEN);
+
+    private final Environment environment;
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogService catalogService;
+    private final ViewAnalyticsService viewAnalytics;
+    private final InProcessDispatcher dispatcher;
+    private final boolean enabled;
+    private final List<MixEntry> mix;
+    private final String touchPages;
+    private final int concurrency;
+    private final int hotItems;
+    private final int minRounds;
+    private final int maxRounds;
+    private final long targetP99Nanos;
+    private final long maxDurationNanos;
+    private final ExecutorService executor;
+
+    private volatile State state;
+    private volatile String reason;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile int pagesTouched;
+    private volatile int rounds;
+    private volatile double lastP50Ms;
+    private volatile double lastP99Ms;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public WarmupService(Environment environment, JdbcTemplate jdbcTemplate,
+                         CatalogService catalogService, ViewAnalyticsService viewAnalytics,
+                         InProcessDispatcher dispatcher,
+                         @Value("${fanhub.warmup.enabled:false}") boolean enabled,
+                         @Value("${fanhub.warmup.mix:1 /api/shows}") String mix,
+                         @Value("${fanhub.warmup.touch-pages:indexes}") String touchPages,
+                         @Value("${fanhub.warmup.concurrency:4}") int concurrency,
+                         @Value("${fanhub.warmup.hot-items:20}") int hotItems,
+                         @Value("${fanhub.warmup.min-rounds:3}") int minRounds,
+                         @Value("${fanhub.warmup.max-rounds:50}") int maxRounds,
+                         @Value("${fanhub.warmup.target-p99-ms:25}") long targetP99Ms,
+                         @Value("${fanhub.warmup.max-duration-seconds:60}") long maxDurationSeconds) {
+        this.environment = environment;
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogService = catalogService;
+        this.viewAnalytics = viewAnalytics;
+        this.dispatcher = dispatcher;
+        this.enabled = enabled;
+        this.mix = parseMix(mix);
+        this.touchPages = touchPages.trim().toLowerCase();
+        if (!List.of("none", "indexes", "all").contains(this.touchPages)) {
+            throw new IllegalArgumentException("fanhub.warmup.touch-pages must be none, indexes or all: " + touchPages);
+        }
+        this.concurrency = Math.max(1, concurrency);
+        this.hotItems = Math.max(1, Math.min(hotItems, 100));
+        this.minRounds = Math.max(1, minRounds);
+        this.maxRounds = Math.max(this.minRounds, maxRounds);
+        this.targetP99Nanos = TimeUnit.MILLISECONDS.toNanos(targetP99Ms);
+        this.maxDurationNanos = TimeUnit.SECONDS.toNanos(maxDurationSeconds);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.concurrency, r -> {
+            Thread t = new Thread(r, "warmup-client-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.state = enabled ? State.PENDING : State.DISABLED;
+        this.reason = enabled ? "waiting for startup" : "warm-up disabled";
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::run, "warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** True once warm-up has finished, hit its latency target, given up, or is disabled. */
+    public boolean isComplete() {
+        return state == State.DISABLED || state == State.READY;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state);
+        status.put("reason", reason);
+        long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+        status.put("elapsedMs", startedAt == 0 ? 0 : (end - startedAt) / 1_000_000);
+        status.put("pagesTouched", pagesTouched);
+        status.put("rounds", rounds);
+        status.put("requests", requests.get());
+        status.put("failures", failures.get());
+        status.put("lastRoundP50Ms", lastP50Ms);
+        status.put("lastRoundP99Ms", lastP99Ms);
+        status.put("targetP99Ms", TimeUnit.NANOSECONDS.toMillis(targetP99Nanos));
+        return status;
+    }
+
+    private void run() {
+        startedAt = System.nanoTime();
+        state = State.WARMING;
+        try {
+            reason = "touching database pages";
+            touchPages();
+            reason = "waiting for catalog snapshot";
+            awaitSnapshot();
+            reason = "replaying request mix";
+            replay();
+        } catch (RuntimeException e) {
+            // A broken warm-up must not keep the instance out of rotation forever
+            log.warn("Warm-up failed, reporting ready anyway: {}", e.getMessage(), e);
+            finish("failed: " + e.getMessage());
+        }
+    }
+
+    // count(*) walks every page of the b-tree it is pointed at
+    private void touchPages() {
+        if (touchPages.equals("none")) {
+            return;
+        }
+        long start = System.nanoTime();
+        int touched = 0;
+        List<Map<String, Object>> objects = jdbcTemplate.queryForList(
+                "SELECT type, name, tbl_name FROM sqlite_master"
+                        + " WHERE type IN ('table', 'index') AND name NOT LIKE 'sqlite_%' ORDER BY tbl_name, type");
+        for (Map<String, Object> object : objects) {
+            String table = quote((String) object.get("tbl_name"));
+            boolean index = "index".equals(object.get("type"));
+            if (!index && !touchPages.equals("all")) {
+                continue;
+            }
+            String sql = index
+                    ? "SELECT COUNT(*) FROM " + table + " INDEXED BY " + quote((String) object.get("name"))
+                    : "SELECT COUNT(*) FROM " + table + " NOT INDEXED";
+            try {
+                jdbcTemplate.queryForObject(sql, Long.class);
+                touched++;
+            } catch (RuntimeException e) {
+                // Partial indexes cannot be forced for an unrestricted count
+                log.debug("Skipped warm-up of {}: {}", object.get("name"), e.getMessage());
+            }
+        }
+        pagesTouched = touched;
+        log.info("Warm-up read {} {} in {} ms", touched, touchPages.equals("all") ? "tables and indexes" : "indexes",
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void awaitSnapshot() {
+        while (catalogService.isEnabled() && catalogService.snapshot() == null && !timedOut()) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void replay() {
+        List<String> round = expand();
+        if (round.isEmpty()) {
+            finish("nothing to replay");
+            return;
+        }
+        InProcessDispatcher.Origin origin = new InProcessDispatcher.Origin(
+                environment.getProperty("server.ssl.enabled", Boolean.class, false) ? "https" : "http", "localhost",
+                environment.getProperty("local.server.port", Integer.class,
+                        environment.getProperty("server.port", Integer.class, 8080)),
+                "127.0.0.1");
+        while (true) {
+            long[] latencies = runRound(origin, round);
+            Arrays.sort(latencies);
+            rounds++;
+            long p99 = percentile(latencies, 0.99);
+            lastP50Ms = percentile(latencies, 0.50) / 1_000_000.0;
+            lastP99Ms = p99 / 1_000_000.0;
+            log.debug("Warm-up round {}: {} requests, p50 {} ms, p99 {} ms", rounds, latencies.length, lastP50Ms, lastP99Ms);
+
+            if (rounds >= minRounds && p99 <= targetP99Nanos) {
+                finish("p99 target met");
+                return;
+            }
+            if (rounds >= maxRounds) {
+                finish("max rounds reached");
+                return;
+            }
+            if (timedOut()) {
+                finish("time limit reached");
+                return;
+            }
+        }
+    }
+
+    // The pool has one thread per concurrent request, so it bounds what is in flight
+    private long[] runRound(InProcessDispatcher.Origin origin, List<String> round) {
+        long[] latencies = new long[round.size()];
+        List<CompletableFuture<Void>> futures = new ArrayList<>(round.size());
+        for (int i = 0; i < round.size(); i++) {
+            int slot = i;
+            String path = round.get(i);
+            futures.add(CompletableFuture.runAsync(() -> {
+                long start = System.nanoTime();
+                boolean failed;
+                try {
+                    failed = dispatcher.get(path, origin, HEADERS).status() >= 500;
+                } catch (RuntimeException e) {
+                    failed = true;
+                }
+                latencies[slot] = System.nanoTime() - start;
+                requests.incrementAndGet();
+                if (failed) {
+                    failures.incrementAndGet();
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        return latencies;
+    }
+
+    // One round: each entry repeated by weight, placeholders filled from the hot set
+    private List<String> expand() {
+        List<Long> characters = hotIds(ViewKind.CHARACTER, "characters");
+        List<Long> episodes = hotIds(ViewKind.EPISODE, "episodes");
+        List<String> round = new ArrayList<>();
+        for (MixEntry entry : mix) {
+            for (int i = 0; i < entry.weight(); i++) {
+                String path = entry.path();
+                if (path.contains("{character}")) {
+                    if (characters.isEmpty()) break;
+                    path = path.replace("{character}", String.valueOf(characters.get(i % characters.size())));
+                }
+                if (path.contains("{episode}")) {
+                    if (episodes.isEmpty()) break;
+                    path = path.replace("{episode}", String.valueOf(episodes.get(i % episodes.size())));
+                }
+                round.add(path);
+            }
+        }
+        return round;
+    }
+
+    private List<Long> hotIds(ViewKind kind, String table) {
+        List<Long> ids = new ArrayList<>();
+        try {
+            for (Map<String, Object> row : viewAnalytics.topViewed(kind, 7, hotItems)) {
+                ids.add(((Number) row.get("id")).longValue());
+            }
+        } catch (RuntimeException e) {
+            log.debug("No view analytics for warm-up: {}", e.getMessage());
+        }
+        if (ids.isEmpty()) {
+            ids.addAll(jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id LIMIT ?", Long.class, hotItems));
+        }
+        return ids;
+    }
+
+    private void finish(String why) {
+        finishedAt = System.nanoTime();
+        reason = why;
+        state = State.READY;
+        log.info("Warm-up done ({}): {} rounds, {} requests, {} failures, last p99 {} ms, {} ms total",
+                why, rounds, requests.get(), failures.get(), lastP99Ms, (finishedAt - startedAt) / 1_000_000);
+    }
+
+    private boolean timedOut() {
+        return System.nanoTime() - startedAt > maxDurationNanos;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    static List<MixEntry> parseMix(String mix) {
+        List<MixEntry> entries = new ArrayList<>();
+        for (String item : mix.split(";")) {
+            String trimmed = item.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] parts = trimmed.split("\\s+", 2);
+            if (parts.length != 2 || !parts[0].matches("\\d+") || !parts[1].startsWith("/api/")
+                    || parts[1].startsWith("/api/changes") || parts[1].contains("..")) {
+                throw new IllegalArgumentException("fanhub.warmup.mix entries look like '5 /api/shows': " + trimmed);
+            }
+            entries.add(new MixEntry(Integer.parseInt(parts[0]), parts[1]));
+        }
+        return entries;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
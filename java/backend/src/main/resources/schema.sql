@@ -12,7 +12,8 @@ CREATE TABLE IF NOT EXISTS shows (
     network TEXT,
     poster_url TEXT,
     created_at TEXT DEFAULT CURRENT_TIMESTAMP,
-    updated_at TEXT DEFAULT CURRENT_TIMESTAMP
+    updated_at TEXT DEFAULT CURRENT_TIMESTAMP,
+    version INTEGER NOT NULL DEFAULT 0
 );
 
 -- Seasons table
@@ -41,7 +42,9 @@ CREATE TABLE IF NOT EXISTS episodes (
     thumbnail_url TEXT,
     rating REAL,
     created_at TEXT DEFAULT CURRENT_TIMESTAMP,
-    updated_at TEXT DEFAULT CURRENT_TIMESTAMP
+    updated_at TEXT DEFAULT CURRENT_TIMESTAMP,
+    version INTEGER NOT NULL DEFAULT 0,
+    episode_ordinal INTEGER
 );
 
 -- Characters table
@@ -56,7 +59,9 @@ CREATE TABLE IF NOT EXISTS characters (
     first_appearance INTEGER REFERENCES episodes(id),
     status TEXT,
     created_at TEXT DEFAULT CURRENT_TIMESTAMP,
-    updated_at TEXT DEFAULT CURRENT_TIMESTAMP
+    updated_at TEXT DEFAULT CURRENT_TIMESTAMP,
+    version INTEGER NOT NULL DEFAULT 0,
+    first_appearance_ordinal INTEGER
 );
 
 -- Character appearances in episodes (many-to-many)
@@ -78,7 +83,8 @@ CREATE TABLE IF NOT EXISTS quotes (
     context TEXT,
     is_famous INTEGER DEFAULT 0,
     likes_count INTEGER DEFAULT 0,
-    created_at TEXT DEFAULT CURRENT_TIMESTAMP
+    created_at TEXT DEFAULT CURRENT_TIMESTAMP,
+    episode_ordinal INTEGER
 );
 
 -- Users table (for future auth)
@@ -104,11 +110,35 @@ CREATE TABLE IF NOT EXISTS user_favorites (
     UNIQUE(user_id, character_id)
 );
 
+-- Page view rollups, written in batches by the analytics aggregator.
+-- bucket_start is the UTC start of the hour/day in epoch seconds.
+CREATE TABLE IF NOT EXISTS view_counts_hourly (
+    kind TEXT NOT NULL,
+    item_id INTEGER NOT NULL,
+    bucket_start INTEGER NOT NULL,
+    views INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (kind, item_id, bucket_start)
+) WITHOUT ROWID;
+
+CREATE TABLE IF NOT EXISTS view_counts_daily (
+    kind TEXT NOT NULL,
+    item_id INTEGER NOT NULL,
+    bucket_start INTEGER NOT NULL,
+    views INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (kind, item_id, bucket_start)
+) WITHOUT ROWID;
+
 -- Indexes for performance (CREATE INDEX IF NOT EXISTS is supported in SQLite 3.3.7+)
 CREATE INDEX IF NOT EXISTS idx_characters_show ON characters(show_id);
+CREATE INDEX IF NOT EXISTS idx_characters_name ON characters(name);
+CREATE INDEX IF NOT EXISTS idx_characters_first_appearance ON characters(first_appearance);
+CREATE INDEX IF NOT EXISTS idx_seasons_show ON seasons(show_id, season_number);
 CREATE INDEX IF NOT EXISTS idx_episodes_show ON episodes(show_id);
 CREATE INDEX IF NOT EXISTS idx_episodes_season ON episodes(season_id);
 CREATE INDEX IF NOT EXISTS idx_quotes_character ON quotes(character_id);
 CREATE INDEX IF NOT EXISTS idx_quotes_episode ON quotes(episode_id);
+CREATE INDEX IF NOT EXISTS idx_quotes_show ON quotes(show_id, likes_count DESC);
 CREATE INDEX IF NOT EXISTS idx_character_episodes_character ON character_episodes(character_id);
 CREATE INDEX IF NOT EXISTS idx_character_episodes_episode ON character_episodes(episode_id);
+CREATE INDEX IF NOT EXISTS idx_view_counts_daily_kind_bucket ON view_counts_daily(kind, bucket_start);
+-- Episode-ordinal indexes and triggers are created by SchemaMigrations, after the columns exist
@@ -0,0 +1,127 @@
+package com.fanhub.analytics;
+
+import com.fanhub.IntegrationTest;
+import com.fanhub.model.Character;
+import com.fanhub.model.Episode;
+import com.fanhub.model.Show;
+import com.fanhub.repository.CharacterRepository;
+import com.fanhub.repository.EpisodeRepository;
+import com.fanhub.repository.ShowRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Page views counted in memory, flushed into the rollup tables and read back over HTTP. */
+class ViewAnalyticsTest extends IntegrationTest {
+
+    @Autowired
+    private ViewAnalyticsService viewAnalytics;
+    @Autowired
+    private ShowRepository showRepository;
+    @Autowired
+    private EpisodeRepository episodeRepository;
+    @Autowired
+    private CharacterRepository characterRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long popular;
+    private long obscure;
+    private long character;
+
+    // Fresh items, so views from other tests sharing the database do not count
+    @BeforeEach
+    void catalog() {
+        Show show = new Show();
+        show.setTitle("Watched");
+        show = showRepository.save(show);
+        popular = episode(show, 1);
+        obscure = episode(show, 2);
+        Character created = new Character();
+        created.setShowId(show.getId());
+        created.setName("Watched character");
+        character = characterRepository.save(created).getId();
+    }
+
+    @Test
+    void flushedViewsReachTheRollupsAndTheApi() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(get("/api/episodes/" + popular).statusCode()).isEqualTo(200);
+        }
+        assertThat(get("/api/episodes/" + obscure).statusCode()).isEqualTo(200);
+        for (int i = 0; i < 2; i++) {
+            assertThat(get("/api/characters/" + character).statusCode()).isEqualTo(200);
+        }
+        viewAnalytics.flushNow();
+
+        // The test may straddle an hour (or day) boundary, so compare sums over the buckets
+        assertThat(views("view_counts_hourly", "episode", popular)).isEqualTo(3);
+        assertThat(views("view_counts_daily", "episode", popular)).isEqualTo(3);
+        assertThat(views("view_counts_hourly", "episode", obscure)).isEqualTo(1);
+        assertThat(views("view_counts_daily", "character", character)).isEqualTo(2);
+
+        JsonNode hourly = json("/api/analytics/episode/" + popular + "?granularity=hour&days=1");
+        assertThat(hourly.get("total").asLong()).isEqualTo(3);
+        assertThat(hourly.get("data")).isNotEmpty();
+        assertThat(json("/api/analytics/character/" + character + "?granularity=day").get("total").asLong())
+                .isEqualTo(2);
+
+        List<Long> top = new ArrayList<>();
+        json("/api/analytics/top?kind=episode&limit=100").get("data").forEach(row -> top.add(row.get("id").asLong()));
+        assertThat(top).contains(popular, obscure);
+        assertThat(top.indexOf(popular)).isLessThan(top.indexOf(obscure));
+
+        JsonNode stats = json("/api/analytics/stats");
+        assertThat(stats.get("flushes").asLong()).isPositive();
+        assertThat(stats.get("recorded").asLong()).isGreaterThanOrEqualTo(6);
+    }
+
+    @Test
+    void badParametersAreRejected() {
+        assertThat(get("/api/analytics/top?kind=show").statusCode()).isEqualTo(400);
+        assertThat(get("/api/analytics/top?days=0").statusCode()).isEqualTo(400);
+        assertThat(get("/api/analytics/episode/1?granularity=minute").statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    void viewsBeyondAFullBufferAreDroppedAndCounted() {
+        // Never started, so nothing drains the two-slot buffer
+        ViewAnalyticsService service = new ViewAnalyticsService(null, null, true, 2, 250, 10_000, 100);
+        for (long id = 1; id <= 5; id++) {
+            service.record(ViewKind.EPISODE, id);
+        }
+
+        Map<String, Object> stats = service.stats();
+        assertThat(stats.get("recorded")).isEqualTo(2L);
+        assertThat(stats.get("droppedBufferFull")).isEqualTo(3L);
+        assertThat(stats.get("bufferSize")).isEqualTo(2);
+    }
+
+    private long episode(Show show, int number) {
+        Episode episode = new Episode();
+        episode.setShowId(show.getId());
+        episode.setEpisodeNumber(number);
+        episode.setTitle("Watched " + number);
+        return episodeRepository.save(episode).getId();
+    }
+
+    private long views(String table, String kind, long id) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(views), 0) FROM " + table
+                + " WHERE kind = ? AND item_id = ?", Long.class, kind, id);
+    }
+
+    private JsonNode json(String path) throws Exception {
+        return objectMapper.readTree(get(path).body());
+    }
+}
@@ -0,0 +1,105 @@
+package com.fanhub.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ViewBufferTest {
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertThat(new ViewBuffer(0).capacity()).isEqualTo(2);
+        assertThat(new ViewBuffer(4).capacity()).isEqualTo(4);
+        assertThat(new ViewBuffer(5).capacity()).isEqualTo(8);
+    }
+
+    @Test
+    void keepsOrderAcrossWraparound() {
+        ViewBuffer buffer = new ViewBuffer(4);
+        long next = 1;
+        for (int round = 0; round < 10; round++) {
+            // Three at a time, so each round starts at a different slot
+            List<Long> offered = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.offer(next)).isTrue();
+                offered.add(next++);
+            }
+            assertThat(buffer.size()).isEqualTo(3);
+
+            List<Long> drained = new ArrayList<>();
+            assertThat(buffer.drain(drained::add)).isEqualTo(3);
+            assertThat(drained).isEqualTo(offered);
+            assertThat(buffer.size()).isZero();
+        }
+    }
+
+    @Test
+    void rejectsOffersWhileFull() {
+        ViewBuffer buffer = new ViewBuffer(4);
+        for (long i = 1; i <= 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(5)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        List<Long> drained = new ArrayList<>();
+        buffer.drain(drained::add);
+        assertThat(drained).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(buffer.offer(6)).isTrue();
+    }
+
+    @Test
+    void concurrentProducersLoseNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 10_000;
+        // Far smaller than the total, so the ring wraps many times while producers race
+        ViewBuffer buffer = new ViewBuffer(1024);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> running = new ArrayList<>();
+        try {
+            for (int p = 0; p < producers; p++) {
+                long base = (long) p * perProducer;
+                running.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 1; i <= perProducer; i++) {
+                        while (!buffer.offer(base + i)) {
+                            Thread.yield();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            long[] last = new long[producers];
+            int[] counts = new int[producers];
+            while (!running.stream().allMatch(Future::isDone) || buffer.size() > 0) {
+                buffer.drain(value -> {
+                    int producer = (int) ((value - 1) / perProducer);
+                    // Each producer's views arrive once and in the order it offered them
+                    assertThat(value).isGreaterThan(last[producer]);
+                    last[producer] = value;
+                    counts[producer]++;
+                });
+            }
+            for (Future<?> producer : running) {
+                producer.get();
+            }
+            for (int p = 0; p < producers; p++) {
+                assertThat(counts[p]).isEqualTo(perProducer);
+            }
+        } finally {
+            pool.shutdownNow();
+            assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+}
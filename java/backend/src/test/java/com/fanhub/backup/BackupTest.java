@@ -0,0 +1,113 @@
+package com.fanhub.backup;
+
+import com.fanhub.IntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Online backup while the application keeps writing, then a restore of the copy. Two
+ * pages per step so the small test database takes enough steps for writes to land.
+ */
+@TestPropertySource(properties = "fanhub.backup.pages-per-step=2")
+class BackupTest extends IntegrationTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void backupTakenDuringWritesRestoresToAVerifiedCopy() throws Exception {
+        String marker = "Backed up " + System.nanoTime();
+        assertThat(post("/api/shows", "{\"title\":\"" + marker + "\"}").statusCode()).isEqualTo(201);
+
+        HttpResponse<String> started = post("/api/admin/backups?stepDelayMs=100", "", ADMIN);
+        assertThat(started.statusCode()).isEqualTo(202);
+        String name = objectMapper.readTree(started.body()).get("name").asText();
+
+        // In WAL mode commits during the copy land in the WAL; the paced copy of the snapshot never restarts
+        JsonNode status = status();
+        int written = 0;
+        for (; written < 500 && "RUNNING".equals(status.get("state").asText()); written++) {
+            assertThat(post("/api/shows", "{\"title\":\"During backup " + written + "\"}").statusCode())
+                    .isEqualTo(201);
+            Thread.sleep(30);
+            status = status();
+        }
+        assertThat(written).isGreaterThan(1);
+        assertThat(status.get("name").asText()).isEqualTo(name);
+        assertThat(status.get("state").asText()).isEqualTo("SUCCEEDED");
+        assertThat(status.get("percent").asDouble()).isEqualTo(100.0);
+        JsonNode home = status.get("files").get(0);
+        assertThat(home.get("snapshot").asBoolean()).isTrue();
+        assertThat(home.get("restarts").asInt()).isZero();
+
+        JsonNode listed = objectMapper.readTree(get("/api/admin/backups", ADMIN).body()).get("data");
+        assertThat(listed.findValuesAsText("name")).contains(name);
+
+        HttpResponse<String> restored = post("/api/admin/backups/" + name + "/restore?target=restore-test.db", "",
+                ADMIN);
+        assertThat(restored.statusCode()).isEqualTo(200);
+        Path file = Path.of(objectMapper.readTree(restored.body()).get("restoredTo").asText());
+        assertThat(file).startsWith(DIRECTORY.resolve("backups").resolve("restored"));
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement statement = connection.createStatement();
+             PreparedStatement shows = connection.prepareStatement("SELECT COUNT(*) FROM shows WHERE title = ?")) {
+            try (ResultSet check = statement.executeQuery("PRAGMA quick_check")) {
+                assertThat(check.next()).isTrue();
+                assertThat(check.getString(1)).isEqualTo("ok");
+            }
+            shows.setString(1, marker);
+            try (ResultSet count = shows.executeQuery()) {
+                assertThat(count.next()).isTrue();
+                assertThat(count.getInt(1)).isEqualTo(1);
+            }
+            // The last show was written while the copy was running, after its snapshot was taken
+            shows.setString(1, "During backup " + (written - 1));
+            try (ResultSet count = shows.executeQuery()) {
+                assertThat(count.next()).isTrue();
+                assertThat(count.getInt(1)).isZero();
+            }
+        }
+
+        // Restores never overwrite, and only write plain .db names under restored/
+        assertThat(post("/api/admin/backups/" + name + "/restore?target=restore-test.db", "", ADMIN).statusCode())
+                .isEqualTo(409);
+        assertThat(post("/api/admin/backups/" + name + "/restore?target=../fanhub.db", "", ADMIN).statusCode())
+                .isEqualTo(400);
+        assertThat(post("/api/admin/backups/fanhub-00000000-000000/restore", "", ADMIN).statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void backupsNeedTheAdmin() {
+        String wrongPassword = "Basic " + Base64.getEncoder().encodeToString("admin:guess".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(post("/api/admin/backups/fanhub-00000000-000000/restore?target=anonymous.db", "").statusCode())
+                .isEqualTo(401);
+        assertThat(post("/api/admin/backups", "").statusCode()).isEqualTo(401);
+        assertThat(get("/api/admin/backups").statusCode()).isEqualTo(401);
+        assertThat(get("/api/admin/backups", "Authorization", wrongPassword).statusCode()).isEqualTo(401);
+        assertThat(Files.exists(DIRECTORY.resolve("backups").resolve("restored").resolve("anonymous.db"))).isFalse();
+        // Everything outside /api/admin stays open
+        assertThat(get("/api/shows").statusCode()).isEqualTo(200);
+    }
+
+    private JsonNode status() throws Exception {
+        return objectMapper.readTree(get("/api/admin/backups/status", ADMIN).body());
+    }
+}
@@ -0,0 +1,140 @@
+package com.fanhub.bulkhead;
+
+import com.fanhub.sharding.ShardContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Permit accounting around borrowed connections, for a request on the test thread. */
+class BulkheadDataSourceTest {
+
+    private final Bulkheads bulkheads = new Bulkheads(new MockEnvironment(), true, 2, 1000, 1, 100, 1, 1000);
+    private final BulkheadDataSource dataSource =
+            new BulkheadDataSource(new DriverManagerDataSource("jdbc:sqlite::memory:"), bulkheads);
+
+    @BeforeEach
+    void request() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("POST", "/")));
+    }
+
+    @AfterEach
+    void reset() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void nestedConnectionsShareTheOuterPermit() throws Exception {
+        try (Connection outer = dataSource.getConnection()) {
+            try (Connection inner = dataSource.getConnection()) {
+                assertThat(inUse("sqlite-write")).isEqualTo(1);
+            }
+            assertThat(inUse("sqlite-write")).isEqualTo(1);
+        }
+        assertThat(inUse("sqlite-write")).isZero();
+    }
+
+    @Test
+    void closingOnAnotherThreadSettlesTheBorrowersCount() throws Exception {
+        Connection borrowed = dataSource.getConnection();
+        CompletableFuture.runAsync(() -> close(borrowed)).join();
+        assertThat(inUse("sqlite-write")).isZero();
+
+        // The borrower holds nothing now, so its next connection takes a permit again
+        try (Connection next = dataSource.getConnection()) {
+            assertThat(inUse("sqlite-write")).isEqualTo(1);
+        }
+        assertThat(inUse("sqlite-write")).isZero();
+    }
+
+    @Test
+    void readOnlyTransactionsTakeReadPermits() {
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionManager.addListener(bulkheads);
+        TransactionTemplate reads = new TransactionTemplate(transactionManager);
+        reads.setReadOnly(true);
+
+        reads.executeWithoutResult(status -> {
+            assertThat(inUse("sqlite-read")).isEqualTo(1);
+            assertThat(inUse("sqlite-write")).isZero();
+        });
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThat(inUse("sqlite-read")).isZero();
+            assertThat(inUse("sqlite-write")).isEqualTo(1);
+        });
+        assertThat(acquired("sqlite-read")).isEqualTo(1);
+        assertThat(acquired("sqlite-write")).isEqualTo(1);
+    }
+
+    @Test
+    void eachShardHasItsOwnWritePermit() throws Exception {
+        try (Connection shard = ShardContext.callOn("show-1", this::connect)) {
+            assertThat(inUse("sqlite-write-show-1")).isEqualTo(1);
+
+            // Another request writing to the same shard waits for its permit and then gets a 503;
+            // ones writing to the home database or a different shard do not wait at all
+            assertThatThrownBy(() -> onAnotherRequest("show-1").join())
+                    .isInstanceOf(CompletionException.class).hasCauseInstanceOf(BulkheadFullException.class);
+            onAnotherRequest(null).join();
+            onAnotherRequest("show-2").join();
+            assertThat(acquired("sqlite-write")).isEqualTo(1);
+            assertThat(acquired("sqlite-write-show-2")).isEqualTo(1);
+        }
+        assertThat(inUse("sqlite-write-show-1")).isZero();
+    }
+
+    private CompletableFuture<Void> onAnotherRequest(String shard) {
+        return CompletableFuture.runAsync(() -> {
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+            try {
+                close(shard == null ? connect() : ShardContext.callOn(shard, this::connect));
+            } finally {
+                RequestContextHolder.resetRequestAttributes();
+            }
+        });
+    }
+
+    private Connection connect() {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int inUse(String bulkhead) {
+        return ((Number) stats(bulkhead).get("inUse")).intValue();
+    }
+
+    private long acquired(String bulkhead) {
+        return ((Number) stats(bulkhead).get("acquired")).longValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats(String bulkhead) {
+        return (Map<String, Object>) bulkheads.stats().get(bulkhead);
+    }
+}
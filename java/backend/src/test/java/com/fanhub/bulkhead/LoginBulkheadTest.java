@@ -0,0 +1,39 @@
+package com.fanhub.bulkhead;
+
+import com.fanhub.IntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The transaction manager reports read-only transactions to the bulkheads, whatever the HTTP method. */
+class LoginBulkheadTest extends IntegrationTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void loginOnlyTakesReadPermits() throws Exception {
+        String email = "bulkhead-" + System.nanoTime() + "@example.com";
+        assertThat(post("/auth/register", "{\"email\":\"" + email + "\",\"username\":\"" + email
+                + "\",\"password\":\"secret123\"}").statusCode()).isEqualTo(201);
+
+        JsonNode before = stats();
+        assertThat(post("/auth/login", "{\"email\":\"" + email + "\",\"password\":\"secret123\"}")
+                .statusCode()).isEqualTo(200);
+        JsonNode after = stats();
+
+        assertThat(acquired(after, "sqlite-read")).isGreaterThan(acquired(before, "sqlite-read"));
+        assertThat(acquired(after, "sqlite-write")).isEqualTo(acquired(before, "sqlite-write"));
+    }
+
+    private JsonNode stats() throws Exception {
+        return objectMapper.readTree(get("/api/admin/bulkheads", ADMIN).body());
+    }
+
+    private static long acquired(JsonNode stats, String bulkhead) {
+        return stats.get(bulkhead).get("acquired").asLong();
+    }
+}
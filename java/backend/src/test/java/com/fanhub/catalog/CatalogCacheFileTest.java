@@ -0,0 +1,60 @@
+package com.fanhub.catalog;
+
+import com.fanhub.model.Character;
+import com.fanhub.model.Show;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogCacheFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsWhatWasWritten() throws IOException {
+        Path file = directory.resolve("catalog.bin");
+        CatalogCacheFile.write(snapshot(), file);
+
+        CatalogSnapshot loaded = CatalogCacheFile.load(file);
+
+        assertThat(loaded.getVersion()).isEqualTo(7);
+        assertThat(loaded.show(1L).getTitle()).isEqualTo("Breaking Bad");
+        assertThat(loaded.show(1L).getVersion()).isEqualTo(3);
+        assertThat(loaded.character(5L).getFirstAppearanceOrdinal()).isEqualTo(12);
+    }
+
+    @Test
+    void rejectsAnotherFormatVersion() throws IOException {
+        Path file = directory.resolve("catalog.bin");
+        CatalogCacheFile.write(snapshot(), file);
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.seek(4);
+            raw.writeInt(2);
+        }
+
+        assertThatThrownBy(() -> CatalogCacheFile.load(file))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("format 2");
+    }
+
+    private static CatalogSnapshot snapshot() {
+        Show show = new Show();
+        show.setId(1L);
+        show.setTitle("Breaking Bad");
+        show.setVersion(3L);
+        Character character = new Character();
+        character.setId(5L);
+        character.setShowId(1L);
+        character.setName("Walter White");
+        character.setFirstAppearanceOrdinal(12L);
+        return new CatalogSnapshot(7, List.of(show), List.of(), List.of(), List.of(character), List.of());
+    }
+}
@@ -0,0 +1,99 @@
+package com.fanhub.catalog;
+
+import com.fanhub.model.Episode;
+import com.fanhub.model.Quote;
+import com.fanhub.model.Show;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSnapshotTest {
+
+    private final CatalogSnapshot snapshot = new CatalogSnapshot(1,
+            List.of(show(1L), show(2L)),
+            List.of(),
+            List.of(episode(10L, 1L, 100L), episode(11L, 1L, 100L), episode(12L, 1L, 101L)),
+            List.of(),
+            List.of(quote(20L, 1L, 5L, 0), quote(21L, 1L, 5L, 0), quote(22L, 2L, 6L, 0)));
+
+    @Test
+    void patchSharesEveryTableWithoutChanges() {
+        CatalogSnapshot next = snapshot.patch(List.of(
+                new CatalogSnapshot.RowChange("quote", 21L, quote(21L, 1L, 5L, 1))));
+
+        assertThat(next.getVersion()).isEqualTo(2);
+        assertThat(next.quote(21L).getLikesCount()).isEqualTo(1);
+        assertThat(next.quotesByCharacter(5L)).extracting(Quote::getLikesCount).containsExactly(0, 1);
+        assertThat(next.showTable()).isSameAs(snapshot.showTable());
+        assertThat(next.episodeTable()).isSameAs(snapshot.episodeTable());
+        // Groups the change did not touch are shared within the patched table too
+        assertThat(next.quoteTable().groupRows(CatalogSnapshot.BY_SHOW, 2L))
+                .isSameAs(snapshot.quoteTable().groupRows(CatalogSnapshot.BY_SHOW, 2L));
+        assertThat(snapshot.quote(21L).getLikesCount()).isZero();
+    }
+
+    @Test
+    void patchMovesInsertsAndRemovesRowsKeepingIdOrder() {
+        CatalogSnapshot next = snapshot.patch(List.of(
+                new CatalogSnapshot.RowChange("episode", 10L, episode(10L, 1L, 101L)),
+                new CatalogSnapshot.RowChange("episode", 9L, episode(9L, 1L, 101L)),
+                new CatalogSnapshot.RowChange("episode", 11L, null),
+                new CatalogSnapshot.RowChange("episode", 99L, null)));
+
+        assertThat(next.episodes()).extracting(Episode::getId).containsExactly(9L, 10L, 12L);
+        assertThat(next.episode(11L)).isNull();
+        assertThat(next.episodesBySeason(100L)).isEmpty();
+        assertThat(next.episodesBySeason(101L)).extracting(Episode::getId).containsExactly(9L, 10L, 12L);
+        assertThat(next.episodesByShow(1L)).extracting(Episode::getId).containsExactly(9L, 10L, 12L);
+        assertThat(next.counts()).containsEntry("episodes", 3);
+        assertThat(snapshot.episodesBySeason(100L)).extracting(Episode::getId).containsExactly(10L, 11L);
+    }
+
+    @Test
+    void readsHandOutTheSharedRowsInReadOnlyLists() {
+        Quote quote = snapshot.quote(21L);
+
+        assertThat(snapshot.quote(21L)).isSameAs(quote);
+        assertThat(snapshot.quotes().get(1)).isSameAs(quote);
+        assertThat(snapshot.quotesByCharacter(5L).get(1)).isSameAs(quote);
+        assertThat(snapshot.quote(99L)).isNull();
+        assertThatThrownBy(() -> snapshot.quotes().add(quote)).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(() -> snapshot.episodesBySeason(100L).remove(0))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void patchIgnoresUnknownEntities() {
+        CatalogSnapshot next = snapshot.patch(List.of(new CatalogSnapshot.RowChange("user", 1L, null)));
+
+        assertThat(next.quoteTable()).isSameAs(snapshot.quoteTable());
+        assertThat(next.seasons()).isEmpty();
+        assertThat(next.characters()).isEmpty();
+    }
+
+    private static Show show(Long id) {
+        Show show = new Show();
+        show.setId(id);
+        return show;
+    }
+
+    private static Episode episode(Long id, Long showId, Long seasonId) {
+        Episode episode = new Episode();
+        episode.setId(id);
+        episode.setShowId(showId);
+        episode.setSeasonId(seasonId);
+        return episode;
+    }
+
+    private static Quote quote(Long id, Long showId, Long characterId, int likes) {
+        Quote quote = new Quote();
+        quote.setId(id);
+        quote.setShowId(showId);
+        quote.setCharacterId(characterId);
+        quote.setLikesCount(likes);
+        return quote;
+    }
+}
@@ -0,0 +1,73 @@
+package com.fanhub.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdTrieTest {
+
+    @Test
+    void keepsIdOrderAcrossLevels() {
+        IdTrie<String> trie = IdTrie.<String>empty()
+                .with(40_000L, "c")
+                .with(3L, "a")
+                .with(1L << 40, "d")
+                .with(31L, "b");
+
+        assertThat(trie.size()).isEqualTo(4);
+        assertThat(trie.values()).containsExactly("a", "b", "c", "d");
+        assertThat(trie.values().get(2)).isEqualTo("c");
+        assertThat(trie.get(1L << 40)).isEqualTo("d");
+        assertThat(trie.get(32L)).isNull();
+        assertThat(trie.get(Long.MAX_VALUE)).isNull();
+    }
+
+    @Test
+    void updatesLeaveTheOriginalUntouched() {
+        IdTrie<String> before = IdTrie.<String>empty().with(1L, "a").with(70L, "b");
+        IdTrie<String> after = before.with(1L, "A").with(70L, null).with(5000L, "c");
+
+        assertThat(before.values()).containsExactly("a", "b");
+        assertThat(after.values()).containsExactly("A", "c");
+        assertThat(after.with(99L, null)).isSameAs(after);
+        assertThat(after.with(1L, null).with(5000L, null).size()).isZero();
+    }
+
+    @Test
+    void matchesASortedMapUnderRandomChanges() {
+        Random random = new Random(42);
+        IdTrie.Builder<Long> builder = new IdTrie.Builder<>();
+        TreeMap<Long, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 2000; i++) {
+            long id = random.nextInt(100_000);
+            builder.put(id, id);
+            expected.put(id, id);
+        }
+        IdTrie<Long> changed = builder.build();
+        for (int i = 0; i < 2000; i++) {
+            long id = random.nextInt(100_000);
+            Long value = random.nextBoolean() ? null : -id;
+            changed = changed.with(id, value);
+            if (value == null) {
+                expected.remove(id);
+            } else {
+                expected.put(id, value);
+            }
+        }
+        IdTrie<Long> trie = changed;
+
+        assertThat(trie.size()).isEqualTo(expected.size());
+        assertThat(new ArrayList<>(trie.values())).isEqualTo(new ArrayList<>(expected.values()));
+        List<Long> indexed = new ArrayList<>();
+        for (int i = 0; i < trie.size(); i++) {
+            indexed.add(trie.values().get(i));
+        }
+        assertThat(indexed).isEqualTo(new ArrayList<>(expected.values()));
+        expected.forEach((id, value) -> assertThat(trie.get(id)).isEqualTo(value));
+    }
+}
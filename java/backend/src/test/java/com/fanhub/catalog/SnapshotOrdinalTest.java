@@ -0,0 +1,85 @@
+package com.fanhub.catalog;
+
+import com.fanhub.IntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Episode moves and deletes reach the quotes and characters whose ordinals the triggers rewrote. */
+@TestPropertySource(properties = "fanhub.catalog.snapshot-reads=true")
+class SnapshotOrdinalTest extends IntegrationTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void movingAnEpisodeMovesItsQuotesAndCharacters() throws Exception {
+        long showId = id(post("/api/shows", "{\"title\":\"Reordered\"}"));
+        jdbcTemplate.update("INSERT INTO seasons (show_id, season_number, title) VALUES (?, 1, 'Season 1')", showId);
+        long seasonId = jdbcTemplate.queryForObject("SELECT id FROM seasons WHERE show_id = ?", Long.class, showId);
+        long episodeId = id(post("/api/episodes", "{\"showId\":" + showId + ",\"seasonId\":" + seasonId
+                + ",\"episodeNumber\":1,\"title\":\"Pilot\"}"));
+        long characterId = id(post("/api/characters", "{\"showId\":" + showId + ",\"name\":\"Mover\",\"firstAppearance\":"
+                + episodeId + "}"));
+        long quoteId = id(post("/api/quotes", "{\"showId\":" + showId + ",\"characterId\":" + characterId
+                + ",\"episodeId\":" + episodeId + ",\"quoteText\":\"Not yet\"}"));
+
+        String quotesUpToS1E1 = "/api/quotes?showId=" + showId + "&upTo=S1E1";
+        String charactersUpToS1E1 = "/api/characters?showId=" + showId + "&upTo=S1E1";
+        awaitIds(quotesUpToS1E1, List.of(quoteId));
+        awaitIds(charactersUpToS1E1, List.of(characterId));
+
+        assertThat(patch("/api/episodes/" + episodeId, "application/merge-patch+json", "{\"episodeNumber\":5}")
+                .statusCode()).isEqualTo(204);
+
+        awaitIds(quotesUpToS1E1, List.of());
+        awaitIds(charactersUpToS1E1, List.of());
+        assertThat(ids(get("/api/quotes?showId=" + showId + "&upTo=S1E5"))).containsExactly(quoteId);
+        assertThat(ids(get("/api/characters?showId=" + showId + "&upTo=S1E5"))).containsExactly(characterId);
+
+        HttpResponse<String> deleted = http.send(HttpRequest.newBuilder(uri("/api/episodes/" + episodeId)).DELETE().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(deleted.statusCode()).isEqualTo(204);
+
+        // Without an episode the quote has no place in the show's timeline
+        awaitIds("/api/quotes?showId=" + showId + "&upTo=S1", List.of());
+        assertThat(ids(get("/api/quotes?showId=" + showId))).containsExactly(quoteId);
+    }
+
+    // The snapshot is patched on its own thread shortly after each commit
+    private void awaitIds(String path, List<Long> expected) throws Exception {
+        List<Long> actual = ids(get(path));
+        for (int i = 0; i < 100 && !actual.equals(expected); i++) {
+            Thread.sleep(50);
+            actual = ids(get(path));
+        }
+        assertThat(actual).as(path).isEqualTo(expected);
+    }
+
+    private List<Long> ids(HttpResponse<String> response) throws Exception {
+        assertThat(response.statusCode()).isEqualTo(200);
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode row : objectMapper.readTree(response.body())) {
+            ids.add(row.get("id").asLong());
+        }
+        return ids;
+    }
+
+    private long id(HttpResponse<String> response) throws Exception {
+        assertThat(response.statusCode()).isBetween(200, 201);
+        return objectMapper.readTree(response.body()).get("id").asLong();
+    }
+}
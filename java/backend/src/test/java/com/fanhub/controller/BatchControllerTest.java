@@ -0,0 +1,52 @@
+package com.fanhub.controller;
+
+import com.fanhub.IntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Batch sub-requests through the real security filter chain, controllers and error page. */
+class BatchControllerTest extends IntegrationTest {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void subRequestsGoThroughTheWholeApplication() throws Exception {
+        HttpResponse<String> response = post("/api/batch",
+                "{\"requests\":[\"/api/shows/1\",\"/api/characters?ids=1,2\",\"/api/shows/%31\",\"/api/no-such-thing\"]}");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        JsonNode results = objectMapper.readTree(response.body()).get("responses");
+        assertThat(results).extracting(r -> r.get("status").asInt()).containsExactly(200, 200, 200, 404);
+        assertThat(results.get(0).get("body").get("id").asLong()).isEqualTo(1);
+        assertThat(results.get(1).get("body")).hasSize(2);
+        assertThat(results.get(2).get("body").get("id").asLong()).isEqualTo(1);
+        // Rendered by the error page, as over the network
+        assertThat(results.get(3).get("body").get("status").asInt()).isEqualTo(404);
+    }
+
+    @Test
+    void adminSubRequestsNeedTheCallersCredentials() throws Exception {
+        String batch = "{\"requests\":[\"/api/admin/backups\",\"/api/shows/1\"]}";
+
+        JsonNode anonymous = objectMapper.readTree(post("/api/batch", batch).body()).get("responses");
+        assertThat(anonymous).extracting(r -> r.get("status").asInt()).containsExactly(401, 200);
+
+        // The batch's Authorization header is passed on to each sub-request
+        JsonNode admin = objectMapper.readTree(post("/api/batch", batch, ADMIN).body()).get("responses");
+        assertThat(admin).extracting(r -> r.get("status").asInt()).containsExactly(200, 200);
+    }
+
+    @Test
+    void encodedExcludedPathsAreRefused() {
+        assertThat(post("/api/batch", "{\"requests\":[\"/api/%63hanges\"]}").statusCode()).isEqualTo(400);
+        assertThat(post("/api/batch", "{\"requests\":[\"/api//changes\"]}").statusCode()).isEqualTo(400);
+        assertThat(post("/api/batch", "{\"requests\":[\"/api/%62atch\"]}").statusCode()).isEqualTo(400);
+    }
+}
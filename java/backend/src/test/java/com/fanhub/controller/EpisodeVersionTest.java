@@ -0,0 +1,117 @@
+package com.fanhub.controller;
+
+import com.fanhub.IntegrationTest;
+import com.fanhub.model.Episode;
+import com.fanhub.model.Season;
+import com.fanhub.model.Show;
+import com.fanhub.repository.EpisodeRepository;
+import com.fanhub.repository.SeasonRepository;
+import com.fanhub.repository.ShowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Episodes stay within their show under merge patches, and full updates bump the version once. */
+class EpisodeVersionTest extends IntegrationTest {
+
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+
+    @Autowired
+    private ShowRepository showRepository;
+    @Autowired
+    private SeasonRepository seasonRepository;
+    @Autowired
+    private EpisodeRepository episodeRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Show show;
+    private Season first;
+    private Season second;
+    private Season foreign;
+    private Episode episode;
+
+    @BeforeEach
+    void catalog() {
+        show = show("Own show");
+        first = season(show, 1);
+        second = season(show, 2);
+        foreign = season(show("Other show"), 1);
+        Episode created = new Episode();
+        created.setShowId(show.getId());
+        created.setSeasonId(first.getId());
+        created.setEpisodeNumber(1);
+        created.setTitle("Pilot");
+        episode = episodeRepository.save(created);
+    }
+
+    @Test
+    void showIdCannotBePatched() {
+        long other = foreign.getShowId();
+        assertThat(patch("/api/episodes/" + episode.getId(), MERGE_PATCH, "{\"showId\":" + other + "}")
+                .statusCode()).isEqualTo(400);
+
+        assertThat(column("show_id")).isEqualTo(show.getId());
+        assertThat(column("version")).isZero();
+    }
+
+    @Test
+    void seasonOfAnotherShowIsRefused() {
+        assertThat(patch("/api/episodes/" + episode.getId(), MERGE_PATCH, "{\"seasonId\":" + foreign.getId() + "}")
+                .statusCode()).isEqualTo(422);
+        assertThat(patch("/api/episodes/" + episode.getId(), MERGE_PATCH, "{\"seasonId\":999999999}")
+                .statusCode()).isEqualTo(422);
+
+        assertThat(column("season_id")).isEqualTo(first.getId());
+        assertThat(column("version")).isZero();
+    }
+
+    @Test
+    void seasonOfTheSameShowIsAccepted() {
+        assertThat(patch("/api/episodes/" + episode.getId(), MERGE_PATCH, "{\"seasonId\":" + second.getId() + "}",
+                "If-Match", "\"0\"").statusCode()).isEqualTo(204);
+
+        assertThat(column("season_id")).isEqualTo(second.getId());
+        assertThat(column("version")).isEqualTo(1);
+    }
+
+    @Test
+    void fullRowSaveBumpsTheVersionOnce() {
+        // Moving seasons also rewrites the derived ordinal, which must not count as a second update
+        Long ordinal = column("episode_ordinal");
+        episode.setSeasonId(second.getId());
+        episode.setTitle("Pilot, moved");
+        Episode saved = episodeRepository.save(episode);
+
+        assertThat(column("version")).isEqualTo(1);
+        assertThat(saved.getVersion()).isEqualTo(1);
+        assertThat(column("episode_ordinal")).isNotEqualTo(ordinal);
+
+        Show renamed = showRepository.findById(show.getId()).orElseThrow();
+        renamed.setTitle("Own show, renamed");
+        assertThat(showRepository.save(renamed).getVersion()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM shows WHERE id = ?", Long.class, show.getId()))
+                .isEqualTo(1);
+    }
+
+    private Show show(String title) {
+        Show created = new Show();
+        created.setTitle(title);
+        return showRepository.save(created);
+    }
+
+    private Season season(Show of, int number) {
+        Season created = new Season();
+        created.setShowId(of.getId());
+        created.setSeasonNumber(number);
+        return seasonRepository.save(created);
+    }
+
+    private Long column(String name) {
+        return jdbcTemplate.queryForObject("SELECT " + name + " FROM episodes WHERE id = ?", Long.class,
+                episode.getId());
+    }
+}
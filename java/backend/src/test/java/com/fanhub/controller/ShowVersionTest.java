@@ -0,0 +1,84 @@
+package com.fanhub.controller;
+
+import com.fanhub.IntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Versions and ETags across POST, PUT, PATCH and GET, with If-Match on merge patches and PUT. */
+class ShowVersionTest extends IntegrationTest {
+
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void everyWriteReturnsTheCurrentVersion() throws Exception {
+        HttpResponse<String> created = post("/api/shows", "{\"title\":\"Versioned\",\"genre\":\"Drama\"}");
+        assertThat(created.statusCode()).isEqualTo(201);
+        JsonNode show = objectMapper.readTree(created.body());
+        long id = show.get("id").asLong();
+        assertThat(show.get("version").asLong()).isZero();
+        assertThat(etag(created)).isEqualTo("\"0\"");
+
+        HttpResponse<String> updated = put("/api/shows/" + id, "{\"title\":\"Versioned again\",\"genre\":\"Drama\"}");
+        assertThat(updated.statusCode()).isEqualTo(200);
+        assertThat(objectMapper.readTree(updated.body()).get("version").asLong()).isEqualTo(1);
+        assertThat(etag(updated)).isEqualTo("\"1\"");
+
+        // The ETag from PUT is good for a conditional patch
+        HttpResponse<String> patched = patch("/api/shows/" + id, MERGE_PATCH, "{\"network\":\"AMC\"}",
+                "If-Match", etag(updated));
+        assertThat(patched.statusCode()).isEqualTo(204);
+        assertThat(etag(patched)).isEqualTo("\"2\"");
+
+        assertThat(etag(get("/api/shows/" + id))).isEqualTo("\"2\"");
+    }
+
+    @Test
+    void staleIfMatchIsRejected() throws Exception {
+        HttpResponse<String> created = post("/api/shows", "{\"title\":\"Contended\"}");
+        long id = objectMapper.readTree(created.body()).get("id").asLong();
+        String stale = etag(created);
+
+        assertThat(patch("/api/shows/" + id, MERGE_PATCH, "{\"genre\":\"Thriller\"}", "If-Match", stale)
+                .statusCode()).isEqualTo(204);
+        assertThat(patch("/api/shows/" + id, MERGE_PATCH, "{\"genre\":\"Comedy\"}", "If-Match", stale)
+                .statusCode()).isEqualTo(412);
+
+        JsonNode current = objectMapper.readTree(get("/api/shows/" + id).body());
+        assertThat(current.get("genre").asText()).isEqualTo("Thriller");
+        assertThat(current.get("version").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    void conditionalPutIsACompareAndSet() throws Exception {
+        HttpResponse<String> created = post("/api/shows", "{\"title\":\"Replaced\",\"genre\":\"Drama\"}");
+        long id = objectMapper.readTree(created.body()).get("id").asLong();
+        String stale = etag(created);
+
+        HttpResponse<String> replaced = put("/api/shows/" + id, "{\"title\":\"Replaced once\"}", "If-Match", stale);
+        assertThat(replaced.statusCode()).isEqualTo(200);
+        assertThat(etag(replaced)).isEqualTo("\"1\"");
+        JsonNode body = objectMapper.readTree(replaced.body());
+        assertThat(body.get("title").asText()).isEqualTo("Replaced once");
+        // A full update: fields missing from the body are cleared, as without If-Match
+        assertThat(body.get("genre").isNull()).isTrue();
+
+        assertThat(put("/api/shows/" + id, "{\"title\":\"Replaced twice\"}", "If-Match", stale)
+                .statusCode()).isEqualTo(412);
+        JsonNode current = objectMapper.readTree(get("/api/shows/" + id).body());
+        assertThat(current.get("title").asText()).isEqualTo("Replaced once");
+        assertThat(current.get("version").asLong()).isEqualTo(1);
+    }
+
+    private static String etag(HttpResponse<?> response) {
+        return response.headers().firstValue("ETag").orElse(null);
+    }
+}
@@ -0,0 +1,210 @@
+package com.fanhub.controller;
+
+import com.fanhub.IntegrationTest;
+import com.fanhub.model.Character;
+import com.fanhub.model.Episode;
+import com.fanhub.model.Quote;
+import com.fanhub.model.Season;
+import com.fanhub.model.Show;
+import com.fanhub.repository.CharacterRepository;
+import com.fanhub.repository.EpisodeRepository;
+import com.fanhub.repository.QuoteRepository;
+import com.fanhub.repository.SeasonRepository;
+import com.fanhub.repository.ShowRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@code ?upTo=} on episodes, characters and quotes, read from the database, and the
+ * triggers that keep the ordinals behind it in step with seasons, episodes and appearances.
+ */
+class WatchOrderTest extends IntegrationTest {
+
+    @Autowired
+    private ShowRepository showRepository;
+    @Autowired
+    private SeasonRepository seasonRepository;
+    @Autowired
+    private EpisodeRepository episodeRepository;
+    @Autowired
+    private CharacterRepository characterRepository;
+    @Autowired
+    private QuoteRepository quoteRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long show;
+    private long season1;
+    private long season2;
+    private long s1e1;
+    private long s1e2;
+    private long s2e1;
+    // Alice first appears in S1E1; Bob has no first appearance, only an appearance in S2E1;
+    // Carol has neither, so she has no place in the timeline
+    private long alice;
+    private long bob;
+    private long carol;
+    private long aliceEarly;
+    private long aliceLate;
+    private long bobLate;
+    private long unplaced;
+
+    @BeforeEach
+    void catalog() {
+        Show created = new Show();
+        created.setTitle("Watch order");
+        show = showRepository.save(created).getId();
+        season1 = season(1);
+        season2 = season(2);
+        s1e1 = episode(season1, 1);
+        s1e2 = episode(season1, 2);
+        s2e1 = episode(season2, 1);
+        alice = character("Alice", s1e1);
+        bob = character("Bob", null);
+        carol = character("Carol", null);
+        appear(bob, s2e1);
+        aliceEarly = quote(alice, s1e1);
+        aliceLate = quote(alice, s2e1);
+        bobLate = quote(bob, s2e1);
+        unplaced = quote(carol, null);
+    }
+
+    @Test
+    void upToFiltersEpisodesCharactersAndQuotes() throws Exception {
+        assertThat(episodes("showId=" + show + "&upTo=S1E1")).containsExactlyInAnyOrder(s1e1);
+        assertThat(episodes("showId=" + show + "&upTo=s01")).containsExactlyInAnyOrder(s1e1, s1e2);
+        assertThat(episodes("seasonId=" + season2 + "&upTo=S2E1")).containsExactlyInAnyOrder(s2e1);
+        assertThat(episodes("seasonId=" + season2 + "&upTo=S1")).isEmpty();
+
+        assertThat(ids("/api/characters?showId=" + show + "&upTo=S1")).containsExactlyInAnyOrder(alice);
+        assertThat(ids("/api/characters?showId=" + show + "&upTo=S2")).containsExactlyInAnyOrder(alice, bob);
+
+        assertThat(ids("/api/quotes?showId=" + show + "&upTo=S1E1")).containsExactlyInAnyOrder(aliceEarly);
+        assertThat(ids("/api/quotes?showId=" + show + "&upTo=S9")).containsExactlyInAnyOrder(aliceEarly, aliceLate, bobLate);
+        assertThat(ids("/api/quotes?characterId=" + alice + "&upTo=S2")).containsExactlyInAnyOrder(aliceEarly, aliceLate);
+        assertThat(ids("/api/quotes?showId=" + show)).contains(unplaced);
+    }
+
+    @Test
+    void malformedOrUnscopedUpToIsRejected() {
+        assertThat(get("/api/episodes?showId=" + show + "&upTo=E5").statusCode()).isEqualTo(400);
+        assertThat(get("/api/episodes?upTo=S1").statusCode()).isEqualTo(400);
+        assertThat(get("/api/characters?showId=" + show + "&search=A&upTo=S1").statusCode()).isEqualTo(400);
+        assertThat(get("/api/quotes?upTo=S1").statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    void episodeMovingSeasonsMovesItsQuotesAndFirstAppearances() throws Exception {
+        assertThat(patch("/api/episodes/" + s1e1, "application/merge-patch+json",
+                "{\"seasonId\":" + season2 + ",\"episodeNumber\":5}").statusCode()).isEqualTo(204);
+
+        assertThat(ordinal("episodes", "episode_ordinal", s1e1)).isEqualTo(2005);
+        assertThat(ordinal("quotes", "episode_ordinal", aliceEarly)).isEqualTo(2005);
+        assertThat(ordinal("characters", "first_appearance_ordinal", alice)).isEqualTo(2005);
+        assertThat(episodes("showId=" + show + "&upTo=S1")).containsExactlyInAnyOrder(s1e2);
+        assertThat(ids("/api/characters?showId=" + show + "&upTo=S2E4")).containsExactlyInAnyOrder(bob);
+        assertThat(ids("/api/quotes?showId=" + show + "&upTo=S2E4")).containsExactlyInAnyOrder(aliceLate, bobLate);
+    }
+
+    @Test
+    void renumberedSeasonMovesEverythingInIt() throws Exception {
+        jdbcTemplate.update("UPDATE seasons SET season_number = 3 WHERE id = ?", season2);
+
+        assertThat(ordinal("episodes", "episode_ordinal", s2e1)).isEqualTo(3001);
+        assertThat(ordinal("episodes", "episode_ordinal", s1e1)).isEqualTo(1001);
+        assertThat(ordinal("quotes", "episode_ordinal", bobLate)).isEqualTo(3001);
+        assertThat(ordinal("characters", "first_appearance_ordinal", bob)).isEqualTo(3001);
+        assertThat(ids("/api/characters?showId=" + show + "&upTo=S2")).containsExactlyInAnyOrder(alice);
+        assertThat(ids("/api/quotes?showId=" + show + "&upTo=S2")).containsExactlyInAnyOrder(aliceEarly);
+    }
+
+    @Test
+    void removedAppearancesMoveTheFirstAppearance() throws Exception {
+        appear(bob, s1e2);
+        assertThat(ordinal("characters", "first_appearance_ordinal", bob)).isEqualTo(1002);
+
+        jdbcTemplate.update("DELETE FROM character_episodes WHERE character_id = ? AND episode_id = ?", bob, s1e2);
+        assertThat(ordinal("characters", "first_appearance_ordinal", bob)).isEqualTo(2001);
+
+        jdbcTemplate.update("DELETE FROM character_episodes WHERE character_id = ?", bob);
+        assertThat(ordinal("characters", "first_appearance_ordinal", bob)).isNull();
+        assertThat(ids("/api/characters?showId=" + show + "&upTo=S9")).containsExactlyInAnyOrder(alice);
+
+        // An explicit first appearance wins over appearances, which do not move it
+        appear(alice, s1e2);
+        jdbcTemplate.update("DELETE FROM character_episodes WHERE character_id = ?", alice);
+        assertThat(ordinal("characters", "first_appearance_ordinal", alice)).isEqualTo(1001);
+    }
+
+    private long season(int number) {
+        Season season = new Season();
+        season.setShowId(show);
+        season.setSeasonNumber(number);
+        return seasonRepository.save(season).getId();
+    }
+
+    private long episode(long seasonId, int number) {
+        Episode episode = new Episode();
+        episode.setShowId(show);
+        episode.setSeasonId(seasonId);
+        episode.setEpisodeNumber(number);
+        episode.setTitle("Episode " + number);
+        return episodeRepository.save(episode).getId();
+    }
+
+    private long character(String name, Long firstAppearance) {
+        Character character = new Character();
+        character.setShowId(show);
+        character.setName(name);
+        character.setFirstAppearance(firstAppearance);
+        return characterRepository.save(character).getId();
+    }
+
+    private void appear(long characterId, long episodeId) {
+        jdbcTemplate.update("INSERT INTO character_episodes (character_id, episode_id) VALUES (?, ?)",
+                characterId, episodeId);
+    }
+
+    private long quote(long characterId, Long episodeId) {
+        Quote quote = new Quote();
+        quote.setShowId(show);
+        quote.setCharacterId(characterId);
+        quote.setEpisodeId(episodeId);
+        quote.setQuoteText("Line");
+        return quoteRepository.save(quote).getId();
+    }
+
+    private Long ordinal(String table, String column, long id) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM " + table + " WHERE id = ?", Long.class, id);
+    }
+
+    private List<Long> episodes(String query) throws Exception {
+        HttpResponse<String> response = get("/api/episodes?" + query);
+        assertThat(response.statusCode()).isEqualTo(200);
+        return ids(objectMapper.readTree(response.body()).get("data"));
+    }
+
+    private List<Long> ids(String path) throws Exception {
+        HttpResponse<String> response = get(path);
+        assertThat(response.statusCode()).as(path).isEqualTo(200);
+        return ids(objectMapper.readTree(response.body()));
+    }
+
+    private static List<Long> ids(JsonNode rows) {
+        List<Long> ids = new ArrayList<>();
+        rows.forEach(row -> ids.add(row.get("id").asLong()));
+        return ids;
+    }
+}
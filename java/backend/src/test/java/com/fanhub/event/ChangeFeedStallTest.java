@@ -0,0 +1,81 @@
+package com.fanhub.event;
+
+import com.fanhub.IntegrationTest;
+import com.fanhub.event.SseStream.Event;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Subscribers that stop reading, against the test profile's two dispatcher threads and
+ * 500 ms send timeout. Discards the context afterwards, as {@link ChangeFeedTest} does.
+ */
+@DirtiesContext
+class ChangeFeedStallTest extends IntegrationTest {
+
+    private static final int STALLED = 3;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Test
+    void stalledClientsAreDroppedWithoutHoldingUpOthers() throws Exception {
+        long droppedBefore = dropped();
+        // More clients that never read than there are dispatcher threads
+        List<Socket> stalled = new ArrayList<>();
+        try {
+            for (int i = 0; i < STALLED; i++) {
+                Socket socket = new Socket();
+                socket.setReceiveBufferSize(4096);
+                socket.connect(new InetSocketAddress("localhost", port));
+                OutputStream out = socket.getOutputStream();
+                out.write("GET /api/changes HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n"
+                        .getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                stalled.add(socket);
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (((Number) changeFeed.stats().get("subscribers")).intValue() < STALLED
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+
+            // Large events until every stalled connection's buffers are full; a client
+            // lapped meanwhile only gets a small resync, so keep going until all block
+            String payload = "x".repeat(64 * 1024);
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+            for (long id = 1; dropped() - droppedBefore < STALLED && System.nanoTime() < deadline; id++) {
+                changeFeed.onChange(ChangeEvent.updated("show", 9200 + id, 1L, payload));
+                Thread.sleep(id < 300 ? 1 : 50);
+            }
+            assertThat(dropped() - droppedBefore).isEqualTo(STALLED);
+
+            // The dropped clients' writes are still blocked, yet a new subscriber is served
+            long head = ((Number) changeFeed.stats().get("lastEventId")).longValue();
+            try (SseStream healthy = SseStream.open(http, uri("/api/changes"), String.valueOf(head))) {
+                changeFeed.onChange(ChangeEvent.created("quote", 9999L, 1L, "marker"));
+                Event marker = healthy.next();
+                assertThat(marker.name()).isEqualTo("quote.created");
+                assertThat(marker.data()).contains("marker");
+            }
+        } finally {
+            for (Socket socket : stalled) {
+                socket.close();
+            }
+        }
+    }
+
+    private long dropped() {
+        return ((Number) changeFeed.stats().get("droppedSubscribers")).longValue();
+    }
+}
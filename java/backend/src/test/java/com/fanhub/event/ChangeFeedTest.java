@@ -0,0 +1,110 @@
+package com.fanhub.event;
+
+import com.fanhub.IntegrationTest;
+import com.fanhub.event.SseStream.Event;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the test profile's 16-entry ring. Streams these tests close mid-flight are
+ * torn down asynchronously and must not overlap connections opened later: each test waits
+ * for the feed to drop its subscribers, and the context is discarded afterwards.
+ */
+@DirtiesContext
+class ChangeFeedTest extends IntegrationTest {
+
+    @Autowired
+    private ChangeFeed changeFeed;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // A closed stream is only noticed when the feed next writes to it, so keep writing keepalives
+    @AfterEach
+    void awaitClosedStreams() throws InterruptedException {
+        for (int i = 0; i < 100 && subscribers() > 0; i++) {
+            changeFeed.heartbeat();
+            Thread.sleep(50);
+        }
+        assertThat(subscribers()).as("subscribers left after the streams closed").isZero();
+    }
+
+    @Test
+    void resumeReplaysMissedEventsFromTheRing() throws Exception {
+        long before = lastEventId();
+        for (long id = 1; id <= 3; id++) {
+            changeFeed.onChange(ChangeEvent.updated("episode", 9000 + id, 1L, "edit " + id));
+        }
+
+        try (SseStream stream = subscribe(before + 1)) {
+            Event first = stream.next();
+            Event second = stream.next();
+            assertThat(first.id()).isEqualTo(String.valueOf(before + 2));
+            assertThat(first.name()).isEqualTo("episode.updated");
+            assertThat(first.data()).contains("\"id\":9002");
+            assertThat(second.id()).isEqualTo(String.valueOf(before + 3));
+            assertThat(second.data()).contains("\"id\":9003");
+        }
+    }
+
+    @Test
+    void clientLappedByTheRingIsToldToResync() throws Exception {
+        long before = lastEventId();
+        for (long id = 1; id <= 40; id++) {
+            changeFeed.onChange(ChangeEvent.liked("quote", 9100 + id, 1L, null));
+        }
+
+        try (SseStream stream = subscribe(before)) {
+            Event resync = stream.next();
+            assertThat(resync.name()).isEqualTo("resync");
+            assertThat(resync.id()).isEqualTo(String.valueOf(before + 40));
+        }
+    }
+
+    @Test
+    void idFromAnotherRunIsToldToResync() throws Exception {
+        try (SseStream stream = subscribe(lastEventId() + 1_000_000)) {
+            assertThat(stream.next().name()).isEqualTo("resync");
+        }
+    }
+
+    @Test
+    void onlyCommittedChangesArePublished() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long before = lastEventId();
+
+        transaction.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(ChangeEvent.updated("show", 9300L, 9300L, "rolled back"));
+            assertThat(lastEventId()).as("published before the commit").isEqualTo(before);
+            status.setRollbackOnly();
+        });
+        assertThat(lastEventId()).isEqualTo(before);
+
+        transaction.executeWithoutResult(status ->
+                eventPublisher.publishEvent(ChangeEvent.updated("show", 9301L, 9301L, "committed")));
+        assertThat(lastEventId()).isEqualTo(before + 1);
+        // Outside a transaction the event goes out at once
+        eventPublisher.publishEvent(ChangeEvent.updated("show", 9302L, 9302L, "no transaction"));
+        assertThat(lastEventId()).isEqualTo(before + 2);
+    }
+
+    private int subscribers() {
+        return ((Number) changeFeed.stats().get("subscribers")).intValue();
+    }
+
+    private long lastEventId() {
+        return ((Number) changeFeed.stats().get("lastEventId")).longValue();
+    }
+
+    private SseStream subscribe(long lastEventId) {
+        return SseStream.open(http, uri("/api/changes"), String.valueOf(lastEventId));
+    }
+}
@@ -0,0 +1,77 @@
+package com.fanhub.event;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Test client for {@code /api/changes}: parses the event stream into a queue on a reader thread. */
+final class SseStream implements AutoCloseable {
+
+    record Event(String id, String name, String data) {}
+
+    private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    private volatile Stream<String> lines;
+
+    /** @param lastEventId sent as {@code Last-Event-ID}, or null for a fresh stream */
+    static SseStream open(HttpClient http, URI uri, String lastEventId) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        SseStream stream = new SseStream();
+        http.sendAsync(request.build(), HttpResponse.BodyHandlers.ofLines())
+                .thenAccept(response -> stream.read(response.body()));
+        return stream;
+    }
+
+    Event next() throws InterruptedException {
+        Event event = events.poll(10, TimeUnit.SECONDS);
+        assertThat(event).as("event within 10 s").isNotNull();
+        return event;
+    }
+
+    @Override
+    public void close() {
+        if (lines != null) {
+            lines.close();
+        }
+    }
+
+    private void read(Stream<String> body) {
+        lines = body;
+        Thread reader = new Thread(() -> {
+            String id = null;
+            String name = null;
+            StringBuilder data = new StringBuilder();
+            try {
+                for (String line : (Iterable<String>) body::iterator) {
+                    if (line.isEmpty()) {
+                        if (name != null || data.length() > 0) {
+                            events.add(new Event(id, name, data.toString()));
+                        }
+                        id = null;
+                        name = null;
+                        data.setLength(0);
+                    } else if (line.startsWith("id:")) {
+                        id = line.substring(3).trim();
+                    } else if (line.startsWith("event:")) {
+                        name = line.substring(6).trim();
+                    } else if (line.startsWith("data:")) {
+                        data.append(line.substring(5));
+                    }
+                }
+            } catch (RuntimeException e) {
+                // Closed by the test
+            }
+        }, "sse-test-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+}
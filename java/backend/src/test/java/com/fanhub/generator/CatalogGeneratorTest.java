@@ -0,0 +1,140 @@
+package com.fanhub.generator;
+
+import com.fanhub.config.SchemaMigrations;
+import com.fanhub.service.EpisodeOrdinal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogGeneratorTest {
+
+    private static final CatalogGenerator.Scale TINY = new CatalogGenerator.Scale(4, 120, 40, 600, 250);
+
+    // Row order for the comparison; the link tables' own ids follow the writer's arrival order
+    private static final Map<String, String> ORDER = new LinkedHashMap<>();
+
+    static {
+        ORDER.put("shows", "id");
+        ORDER.put("seasons", "id");
+        ORDER.put("episodes", "id");
+        ORDER.put("characters", "id");
+        ORDER.put("character_episodes", "character_id, episode_id");
+        ORDER.put("quotes", "id");
+        ORDER.put("users", "id");
+        ORDER.put("user_favorites", "user_id, character_id");
+    }
+
+    // Timestamps default to the load time and each run salts the shared password hash anew
+    private static final Set<String> UNCOMPARED = Set.of("created_at", "updated_at", "password_hash");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void theSameSeedGivesTheSameCatalogOnAnyNumberOfThreads() throws Exception {
+        Path one = generate("one.db", TINY, 1, 7, true);
+        Path three = generate("three.db", TINY, 3, 7, true);
+
+        Map<String, List<Map<String, Object>>> expected = dump(one);
+        assertThat(dump(three)).isEqualTo(expected);
+        assertThat(expected.get("quotes")).hasSizeGreaterThan(600);
+        assertThat(dump(generate("other.db", TINY, 1, 8, true))).isNotEqualTo(expected);
+    }
+
+    @Test
+    void writesTheRequestedCounts() throws Exception {
+        Path file = generate("plain.db", TINY, 2, 7, false);
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String table : List.of("shows", "episodes", "characters", "quotes", "users")) {
+            counts.put(table, jdbc(file, jdbc -> jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class)));
+        }
+        assertThat(counts).isEqualTo(Map.of("shows", 4, "episodes", 120, "characters", 40, "quotes", 600, "users", 250));
+    }
+
+    @Test
+    void keysAndOrdinalsAreConsistent() throws Exception {
+        Path file = generate("check.db", TINY, 2, 7, true);
+        Map<String, List<Map<String, Object>>> generated = dump(file);
+
+        jdbc(file, jdbc -> {
+            // Already migrated: running it again is a no-op that leaves every row as it was
+            SchemaMigrations.migrate(jdbc);
+            assertThat(jdbc.queryForList("SELECT name FROM sqlite_master WHERE type = 'trigger'", String.class))
+                    .contains("trg_episodes_version", "trg_episodes_ordinal_insert", "trg_quotes_ordinal_insert",
+                            "trg_character_episodes_ordinal_insert");
+            assertThat(jdbc.queryForObject("PRAGMA integrity_check", String.class)).isEqualTo("ok");
+            assertThat(jdbc.queryForList("PRAGMA foreign_key_check")).isEmpty();
+
+            // References stay within one show
+            assertThat(count(jdbc, "episodes e JOIN seasons s ON s.id = e.season_id WHERE s.show_id <> e.show_id"))
+                    .isZero();
+            assertThat(count(jdbc, "characters c JOIN episodes e ON e.id = c.first_appearance"
+                    + " WHERE e.show_id <> c.show_id")).isZero();
+            assertThat(count(jdbc, "character_episodes ce JOIN characters c ON c.id = ce.character_id"
+                    + " JOIN episodes e ON e.id = ce.episode_id WHERE e.show_id <> c.show_id")).isZero();
+            assertThat(count(jdbc, "quotes q JOIN characters c ON c.id = q.character_id"
+                    + " JOIN episodes e ON e.id = q.episode_id WHERE c.show_id <> q.show_id OR e.show_id <> q.show_id"))
+                    .isZero();
+
+            // The ordinals written during the load match what the triggers would have computed
+            assertThat(count(jdbc, "episodes e JOIN seasons s ON s.id = e.season_id WHERE e.episode_ordinal IS NOT"
+                    + " s.season_number * " + EpisodeOrdinal.SEASON_STRIDE + " + e.episode_number")).isZero();
+            assertThat(count(jdbc, "quotes q JOIN episodes e ON e.id = q.episode_id"
+                    + " WHERE q.episode_ordinal IS NOT e.episode_ordinal")).isZero();
+            assertThat(count(jdbc, "characters c JOIN episodes e ON e.id = c.first_appearance"
+                    + " WHERE c.first_appearance_ordinal IS NOT e.episode_ordinal")).isZero();
+            return null;
+        });
+        assertThat(dump(file)).isEqualTo(generated);
+    }
+
+    private Path generate(String name, CatalogGenerator.Scale scale, int threads, long seed, boolean seedData)
+            throws Exception {
+        Path file = directory.resolve(name);
+        new CatalogGenerator(file, new CatalogGenerator.Options(scale, 3, 2, threads, seed, seedData)).generate();
+        return file;
+    }
+
+    private static Map<String, List<Map<String, Object>>> dump(Path file) throws Exception {
+        return jdbc(file, jdbc -> {
+            Map<String, List<Map<String, Object>>> tables = new LinkedHashMap<>();
+            ORDER.forEach((table, order) -> {
+                List<Map<String, Object>> rows = jdbc.queryForList("SELECT * FROM " + table + " ORDER BY " + order);
+                for (Map<String, Object> row : rows) {
+                    row.keySet().removeAll(UNCOMPARED);
+                    if (order.contains(",")) {
+                        row.remove("id");
+                    }
+                }
+                tables.put(table, rows);
+            });
+            return tables;
+        });
+    }
+
+    private static int count(JdbcTemplate jdbc, String from) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + from, Integer.class);
+    }
+
+    private interface Work<T> {
+        T run(JdbcTemplate jdbc) throws Exception;
+    }
+
+    private static <T> T jdbc(Path file, Work<T> work) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file)) {
+            return work.run(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+        }
+    }
+}
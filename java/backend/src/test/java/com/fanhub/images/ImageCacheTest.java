@@ -0,0 +1,74 @@
+package com.fanhub.images;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void evictedFileOutlivesItsEntryForTheGracePeriod() throws Exception {
+        ImageCache cache = new ImageCache(directory, 150, 200);
+        put(cache, "a.jpg");
+        put(cache, "b.jpg");
+
+        assertThat(cache.get("a.jpg")).isNull();
+        assertThat(cache.stats()).containsEntry("variants", 1).containsEntry("pendingDeletes", 1);
+        // A sender that looked it up just before eviction can still open it
+        assertThat(directory.resolve("a.jpg")).exists();
+
+        Thread.sleep(250);
+        put(cache, "c.jpg");
+
+        assertThat(directory.resolve("a.jpg")).doesNotExist();
+        assertThat(directory.resolve("b.jpg")).exists();
+        assertThat(cache.stats()).containsEntry("pendingDeletes", 1);
+    }
+
+    @Test
+    void regeneratingAnEvictedVariantKeepsTheNewFile() throws Exception {
+        ImageCache cache = new ImageCache(directory, 150, 0);
+        put(cache, "a.jpg");
+        put(cache, "b.jpg");
+        put(cache, "a.jpg");
+        put(cache, "c.jpg");
+
+        assertThat(cache.get("c.jpg")).exists();
+        assertThat(directory.resolve("a.jpg")).doesNotExist();
+        assertThat(directory.resolve("b.jpg")).doesNotExist();
+
+        ImageCache grace = new ImageCache(directory, 150, 60_000);
+        put(grace, "d.jpg");
+        put(grace, "c.jpg");
+
+        assertThat(grace.get("c.jpg")).exists();
+        assertThat(grace.stats()).containsEntry("pendingDeletes", 1);
+    }
+
+    @Test
+    void startupDeletesWhatItEvictsAtOnce() throws Exception {
+        Files.write(directory.resolve("a.jpg"), new byte[100]);
+        Files.write(directory.resolve("b.jpg"), new byte[100]);
+
+        ImageCache cache = new ImageCache(directory, 150, 60_000);
+
+        assertThat(cache.stats()).containsEntry("variants", 1).containsEntry("pendingDeletes", 0);
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(1);
+        }
+    }
+
+    private static void put(ImageCache cache, String name) throws IOException {
+        Path temp = cache.newTempFile();
+        Files.write(temp, new byte[100]);
+        cache.put(name, temp);
+    }
+}
@@ -0,0 +1,154 @@
+package com.fanhub.repository;
+
+import com.fanhub.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.repository.Repository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that every query method in {@code com.fanhub.repository} is served by an index.
+ *
+ * Each declared repository method is called once with placeholder arguments inside a
+ * rolled-back transaction while {@link SqlCapture} records the SQL it generates. Every
+ * statement is then run through {@code EXPLAIN QUERY PLAN}, and any full-table
+ * {@code SCAN} not listed in {@link #ALLOWED_SCANS} fails the build, so a new query or
+ * entity without an index is caught by {@code mvn test}.
+ */
+class RepositoryQueryPlanTest extends IntegrationTest {
+
+    // Substring search cannot use an index; listed as Repository.method or Repository.method:table
+    private static final Set<String> ALLOWED_SCANS = Set.of("CharacterRepository.findByNameContainingIgnoreCase");
+
+    private static final String REPOSITORY_PACKAGE = "com.fanhub.repository";
+    private static final Pattern SCAN = Pattern.compile("^SCAN (\\S+)");
+    private static final Pattern TABLE_REF = Pattern.compile(
+            "(?i)\\b(?:from|join)\\s+(\\w+)(?:\\s+(?:as\\s+)?(\\w+))?");
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactions;
+
+    @Test
+    void repositoryQueriesUseIndexes() {
+        List<String> violations = new ArrayList<>();
+        int statements = 0;
+        for (Map.Entry<Class<?>, Object> repository : repositories().entrySet()) {
+            Method[] declared = repository.getKey().getDeclaredMethods();
+            Arrays.sort(declared, Comparator.comparing(Method::getName));
+            for (Method method : declared) {
+                if (method.isDefault() || method.isSynthetic() || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String name = repository.getKey().getSimpleName() + "." + method.getName();
+                for (String sql : capture(repository.getValue(), method)) {
+                    statements++;
+                    violations.addAll(check(name, sql));
+                }
+            }
+        }
+
+        assertThat(statements).as("captured statements").isPositive();
+        assertThat(violations).as("repository queries that scan whole tables; add an index or list them in ALLOWED_SCANS")
+                .isEmpty();
+    }
+
+    private Map<Class<?>, Object> repositories() {
+        Map<Class<?>, Object> repositories = new TreeMap<>(Comparator.comparing(Class::getName));
+        for (Object bean : context.getBeansOfType(Repository.class).values()) {
+            for (Class<?> type : ClassUtils.getAllInterfaces(bean)) {
+                if (type.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                    repositories.put(type, bean);
+                }
+            }
+        }
+        return repositories;
+    }
+
+    // Runs the method once and rolls back, so even a modifying query leaves no trace
+    private List<String> capture(Object repository, Method method) {
+        Object[] args = Arrays.stream(method.getParameterTypes()).map(RepositoryQueryPlanTest::placeholder).toArray();
+        List<String> sql = new ArrayList<>();
+        SqlCapture.start();
+        try {
+            transactions.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                try {
+                    method.invoke(repository, args);
+                } catch (ReflectiveOperationException e) {
+                    throw new AssertionError("Could not run " + method + " for plan capture", e);
+                }
+            });
+        } finally {
+            sql.addAll(SqlCapture.stop());
+        }
+        return sql;
+    }
+
+    private List<String> check(String method, String sql) {
+        Map<String, String> tables = new HashMap<>();
+        Matcher ref = TABLE_REF.matcher(sql);
+        while (ref.find()) {
+            tables.put(ref.group(1).toLowerCase(), ref.group(1).toLowerCase());
+            if (ref.group(2) != null) {
+                tables.put(ref.group(2).toLowerCase(), ref.group(1).toLowerCase());
+            }
+        }
+        int parameters = (int) sql.chars().filter(c -> c == '?').count();
+        List<String> plan = jdbcTemplate.query("EXPLAIN QUERY PLAN " + sql,
+                ps -> {
+                    for (int i = 1; i <= parameters; i++) {
+                        ps.setInt(i, 1);
+                    }
+                },
+                (rs, i) -> rs.getString("detail"));
+
+        List<String> violations = new ArrayList<>();
+        for (String step : plan) {
+            Matcher scan = SCAN.matcher(step);
+            if (!scan.find()) {
+                continue;
+            }
+            // Only real tables count; subquery and CTE scans read rows already narrowed down
+            String table = tables.get(scan.group(1).toLowerCase());
+            if (table == null || ALLOWED_SCANS.contains(method) || ALLOWED_SCANS.contains(method + ":" + table)) {
+                continue;
+            }
+            violations.add(method + " scans " + table + " (" + step + ") in: " + sql);
+        }
+        return violations;
+    }
+
+    private static Object placeholder(Class<?> type) {
+        if (type == Long.class || type == long.class) return 1L;
+        if (type == Integer.class || type == int.class) return 1;
+        if (type == Boolean.class || type == boolean.class) return true;
+        if (type == String.class) return "a";
+        if (Collection.class.isAssignableFrom(type)) return List.of(1L, 2L);
+        return null;
+    }
+}
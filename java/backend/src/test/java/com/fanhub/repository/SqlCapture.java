@@ -0,0 +1,37 @@
+package com.fanhub.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the SQL Hibernate generates while a capture is running; idle otherwise.
+ * Registered by name in {@code application-test.properties}, so the state is static.
+ */
+public class SqlCapture implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+    private static volatile boolean capturing;
+
+    @Override
+    public String inspect(String sql) {
+        if (capturing) {
+            STATEMENTS.add(sql);
+        }
+        return sql;
+    }
+
+    public static void start() {
+        STATEMENTS.clear();
+        capturing = true;
+    }
+
+    public static List<String> stop() {
+        capturing = false;
+        List<String> captured = new ArrayList<>(STATEMENTS);
+        STATEMENTS.clear();
+        return captured;
+    }
+}
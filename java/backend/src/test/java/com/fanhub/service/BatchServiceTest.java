@@ -0,0 +1,132 @@
+package com.fanhub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** Paths, timeouts and queueing of batch sub-requests, with a filter standing in for the application. */
+class BatchServiceTest {
+
+    private final AtomicInteger interrupted = new AtomicInteger();
+    private BatchService batch;
+
+    // Answers /api/sleep/{ms} after sleeping that long, with the path and query as seen in-process
+    private final Filter application = (request, response, chain) -> {
+        HttpServletRequest http = (HttpServletRequest) request;
+        String path = http.getRequestURI();
+        try {
+            Thread.sleep(Long.parseLong(path.substring(path.lastIndexOf('/') + 1)));
+        } catch (InterruptedException e) {
+            interrupted.incrementAndGet();
+            return;
+        }
+        response.setContentType("application/json");
+        response.getOutputStream().write(("{\"uri\":\"" + path + "\",\"q\":\"" + http.getParameter("q") + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+    };
+
+    @AfterEach
+    void shutdown() {
+        batch.shutdown();
+    }
+
+    @Test
+    void timeoutCountsFromWhenASubRequestStarts() {
+        batch = batch(1, 10, 300);
+
+        List<Map<String, Object>> results = batch.execute(
+                List.of("/api/sleep/150?q=a", "/api/sleep/150?q=b", "/api/sleep/150?q=c"), caller());
+
+        // 450 ms in total on one thread, but each one well within its own 300 ms
+        assertThat(results).extracting(r -> r.get("status")).containsExactly(200, 200, 200);
+        assertThat(results.get(2).get("body").toString()).contains("/api/sleep/150").contains("\"q\":\"c\"");
+    }
+
+    @Test
+    void slowSubRequestIsAnsweredWith504AndInterrupted() throws Exception {
+        batch = batch(2, 10, 200);
+
+        List<Map<String, Object>> results = batch.execute(List.of("/api/sleep/10000", "/api/sleep/10"), caller());
+
+        assertThat(results).extracting(r -> r.get("status")).containsExactly(504, 200);
+        for (int i = 0; i < 50 && interrupted.get() == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertThat(interrupted.get()).isEqualTo(1);
+    }
+
+    @Test
+    void fullQueueIsAnsweredWith503() {
+        batch = batch(1, 1, 1000);
+
+        List<Map<String, Object>> results = batch.execute(
+                List.of("/api/sleep/100", "/api/sleep/10", "/api/sleep/10"), caller());
+
+        assertThat(results).extracting(r -> r.get("status")).containsExactly(200, 200, 503);
+    }
+
+    @Test
+    void excludedPathsCannotBeReachedThroughEncodingOrDoubledSlashes() {
+        batch = batch(1, 10, 1000);
+
+        for (String path : List.of("/api/changes", "/api/%63hanges", "/api/changes;x=1/", "/api//changes",
+                "/api/%62atch", "/api/batch/", "/api/shows/%2e%2e/changes", "/api/a%2Fb", "//api/shows")) {
+            assertThatThrownBy(() -> batch.execute(List.of(path), caller()))
+                    .as(path)
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode().value()).isEqualTo(400));
+        }
+        // Encoded characters elsewhere are fine
+        List<Map<String, Object>> results = batch.execute(List.of("/api/sl%65ep/10?q=a%20b"), caller());
+        assertThat(results).extracting(r -> r.get("status")).containsExactly(200);
+        assertThat(results.get(0).get("body").toString()).contains("\"q\":\"a b\"");
+    }
+
+    @Test
+    void requestMethodsWithoutAnAnswerReturnEmptyValues() {
+        // A filter that asks for things an in-process request has no answer to
+        Filter curious = (request, response, chain) -> {
+            HttpServletRequest http = (HttpServletRequest) request;
+            boolean empty = http.getTrailerFields().isEmpty() && http.getRequestId() == null
+                    && http.getParts().isEmpty() && http.getServletConnection() == null;
+            ((HttpServletResponse) response).setTrailerFields(null);
+            response.setContentType("application/json");
+            response.getOutputStream().write(("{\"empty\":" + empty + "}").getBytes(StandardCharsets.UTF_8));
+        };
+        batch = batch(curious, 1, 10, 1000);
+
+        List<Map<String, Object>> results = batch.execute(List.of("/api/anything"), caller());
+
+        assertThat(results).extracting(r -> r.get("status")).containsExactly(200);
+        assertThat(results.get(0).get("body").toString()).contains("\"empty\":true");
+    }
+
+    private BatchService batch(int parallelism, int queueCapacity, long timeoutMs) {
+        return batch(application, parallelism, queueCapacity, timeoutMs);
+    }
+
+    private BatchService batch(Filter filter, int parallelism, int queueCapacity, long timeoutMs) {
+        InProcessDispatcher dispatcher = new InProcessDispatcher(new MockServletContext(), filter,
+                new DispatcherServlet());
+        return new BatchService(dispatcher, new ObjectMapper(), parallelism, queueCapacity, timeoutMs);
+    }
+
+    private static HttpServletRequest caller() {
+        return new MockHttpServletRequest("POST", "/api/batch");
+    }
+}
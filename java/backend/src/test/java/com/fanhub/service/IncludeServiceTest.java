@@ -0,0 +1,183 @@
+package com.fanhub.service;
+
+import com.fanhub.IntegrationTest;
+import com.fanhub.model.Character;
+import com.fanhub.model.Episode;
+import com.fanhub.model.Quote;
+import com.fanhub.model.Season;
+import com.fanhub.model.Show;
+import com.fanhub.repository.CharacterRepository;
+import com.fanhub.repository.EpisodeRepository;
+import com.fanhub.repository.QuoteRepository;
+import com.fanhub.repository.SeasonRepository;
+import com.fanhub.repository.ShowRepository;
+import com.fanhub.repository.SqlCapture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nested {@code ?include=} expansion over the database: one batched query per relation
+ * and level, however many parents there are.
+ */
+class IncludeServiceTest extends IntegrationTest {
+
+    private static final Pattern FROM = Pattern.compile("(?i)\\bfrom\\s+(\\w+)");
+
+    @Autowired
+    private IncludeService includeService;
+    @Autowired
+    private ShowRepository showRepository;
+    @Autowired
+    private SeasonRepository seasonRepository;
+    @Autowired
+    private EpisodeRepository episodeRepository;
+    @Autowired
+    private CharacterRepository characterRepository;
+    @Autowired
+    private QuoteRepository quoteRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Show> shows = new ArrayList<>();
+    private final List<Character> characters = new ArrayList<>();
+
+    // Three shows, each with two seasons of two episodes and two characters with a quote and an appearance
+    @BeforeEach
+    void catalog() {
+        for (int s = 0; s < 3; s++) {
+            Show show = new Show();
+            show.setTitle("Include " + s);
+            show = showRepository.save(show);
+            shows.add(show);
+            List<Episode> episodes = new ArrayList<>();
+            for (int n = 1; n <= 2; n++) {
+                Season season = new Season();
+                season.setShowId(show.getId());
+                season.setSeasonNumber(n);
+                season = seasonRepository.save(season);
+                for (int e = 1; e <= 2; e++) {
+                    Episode episode = new Episode();
+                    episode.setShowId(show.getId());
+                    episode.setSeasonId(season.getId());
+                    episode.setEpisodeNumber(e);
+                    episode.setTitle("S" + n + "E" + e);
+                    episodes.add(episodeRepository.save(episode));
+                }
+            }
+            for (int c = 0; c < 2; c++) {
+                Character character = new Character();
+                character.setShowId(show.getId());
+                character.setName("Character " + s + "." + c);
+                character = characterRepository.save(character);
+                characters.add(character);
+                Quote quote = new Quote();
+                quote.setShowId(show.getId());
+                quote.setCharacterId(character.getId());
+                quote.setEpisodeId(episodes.get(c).getId());
+                quote.setQuoteText("Line " + s + "." + c);
+                quoteRepository.save(quote);
+                jdbcTemplate.update("INSERT INTO character_episodes (character_id, episode_id) VALUES (?, ?)",
+                        character.getId(), episodes.get(c).getId());
+            }
+        }
+    }
+
+    @Test
+    void showIncludesIssueOneQueryPerRelationAndLevel() {
+        var include = includeService.parse("seasons.episodes,episodes,characters.quotes,quotes",
+                IncludeService.SHOW_INCLUDES);
+
+        Map<String, Integer> one = queriesPerTable(() -> includeService.expandShows(shows.subList(0, 1), include));
+        List<Map<String, Object>> expanded = new ArrayList<>();
+        Map<String, Integer> three = queriesPerTable(() -> expanded.addAll(includeService.expandShows(shows, include)));
+
+        // Level 1: seasons, episodes, characters and top quotes by show; level 2: episodes by season, quotes by character
+        assertThat(three).isEqualTo(Map.of("seasons", 1, "episodes", 2, "characters", 1, "quotes", 2));
+        assertThat(one).isEqualTo(three);
+        assertThat(expanded).hasSize(3).allSatisfy(show -> {
+            assertThat((List<?>) show.get("seasons")).hasSize(2).allSatisfy(season ->
+                    assertThat((List<?>) ((Map<?, ?>) season).get("episodes")).hasSize(2));
+            assertThat((List<?>) show.get("characters")).hasSize(2).allSatisfy(character ->
+                    assertThat((List<?>) ((Map<?, ?>) character).get("quotes")).hasSize(1));
+            assertThat((List<?>) show.get("episodes")).hasSize(4);
+            assertThat((List<?>) show.get("quotes")).hasSize(2);
+        });
+    }
+
+    @Test
+    void moreParentsThanOneQueryTakesAreLoadedInChunks() {
+        var include = includeService.parse("seasons.episodes,episodes,characters.quotes,quotes",
+                IncludeService.SHOW_INCLUDES);
+        List<Show> parents = new ArrayList<>(shows);
+        for (long id = 1; parents.size() <= MultiGet.MAX_IDS; id++) {
+            Show missing = new Show();
+            missing.setId(Long.MAX_VALUE - id);
+            parents.add(missing);
+        }
+
+        List<Map<String, Object>> expanded = new ArrayList<>();
+        Map<String, Integer> queries = queriesPerTable(() -> expanded.addAll(includeService.expandShows(parents, include)));
+
+        // Two chunks of show ids on level 1; level 2 only sees the seasons and characters of the three real shows
+        assertThat(queries).isEqualTo(Map.of("seasons", 2, "episodes", 3, "characters", 2, "quotes", 3));
+        assertThat(expanded).hasSize(parents.size());
+        assertThat(expanded.subList(0, 3)).allSatisfy(show -> {
+            assertThat((List<?>) show.get("seasons")).hasSize(2);
+            assertThat((List<?>) show.get("episodes")).hasSize(4);
+            assertThat((List<?>) show.get("characters")).hasSize(2);
+            assertThat((List<?>) show.get("quotes")).hasSize(2);
+        });
+        assertThat((List<?>) expanded.get(3).get("seasons")).isEmpty();
+    }
+
+    @Test
+    void characterIncludesIssueOneQueryPerRelationAndLevel() {
+        var include = includeService.parse("show,quotes.episode,episodes", IncludeService.CHARACTER_INCLUDES);
+
+        Map<String, Integer> one = queriesPerTable(
+                () -> includeService.expandCharacters(characters.subList(0, 1), include));
+        List<Map<String, Object>> expanded = new ArrayList<>();
+        Map<String, Integer> six = queriesPerTable(
+                () -> expanded.addAll(includeService.expandCharacters(characters, include)));
+
+        // Level 1: shows, quotes and appearances (join table, then the episodes); level 2: the quotes' episodes
+        assertThat(six).isEqualTo(Map.of("shows", 1, "quotes", 1, "character_episodes", 1, "episodes", 2));
+        assertThat(one).isEqualTo(six);
+        assertThat(expanded).hasSize(6).allSatisfy(character -> {
+            assertThat(character.get("show")).isNotNull();
+            assertThat((List<?>) character.get("episodes")).hasSize(1);
+            assertThat((List<?>) character.get("quotes")).singleElement().satisfies(quote ->
+                    assertThat(((Map<?, ?>) quote).get("episode")).isNotNull());
+        });
+    }
+
+    private static Map<String, Integer> queriesPerTable(Supplier<?> work) {
+        SqlCapture.start();
+        List<String> statements;
+        try {
+            work.get();
+        } finally {
+            statements = SqlCapture.stop();
+        }
+        Map<String, Integer> perTable = new TreeMap<>();
+        for (String sql : statements) {
+            Matcher table = FROM.matcher(sql);
+            if (table.find()) {
+                perTable.merge(table.group(1).toLowerCase(), 1, Integer::sum);
+            }
+        }
+        return perTable;
+    }
+}
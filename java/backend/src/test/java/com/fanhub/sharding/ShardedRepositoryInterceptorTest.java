@@ -0,0 +1,347 @@
+package com.fanhub.sharding;
+
+import com.fanhub.model.Character;
+import com.fanhub.model.Show;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedRepositoryInterceptorTest {
+
+    private final SingleConnectionDataSource home = new SingleConnectionDataSource("jdbc:sqlite::memory:", true);
+    private final ShardRouter router = router();
+    private final List<SingleConnectionDataSource> shardFiles = new ArrayList<>();
+
+    private final Counts counts = proxy(Counts.class, new PerShardCounts(Map.of(
+            "shared", 3L, "show-1", 4L, "show-2", 0L)));
+
+    @AfterEach
+    void close() {
+        ShardContext.unpin();
+        router.shutdown();
+        shardFiles.forEach(SingleConnectionDataSource::destroy);
+        home.destroy();
+    }
+
+    @Test
+    void countsAreSummedAcrossShards() {
+        assertThat(counts.count()).isEqualTo(7L);
+        assertThat(counts.countBoxed()).isEqualTo(7L);
+        assertThat(counts.countByTitle("x")).isEqualTo(7);
+        assertThat(counts.averageSomething()).isEqualTo(7.0);
+    }
+
+    @Test
+    void existsIsTrueWhenAnyShardHasTheRow() {
+        assertThat(counts.existsById(0L)).isFalse();
+        assertThat(counts.existsById(4L)).isTrue();
+        assertThat(counts.existsById(9L)).isFalse();
+    }
+
+    @Test
+    void shardPinnedCallsAreNotFannedOut() {
+        assertThat(ShardContext.callOn("show-1", counts::count)).isEqualTo(4L);
+    }
+
+    @Test
+    void requestPinSteersRepositoryCallsButNotTheHomeDatabase() {
+        ShardContext.pin("show-1");
+
+        assertThat(counts.count()).isEqualTo(4L);
+        // Outside a sharded repository call, connections still go to the home database
+        assertThat(ShardContext.current()).isNull();
+    }
+
+    @Test
+    void propagatedTasksKeepTheRequestPinOnOtherThreads() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Executor propagating = task -> pool.execute(ShardContext.propagate(task));
+        try {
+            ShardContext.pin("show-1");
+            CompletableFuture<Long> pinned = CompletableFuture.supplyAsync(counts::count, propagating);
+            // Submitted from a pool thread, as nested includes are
+            CompletableFuture<Long> nested = CompletableFuture.supplyAsync(
+                    () -> CompletableFuture.supplyAsync(counts::count, propagating), propagating)
+                    .thenCompose(inner -> inner);
+            ShardContext.unpin();
+            CompletableFuture<Long> unpinned = CompletableFuture.supplyAsync(counts::count, propagating);
+
+            assertThat(pinned.get()).isEqualTo(4L);
+            assertThat(nested.get()).isEqualTo(4L);
+            assertThat(unpinned.get()).isEqualTo(7L);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void lookupsByIdFollowTheIdRangeNotThePin() {
+        long inShow1 = ShardCatalog.ID_RANGE + 5;
+        long inShow2 = 2 * ShardCatalog.ID_RANGE + 1;
+        Map<String, List<Long>> seen = new HashMap<>();
+        Characters characters = proxy(Characters.class, new PerShardCharacters(Map.of(
+                "shared", List.of(3L), "show-1", List.of(inShow1), "show-2", List.of(inShow2)), seen));
+        ShardContext.pin("show-2");
+
+        assertThat(characters.findById(inShow1)).map(Character::getName).contains("show-1");
+        // Copied over by the split with its old id: only a fan-out finds it
+        assertThat(characters.findById(3L)).map(Character::getName).contains("shared");
+        assertThat(characters.existsById(inShow2 + 1)).isFalse();
+
+        seen.clear();
+        assertThat(characters.findAllById(List.of(inShow2, 3L, inShow1)))
+                .extracting(Character::getId).containsExactly(3L, inShow1, inShow2);
+        assertThat(seen).isEqualTo(Map.of(
+                "shared", List.of(3L), "show-1", List.of(inShow1, 3L), "show-2", List.of(inShow2, 3L)));
+    }
+
+    @Test
+    void repositoryTransactionsOpenOnTheRoutedShard() {
+        router.catalog().assign(1L, "show-1");
+        router.catalog().assign(2L, "show-2");
+        ShardRoutingDataSource routing = routing();
+        // Layered like the real repositories: their own transaction advice inside the sharding proxy
+        Names names = proxy(Names.class, transactional(Names.class, new DatabaseNames(routing), routing));
+
+        assertThat(names.findNameByShowId(1L)).isEqualTo("show-1 in a transaction");
+        assertThat(names.findNameByShowId(2L)).isEqualTo("show-2 in a transaction");
+        assertThat(names.findNameByShowId(3L)).isEqualTo("shared in a transaction");
+    }
+
+    @Test
+    void aCallersTransactionKeepsItsConnection() {
+        router.catalog().assign(1L, "show-1");
+        ShardRoutingDataSource routing = routing();
+        Names names = proxy(Names.class, transactional(Names.class, new DatabaseNames(routing), routing));
+
+        String name = new TransactionTemplate(new DataSourceTransactionManager(routing))
+                .execute(status -> names.findNameByShowId(1L));
+        // Opened before any routing, so on the home database, and the call joins it there
+        assertThat(name).isEqualTo("home in a transaction");
+    }
+
+    @Test
+    void newShowsGoToTheShardWithTheFewestShows() {
+        router.catalog().assign(1L, "show-1");
+        router.catalog().assign(2L, "show-2");
+        Shows shows = proxy(Shows.class, new InsertingShows(router.catalog()));
+
+        List<String> placed = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Show show = shows.save(new Show());
+            String shard = router.shardOf(show.getId());
+            // The id comes from the chosen shard's range
+            assertThat(show.getId() / ShardCatalog.ID_RANGE).isEqualTo(router.catalog().idBase(shard) / ShardCatalog.ID_RANGE);
+            placed.add(shard);
+        }
+        // The empty default shard first, then the default shard again on a three-way tie
+        assertThat(placed).containsExactly("shared", "shared", "show-1", "show-2");
+
+        List<Show> batch = shows.saveAll(List.of(new Show(), new Show()));
+        assertThat(batch).allSatisfy(show -> assertThat(router.catalog().assignments()).containsKey(show.getId()));
+    }
+
+    private ShardRouter router() {
+        JdbcTemplate jdbc = new JdbcTemplate(home);
+        for (String ddl : ShardCatalog.DDL) {
+            jdbc.execute(ddl);
+        }
+        ShardCatalog.register(jdbc, "show-1", ShardCatalog.ID_RANGE);
+        ShardCatalog.register(jdbc, "show-2", 2 * ShardCatalog.ID_RANGE);
+        ShardCatalog catalog = new ShardCatalog(jdbc, Path.of("unused"), "shared");
+        catalog.load();
+        return new ShardRouter(catalog, 2);
+    }
+
+    // One in-memory database per shard, plus the home database, each knowing its own name
+    private ShardRoutingDataSource routing() {
+        Map<Object, Object> targets = new HashMap<>();
+        for (String shard : router.catalog().shards()) {
+            SingleConnectionDataSource file = new SingleConnectionDataSource("jdbc:sqlite::memory:", true);
+            shardFiles.add(file);
+            name(file, shard);
+            targets.put(shard, file);
+        }
+        name(home, "home");
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setDefaultTargetDataSource(home);
+        routing.setTargetDataSources(targets);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static void name(SingleConnectionDataSource database, String name) {
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("CREATE TABLE database_name (name TEXT)");
+        jdbc.update("INSERT INTO database_name VALUES (?)", name);
+    }
+
+    private static <T> T transactional(Class<T> type, T target, ShardRoutingDataSource routing) {
+        ProxyFactory factory = new ProxyFactory();
+        factory.setTarget(target);
+        factory.setInterfaces(type);
+        factory.addAdvice(new TransactionInterceptor(new DataSourceTransactionManager(routing),
+                new AnnotationTransactionAttributeSource()));
+        return type.cast(factory.getProxy());
+    }
+
+    private <T> T proxy(Class<T> type, T target) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("shardRouter", router));
+        ProxyFactory factory = new ProxyFactory();
+        factory.setTarget(target);
+        factory.setInterfaces(type);
+        factory.addAdvice(new ShardedRepositoryInterceptor(target, beans.getBeanProvider(ShardRouter.class)));
+        return type.cast(factory.getProxy());
+    }
+
+    /** The shapes of aggregate repository methods the interceptor has to merge. */
+    public interface Counts {
+        long count();
+        Long countBoxed();
+        int countByTitle(String title);
+        double averageSomething();
+        boolean existsById(Long id);
+    }
+
+    /** Answers from the shard the call is routed to; each shard holds rows 1..its count. */
+    static class PerShardCounts implements Counts {
+
+        private final Map<String, Long> rows;
+
+        PerShardCounts(Map<String, Long> rows) {
+            this.rows = rows;
+        }
+
+        private long here() {
+            return rows.get(ShardContext.current());
+        }
+
+        @Override public long count() { return here(); }
+        @Override public Long countBoxed() { return here(); }
+        @Override public int countByTitle(String title) { return (int) here(); }
+        @Override public double averageSomething() { return here(); }
+        @Override public boolean existsById(Long id) { return id >= 1 && id <= here(); }
+    }
+
+    public interface Characters {
+        Optional<Character> findById(Long id);
+        boolean existsById(Long id);
+        List<Character> findAllById(Iterable<Long> ids);
+    }
+
+    /** Holds the given ids per shard, named after the shard, and records the ids each shard was asked for. */
+    static class PerShardCharacters implements Characters {
+
+        private final Map<String, List<Long>> rows;
+        private final Map<String, List<Long>> seen;
+
+        PerShardCharacters(Map<String, List<Long>> rows, Map<String, List<Long>> seen) {
+            this.rows = rows;
+            this.seen = seen;
+        }
+
+        @Override
+        public Optional<Character> findById(Long id) {
+            return findAllById(List.of(id)).stream().findFirst();
+        }
+
+        @Override
+        public boolean existsById(Long id) {
+            return findById(id).isPresent();
+        }
+
+        @Override
+        public List<Character> findAllById(Iterable<Long> ids) {
+            String shard = ShardContext.current();
+            List<Character> found = new ArrayList<>();
+            for (Long id : ids) {
+                synchronized (seen) {
+                    seen.computeIfAbsent(shard, k -> new ArrayList<>()).add(id);
+                }
+                if (rows.get(shard).contains(id)) {
+                    Character character = new Character();
+                    character.setId(id);
+                    character.setName(shard);
+                    found.add(character);
+                }
+            }
+            return found;
+        }
+    }
+
+    /** A show-scoped finder with a read-only transaction, like the repositories declare. */
+    @Transactional(readOnly = true)
+    public interface Names {
+        String findNameByShowId(Long showId);
+    }
+
+    /** Reports which database its (transaction-bound) connection belongs to. */
+    static class DatabaseNames implements Names {
+
+        private final JdbcTemplate jdbc;
+
+        DatabaseNames(ShardRoutingDataSource routing) {
+            this.jdbc = new JdbcTemplate(routing);
+        }
+
+        @Override
+        public String findNameByShowId(Long showId) {
+            String name = jdbc.queryForObject("SELECT name FROM database_name", String.class);
+            return name + (TransactionSynchronizationManager.isActualTransactionActive() ? " in a transaction" : "");
+        }
+    }
+
+    public interface Shows {
+        Show save(Show show);
+        List<Show> saveAll(Iterable<Show> shows);
+    }
+
+    /** Inserts like a shard file would: new ids count up from the shard's id base. */
+    static class InsertingShows implements Shows {
+
+        private final ShardCatalog catalog;
+        private final Map<String, Long> lastIds = new HashMap<>();
+
+        InsertingShows(ShardCatalog catalog) {
+            this.catalog = catalog;
+        }
+
+        @Override
+        public Show save(Show show) {
+            if (show.getId() == null) {
+                String shard = ShardContext.current();
+                show.setId(lastIds.merge(shard, catalog.idBase(shard) + 1, (last, first) -> last + 1));
+            }
+            return show;
+        }
+
+        @Override
+        public List<Show> saveAll(Iterable<Show> shows) {
+            List<Show> saved = new ArrayList<>();
+            shows.forEach(show -> saved.add(save(show)));
+            return saved;
+        }
+    }
+}
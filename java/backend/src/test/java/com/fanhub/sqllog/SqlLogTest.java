@@ -0,0 +1,39 @@
+package com.fanhub.sqllog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlLogTest {
+
+    private final SqlLog sqlLog = new SqlLog(100, 0, 8, "users", "email", "password_hash");
+
+    @Test
+    void showsParametersOfOrdinaryStatements() {
+        String line = sqlLog.format("select * from quotes where show_id=? and text like ?",
+                List.of(3L, "a rather long search"), 2_500_000, 0);
+
+        assertThat(line).endsWith("| params [3, 'a rather...']");
+    }
+
+    @Test
+    void showsOnlyTypesForRedactedTablesAndColumns() {
+        String insert = sqlLog.format("insert into users (email,password_hash,username) values (?,?,?)",
+                List.of("fan@example.com", "$2a$10$secret", "fan"), 1_000_000, 0);
+        String lookup = sqlLog.format("select u1_0.id from users_view u1_0 where u1_0.EMAIL=? or ? is null",
+                Arrays.asList("fan@example.com", null), 1_000_000, 0);
+
+        assertThat(insert).endsWith("| params [<String>, <String>, <String>]").doesNotContain("example", "secret");
+        assertThat(lookup).endsWith("| params [<String>, null]");
+    }
+
+    @Test
+    void doesNotRedactTablesThatOnlyShareAPrefix() {
+        String line = sqlLog.format("delete from user_favorites where user_id=?", List.of(7L), 1_000_000, 0);
+
+        assertThat(line).endsWith("| params [7]");
+    }
+}
@@ -0,0 +1,85 @@
+package com.fanhub.warmup;
+
+import com.fanhub.IntegrationTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Readiness follows the warm-up: out of service while the mix is replayed, in service
+ * once it is done, even though one of the replayed requests fails every time.
+ */
+@Import(WarmupReadinessTest.Probe.class)
+@TestPropertySource(properties = {
+        "fanhub.warmup.enabled=true",
+        "fanhub.warmup.touch-pages=none",
+        "fanhub.warmup.mix=1 /api/warmup-probe/gate; 2 /api/warmup-probe/fail",
+        "fanhub.warmup.min-rounds=1",
+        "fanhub.warmup.max-rounds=1",
+        "fanhub.warmup.target-p99-ms=60000"
+})
+class WarmupReadinessTest extends IntegrationTest {
+
+    // Holds the first warm-up round until the test has seen the instance out of service
+    private static final CountDownLatch GATE = new CountDownLatch(1);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void open() {
+        GATE.countDown();
+    }
+
+    @Test
+    void readyOnlyAfterTheWarmupDespiteFailingRequests() throws Exception {
+        HttpResponse<String> warming = get("/api/health/ready");
+        assertThat(warming.statusCode()).isEqualTo(503);
+        JsonNode status = objectMapper.readTree(warming.body());
+        assertThat(status.get("status").asText()).isEqualTo("warming");
+        assertThat(status.get("warmup").get("state").asText()).isIn("PENDING", "WARMING");
+        // Liveness does not wait for the warm-up
+        assertThat(get("/api/health/live").statusCode()).isEqualTo(200);
+
+        GATE.countDown();
+
+        HttpResponse<String> ready = get("/api/health/ready");
+        for (int i = 0; i < 200 && ready.statusCode() != 200; i++) {
+            Thread.sleep(50);
+            ready = get("/api/health/ready");
+        }
+        assertThat(ready.statusCode()).isEqualTo(200);
+        JsonNode warmup = objectMapper.readTree(ready.body()).get("warmup");
+        assertThat(warmup.get("state").asText()).isEqualTo("READY");
+        assertThat(warmup.get("rounds").asInt()).isEqualTo(1);
+        assertThat(warmup.get("requests").asLong()).isEqualTo(3);
+        assertThat(warmup.get("failures").asLong()).isEqualTo(2);
+    }
+
+    /** Mix targets: one that waits for the test, one that always fails. */
+    @RestController
+    static class Probe {
+
+        @GetMapping("/api/warmup-probe/gate")
+        String gate() throws InterruptedException {
+            return GATE.await(30, TimeUnit.SECONDS) ? "open" : "timed out";
+        }
+
+        @GetMapping("/api/warmup-probe/fail")
+        String fail() {
+            throw new IllegalStateException("Warm-up probe failing on purpose");
+        }
+    }
+}
@@ -3,6 +3,7 @@
 
 import React from "react";
 import styled from "styled-components";
+import { imagesApi } from "../services/api";
 
 const Card = styled.div`
   background: white;
@@ -108,7 +109,9 @@ const CharacterCard = ({ character, onClick }) => {
       <ImageWrapper>
         {character.imageUrl ? (
           <CharacterImage
-            src={character.imageUrl}
+            src={imagesApi.url("character", character.id, 320)}
+            srcSet={imagesApi.srcSet("character", character.id, 320)}
+            loading="lazy"
             alt={character.name}
             onError={(e) => {
               e.target.style.display = "none";
@@ -2,6 +2,7 @@
 // This is yet another styling approach used in the codebase
 
 import React from "react";
+import { imagesApi } from "../services/api";
 
 // All inline styles - no CSS files or styled-components!
 const styles = {
@@ -109,7 +110,9 @@ function EpisodeList({ episodes, onEpisodeClick }) {
           <div style={styles.thumbnail}>
             {episode.thumbnailUrl ? (
               <img
-                src={episode.thumbnailUrl}
+                src={imagesApi.url("episode", episode.id, 160)}
+                srcSet={imagesApi.srcSet("episode", episode.id, 160)}
+                loading="lazy"
                 alt={episode.title}
                 style={{ width: "100%", height: "100%", objectFit: "cover" }}
               />
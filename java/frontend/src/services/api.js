@@ -84,5 +84,13 @@ export const authApi = {
   getMe: () => api.get('/auth/me'),
 };
 
+// Images API - plain URLs for <img>; ?w= picks a cached resized variant
+export const imagesApi = {
+  url: (kind, id, width) =>
+    `${API_URL}/api/images/${kind}/${id}${width ? `?w=${width}` : ''}`,
+  srcSet: (kind, id, width) =>
+    `${imagesApi.url(kind, id, width)} 1x, ${imagesApi.url(kind, id, width * 2)} 2x`,
+};
+
 // Export the api instance for custom requests
 export default api;